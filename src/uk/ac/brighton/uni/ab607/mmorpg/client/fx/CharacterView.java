@@ -0,0 +1,45 @@
+package uk.ac.brighton.uni.ab607.mmorpg.client.fx;
+
+import javafx.beans.property.SimpleDoubleProperty;
+import javafx.geometry.Rectangle2D;
+import uk.ac.brighton.uni.ab607.mmorpg.common.GameCharacter;
+
+/**
+ * Client side view of a character. The character itself is
+ * plain data shared with the server, the sprite and properties
+ * the UI binds to only exist here
+ */
+public class CharacterView {
+
+    public final GameCharacter character;
+
+    public final Sprite sprite = new Sprite("player1.png");
+
+    public final SimpleDoubleProperty xProperty = new SimpleDoubleProperty();
+    public final SimpleDoubleProperty yProperty = new SimpleDoubleProperty();
+
+    public CharacterView(GameCharacter character) {
+        this.character = character;
+    }
+
+    /**
+     * Loads character's position and sprite frame as sent over network
+     * and shows them. Must be called on FX thread
+     *
+     * @param data
+     */
+    public void loadFromByteArray(byte[] data) {
+        character.loadFromByteArray(data);
+
+        int x = character.getX(), y = character.getY();
+
+        sprite.setTranslateX(x);
+        sprite.setTranslateY(y);
+
+        xProperty.set(x);
+        yProperty.set(y);
+
+        sprite.imageView.setViewport(new Rectangle2D(character.place*40, character.getRow()*40, 40, 40));
+        sprite.name.setText(character.name);
+    }
+}
@@ -33,10 +33,12 @@ import uk.ac.brighton.uni.ab607.mmorpg.common.GameCharacter;
 import uk.ac.brighton.uni.ab607.mmorpg.common.GameCharacterClass;
 import uk.ac.brighton.uni.ab607.mmorpg.common.Player;
 import uk.ac.brighton.uni.ab607.mmorpg.common.Sys;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.IntMap;
 import uk.ac.brighton.uni.ab607.mmorpg.common.object.ObjectManager;
 import uk.ac.brighton.uni.ab607.mmorpg.common.object.Skill;
 import uk.ac.brighton.uni.ab607.mmorpg.common.request.ActionRequest;
 import uk.ac.brighton.uni.ab607.mmorpg.common.request.ActionRequest.Action;
+import uk.ac.brighton.uni.ab607.mmorpg.common.request.EntityDelta;
 import uk.ac.brighton.uni.ab607.mmorpg.common.request.ImageAnimationMessage;
 import uk.ac.brighton.uni.ab607.mmorpg.common.request.MessageType;
 import uk.ac.brighton.uni.ab607.mmorpg.common.request.QueryRequest;
@@ -64,10 +66,18 @@ public class GameWindow extends FXWindow {
     private Group gameRoot = new Group(), uiRoot = new Group();
 
     private Player player;
+    private PlayerView playerView;
     // currently also uses enemy sprites, maybe store in 1 group
     private Group playerSprites = new Group();
-    private ArrayList<Player> playersList = new ArrayList<Player>();
-    private HashMap<String, String> idMap = new HashMap<String, String>();
+    private ArrayList<CharacterView> playersList = new ArrayList<CharacterView>();
+    /**
+     * Player names by runtime ID
+     */
+    private IntMap<String> idMap = new IntMap<String>();
+    /**
+     * Characters in playersList by their packed IDs, used to apply deltas
+     */
+    private HashMap<Integer, CharacterView> entities = new HashMap<Integer, CharacterView>();
 
     private int selX = 1000, selY = 600;
     private boolean selectingTarget = false;
@@ -80,6 +90,7 @@ public class GameWindow extends FXWindow {
     public GameWindow(String ip, String playerName) {
         this.ip = ip;
         player = new Player(playerName, GameCharacterClass.NOVICE, 0, 0, "", 0);
+        playerView = new PlayerView(player);
         name = playerName;
 
         UIAnimations.init(gameRoot, player);
@@ -94,30 +105,30 @@ public class GameWindow extends FXWindow {
         gameRoot.getChildren().add(background);
 
         // add animation listeners
-        player.baseLevelProperty.addListener((obs, old, newValue) -> {
+        playerView.baseLevelProperty.addListener((obs, old, newValue) -> {
             if (newValue.intValue() > old.intValue() && old.intValue() != 0)
                 new LevelUpAnimation(gameRoot, player);
         });
 
-        player.moneyProperty.addListener((obs, old, newValue) -> {
+        playerView.moneyProperty.addListener((obs, old, newValue) -> {
             if (old.intValue() != -1 && newValue.intValue() - old.intValue() > 0)
                 new MoneyGainAnimation(newValue.intValue() - old.intValue());
         });
 
-        player.baseXPProperty.addListener((obs, old, newValue) -> {
+        playerView.baseXPProperty.addListener((obs, old, newValue) -> {
             if (newValue.doubleValue() != 0)
                 new XPGainAnimation(newValue.doubleValue() - old.doubleValue());
         });
 
-        playersList.add(player);
-        playerSprites.getChildren().add(player.sprite);
+        playersList.add(playerView);
+        playerSprites.getChildren().add(playerView.sprite);
 
         gameRoot.getChildren().addAll(playerSprites);
 
         // create peripheral windows
         menuWindow = new UIMenuWindow();
-        statsWindow = new UIStatsWindow(player);
-        inventoryWindow = new UIInventoryWindow(player);
+        statsWindow = new UIStatsWindow(playerView);
+        inventoryWindow = new UIInventoryWindow(playerView);
 
         createUI();
 
@@ -144,7 +155,7 @@ public class GameWindow extends FXWindow {
         xpBar.setPrefWidth(600);
         xpBar.setTranslateX(350);
         xpBar.setStyle("-fx-accent: rgb(255, 215, 0)");
-        xpBar.progressProperty().bind(player.baseXPProperty);
+        xpBar.progressProperty().bind(playerView.baseXPProperty);
 
         uiRoot.getChildren().add(xpBar);
 
@@ -152,8 +163,8 @@ public class GameWindow extends FXWindow {
         hpBar.setTranslateX(240);
         hpBar.setTranslateY(635);
         hpBar.setRotate(-90);
-        hpBar.progressProperty().bind(player.hpProperty.divide(
-                player.statProperties[Player.MAX_HP].add(player.bonusStatProperties[Player.MAX_HP]).multiply(1.0f)));
+        hpBar.progressProperty().bind(playerView.hpProperty.divide(
+                playerView.statProperties[Player.MAX_HP].add(playerView.bonusStatProperties[Player.MAX_HP]).multiply(1.0f)));
         hpBar.progressProperty().addListener((obs, old, newValue) -> {
             int r = 255 - (int) (147*newValue.doubleValue());
             int g = (int)(200 * newValue.doubleValue());
@@ -167,8 +178,8 @@ public class GameWindow extends FXWindow {
         spBar.setTranslateX(850);
         spBar.setTranslateY(635);
         spBar.setRotate(-90);
-        spBar.progressProperty().bind(player.spProperty.divide(
-                player.statProperties[Player.MAX_SP].add(player.bonusStatProperties[Player.MAX_SP]).multiply(1.0f)));
+        spBar.progressProperty().bind(playerView.spProperty.divide(
+                playerView.statProperties[Player.MAX_SP].add(playerView.bonusStatProperties[Player.MAX_SP]).multiply(1.0f)));
         spBar.progressProperty().addListener((obs, old, newValue) -> {
             int r = 173 - (int)(42*newValue.doubleValue());
             int g = 223 - (int)(154*newValue.doubleValue());
@@ -221,8 +232,8 @@ public class GameWindow extends FXWindow {
 
     @Override
     protected void initScene(Scene scene) {
-        gameRoot.layoutXProperty().bind(player.xProperty.subtract(640).negate());
-        gameRoot.layoutYProperty().bind(player.yProperty.subtract(360).negate());
+        gameRoot.layoutXProperty().bind(playerView.xProperty.subtract(640).negate());
+        gameRoot.layoutYProperty().bind(playerView.yProperty.subtract(360).negate());
 
         scene.setOnKeyPressed(event -> {
             if (event.getCode() == KeyCode.RIGHT) {
@@ -332,9 +343,9 @@ public class GameWindow extends FXWindow {
             text.setFont(text.getFont().font(16));
             text.setFill(Color.DARKBLUE);
 
-            text.textProperty().bind(new SimpleStringProperty("Lv ").concat(player.skillLevelProperties[pos]));
-            imageView.imageProperty().bind(player.skillImageProperties.get(pos));
-            imageView.visibleProperty().bind(player.skillReadyProperties[pos]);
+            text.textProperty().bind(new SimpleStringProperty("Lv ").concat(playerView.skillLevelProperties[pos]));
+            imageView.imageProperty().bind(playerView.skillImageProperties.get(pos));
+            imageView.visibleProperty().bind(playerView.skillReadyProperties[pos]);
 
             imageView.setFitWidth(45);
             imageView.setFitHeight(45);
@@ -357,7 +368,7 @@ public class GameWindow extends FXWindow {
             Text fullText = new Text();
             fullText.setFont(fullText.getFont().font(18));
             fullText.setWrappingWidth(200);
-            fullText.textProperty().bind(player.skillDescProperties[pos]);
+            fullText.textProperty().bind(playerView.skillDescProperties[pos]);
             box.getChildren().add(fullText);
 
             popup.getContent().addAll(rect, box);
@@ -375,8 +386,8 @@ public class GameWindow extends FXWindow {
             });
 
             Button btn = new Button("+");
-            btn.visibleProperty().bind(player.skillPointsProperty.greaterThan(0)
-                    .and(player.skillLevelProperties[pos].lessThan(Skill.MAX_LEVEL)));
+            btn.visibleProperty().bind(playerView.skillPointsProperty.greaterThan(0)
+                    .and(playerView.skillLevelProperties[pos].lessThan(Skill.MAX_LEVEL)));
             btn.setOnAction(event -> {
                 addActionRequest(new ActionRequest(Action.SKILL_UP, player.name, pos));
             });
@@ -431,9 +442,11 @@ public class GameWindow extends FXWindow {
 
                     Platform.runLater(() -> {
 
-                        for (Player p : playersList)
+                        for (CharacterView p : playersList)
                             p.sprite.setValid(false);
 
+                        entities.clear();
+
 
                         // raw data of players containing drawing data
                         ByteArrayInputStream in = new ByteArrayInputStream(packet.byteData);
@@ -456,12 +469,9 @@ public class GameWindow extends FXWindow {
                                 int idValue = ByteStream.decodeA16(ids);
                                 int runtimeID = ByteStream.decodeB16(ids);
 
-                                String playerName = "";
-                                if (ObjectManager.getEnemyByID(idValue + "") != null) {
-                                    playerName = ObjectManager.getEnemyByID(idValue + "").name;
-                                }
-                                else {
-                                    playerName = idMap.get(idValue + "");
+                                String playerName = ObjectManager.getEnemyName(idValue);
+                                if (playerName == null) {
+                                    playerName = idMap.get(idValue);
                                 }
 
                                 if (playerName == null) {
@@ -475,21 +485,23 @@ public class GameWindow extends FXWindow {
 
                                 boolean newPlayer = true;
 
-                                for (Player p : playersList) {
-                                    if (p.name.equals(playerName) && p.getRuntimeID() == runtimeID) {
+                                for (CharacterView p : playersList) {
+                                    if (p.character.name.equals(playerName) && p.character.getRuntimeID() == runtimeID) {
                                         newPlayer = false;
                                         p.loadFromByteArray(data);
                                         p.sprite.setValid(true);
+                                        entities.put(ids, p);
                                         //Out.d(playerName + " " + runtimeID, "true");
                                         break;
                                     }
                                 }
 
                                 if (newPlayer) {
-                                    Player p = new Player(playerName, GameCharacterClass.NOVICE, 0, 0, "", 0);
+                                    CharacterView p = new CharacterView(new Player(playerName, GameCharacterClass.NOVICE, 0, 0, "", 0));
                                     p.loadFromByteArray(data);
-                                    p.setRuntimeID(runtimeID);
+                                    p.character.setRuntimeID(runtimeID);
                                     playersList.add(p);
+                                    entities.put(ids, p);
                                     //Out.d("runtimeID", runtimeID + " " + playerName);
                                     playerSprites.getChildren().add(p.sprite);
                                     //Platform.runLater(() -> playerSprites.getChildren().add(p.sprite));
@@ -513,6 +525,12 @@ public class GameWindow extends FXWindow {
                     updateGameClient();
                 }
 
+                if (packet.byteData[0] == MessageType.UPDATE_GAME_CHAR_DELTA.ordinal()) {
+                    Platform.runLater(() -> EntityDelta.read(packet.byteData, this::applyDelta));
+
+                    updateGameClient();
+                }
+
                 // ANIMATION
                 if (packet.byteData[0] == MessageType.ANIMATION_TEXT.ordinal()) {
                     ByteArrayInputStream in = new ByteArrayInputStream(packet.byteData);
@@ -593,7 +611,7 @@ public class GameWindow extends FXWindow {
                 Player p = (Player) packet.objectData;
 
                 // update client's player
-                player.update(p);
+                playerView.update(p);
 
                 clientReady = true;
             }
@@ -605,13 +623,72 @@ public class GameWindow extends FXWindow {
                 for (String token : tokens) {
                     String[] pair = token.split(",");
 
-                    idMap.put(pair[0], pair[1]);
+                    idMap.put(Integer.parseInt(pair[0]), pair[1]);
                 }
 
                 Out.d("stringData", packet.stringData);
             }
         }
 
+        /**
+         * Applies a single entry of UPDATE_GAME_CHAR_DELTA
+         * Must be called on FX thread
+         */
+        private void applyDelta(int flags, int ids, int xy, byte placeDir, int spriteID) {
+            CharacterView p = entities.get(ids);
+
+            if ((flags & EntityDelta.LEAVE) != 0) {
+                if (p != null) {
+                    entities.remove(ids);
+                    playersList.remove(p);
+                    playerSprites.getChildren().remove(p.sprite);
+                }
+                return;
+            }
+
+            if (p == null) {
+                if ((flags & EntityDelta.ENTER) == 0)
+                    return; // missed the enter, next keyframe will fix it
+
+                int idValue = ByteStream.decodeA16(ids);
+                int runtimeID = ByteStream.decodeB16(ids);
+
+                String playerName = ObjectManager.getEnemyName(idValue);
+                if (playerName == null)
+                    playerName = idMap.get(idValue);
+
+                if (playerName == null)
+                    return;
+
+                for (CharacterView other : playersList) {
+                    if (other.character.name.equals(playerName) && other.character.getRuntimeID() == runtimeID) {
+                        p = other;
+                        break;
+                    }
+                }
+
+                if (p == null) {
+                    p = new CharacterView(new Player(playerName, GameCharacterClass.NOVICE, 0, 0, "", 0));
+                    p.character.setRuntimeID(runtimeID);
+                    playersList.add(p);
+                    playerSprites.getChildren().add(p.sprite);
+                }
+
+                entities.put(ids, p);
+            }
+
+            byte[] data = p.character.toByteArray();
+            if ((flags & EntityDelta.XY) != 0)
+                ByteStream.intToByteArray(data, 0, xy);
+            if ((flags & EntityDelta.SPRITE) != 0)
+                ByteStream.intToByteArray(data, 4, spriteID);
+            if ((flags & EntityDelta.PLACE_DIR) != 0)
+                data[8] = placeDir;
+
+            p.loadFromByteArray(data);
+            p.sprite.setValid(true);
+        }
+
         private void updateGameClient() {
             if (player.getX() != selX || player.getY() != selY)
                 addActionRequest(new ActionRequest(Action.MOVE, name, "map1.txt", selX, selY));
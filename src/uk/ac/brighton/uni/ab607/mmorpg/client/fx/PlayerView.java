@@ -0,0 +1,165 @@
+package uk.ac.brighton.uni.ab607.mmorpg.client.fx;
+
+import java.util.ArrayList;
+import java.util.Optional;
+
+import javafx.application.Platform;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleBooleanProperty;
+import javafx.beans.property.SimpleDoubleProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.image.Image;
+import uk.ac.brighton.uni.ab607.mmorpg.common.GameCharacter;
+import uk.ac.brighton.uni.ab607.mmorpg.common.GameCharacter.Stat;
+import uk.ac.brighton.uni.ab607.mmorpg.common.GameCharacterClassChanger;
+import uk.ac.brighton.uni.ab607.mmorpg.common.Inventory;
+import uk.ac.brighton.uni.ab607.mmorpg.common.Player;
+import uk.ac.brighton.uni.ab607.mmorpg.common.item.GameItem;
+import uk.ac.brighton.uni.ab607.mmorpg.common.item.ItemTemplate;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.Skill;
+
+/**
+ * View of the client's own player, properties here are
+ * bound to by the game, stats and inventory windows
+ */
+public class PlayerView extends CharacterView {
+
+    public final Player player;
+
+    public SimpleIntegerProperty[] attributeProperties = new SimpleIntegerProperty[9];
+    public SimpleIntegerProperty[] bonusAttributeProperties = new SimpleIntegerProperty[9];
+    public SimpleIntegerProperty[] statProperties = new SimpleIntegerProperty[16];
+    public SimpleIntegerProperty[] bonusStatProperties = new SimpleIntegerProperty[16];
+
+    public SimpleIntegerProperty attributePointsProperty = new SimpleIntegerProperty();
+    public SimpleIntegerProperty skillPointsProperty = new SimpleIntegerProperty();
+
+    public SimpleIntegerProperty hpProperty = new SimpleIntegerProperty();
+    public SimpleIntegerProperty spProperty = new SimpleIntegerProperty();
+    public SimpleIntegerProperty baseLevelProperty = new SimpleIntegerProperty();
+    public SimpleIntegerProperty jobLevelProperty = new SimpleIntegerProperty();
+    public SimpleIntegerProperty statLevelProperty = new SimpleIntegerProperty();
+    public SimpleDoubleProperty baseXPProperty = new SimpleDoubleProperty();
+    public SimpleDoubleProperty jobXPProperty = new SimpleDoubleProperty();
+    public SimpleDoubleProperty statXPProperty = new SimpleDoubleProperty();
+
+    public SimpleStringProperty classProperty = new SimpleStringProperty("NOVICE");
+    public SimpleBooleanProperty classChangeProperty = new SimpleBooleanProperty(false);
+
+    public SimpleIntegerProperty moneyProperty = new SimpleIntegerProperty(-1);
+
+    /**
+     * Properties for displaying skills
+     */
+    public SimpleIntegerProperty[] skillLevelProperties = new SimpleIntegerProperty[9];
+    public SimpleStringProperty[] skillDescProperties = new SimpleStringProperty[9];
+    public ArrayList<ObjectProperty<Image>> skillImageProperties = new ArrayList<ObjectProperty<Image>>();
+    public SimpleBooleanProperty[] skillReadyProperties = new SimpleBooleanProperty[9];
+
+    public SimpleStringProperty[] itemDescProperties = new SimpleStringProperty[Inventory.MAX_SIZE];
+    public ArrayList<ObjectProperty<Rectangle2D>> itemSpriteProperties = new ArrayList<ObjectProperty<Rectangle2D>>();
+
+    public SimpleStringProperty[] equipItemDescProperties = new SimpleStringProperty[5];
+    public ArrayList<ObjectProperty<Rectangle2D>> equipItemSpriteProperties = new ArrayList<ObjectProperty<Rectangle2D>>();
+
+    public PlayerView(Player player) {
+        super(player);
+        this.player = player;
+
+        // init everything to 1 to avoid division by 0
+        for (int i = GameCharacter.STR; i <= GameCharacter.LUC; i++) {
+            attributeProperties[i] = new SimpleIntegerProperty(1);
+            bonusAttributeProperties[i] = new SimpleIntegerProperty(1);
+
+            // just so happens STR = 0 and LUC = 8
+            skillLevelProperties[i] = new SimpleIntegerProperty(0);
+            skillDescProperties[i] = new SimpleStringProperty("");
+            ObjectProperty<Image> img = new SimpleObjectProperty<Image>(UIConst.Images.IC_SKILL_DUMMY);
+            skillImageProperties.add(img);
+            skillReadyProperties[i] = new SimpleBooleanProperty(true);
+        }
+        for (int i = GameCharacter.MAX_HP; i <= GameCharacter.SP_REGEN; i++) {
+            statProperties[i] = new SimpleIntegerProperty(1);
+            bonusStatProperties[i] = new SimpleIntegerProperty(1);
+        }
+
+        for (int i = 0; i < itemDescProperties.length; i++) {
+            itemDescProperties[i] = new SimpleStringProperty("");
+            itemSpriteProperties.add(new SimpleObjectProperty<Rectangle2D>(new Rectangle2D(0, 0, 34, 34)));
+        }
+        for (int i = 0; i < equipItemDescProperties.length; i++) {
+            equipItemDescProperties[i] = new SimpleStringProperty("");
+            equipItemSpriteProperties.add(new SimpleObjectProperty<Rectangle2D>(new Rectangle2D(0, 0, 34, 34)));
+        }
+    }
+
+    /**
+     * Updates client's player with data sent by server, then
+     * properties on FX thread
+     *
+     * @param p
+     *              player as sent by server
+     */
+    public void update(Player p) {
+        player.update(p);
+
+        Platform.runLater(() -> {
+            for (int i = GameCharacter.STR; i <= GameCharacter.LUC; i++) {
+                attributeProperties[i].set(p.getBaseAttribute(i));
+                bonusAttributeProperties[i].set(p.getBonusAttribute(i));
+            }
+            for (int i = GameCharacter.MAX_HP; i <= GameCharacter.SP_REGEN; i++) {
+                statProperties[i].set((int)(p.getBaseStat(Stat.values()[i])));
+                bonusStatProperties[i].set((int)(p.getBonusStat(Stat.values()[i])));
+            }
+            for (int i = 0; i < p.getSkills().length; i++) {
+                Skill skill = p.getSkills()[i];
+
+                skillLevelProperties[i].set(skill.getLevel());
+                skillImageProperties.get(i).set(UIConst.Images.getSkillImageByID(skill.id));
+                skillDescProperties[i].set(skill.name + "\n" + "SP: " + skill.getManaCost() + "\n" + skill.description);
+                skillReadyProperties[i].set(skill.getCurrentCooldown() == 0);
+            }
+
+            for (int i = 0; i < itemDescProperties.length; i++) {
+                Optional<GameItem> item = p.getInventory().getItem(i);
+                if (item.isPresent()) {
+                    ItemTemplate t = item.get().getTemplate();
+                    itemDescProperties[i].set(t.description);
+                    itemSpriteProperties.get(i).set(new Rectangle2D(t.ssX*34, t.ssY*34, 34, 34));
+                }
+                else {
+                    itemDescProperties[i].set("");
+                    itemSpriteProperties.get(i).set(new Rectangle2D(0, 0, 34, 34));
+                }
+            }
+
+            for (int i = 0; i < equipItemDescProperties.length; i++) {
+                ItemTemplate t = p.getEquip(i).getTemplate();
+                equipItemDescProperties[i].set(t.description);
+                equipItemSpriteProperties.get(i).set(new Rectangle2D(t.ssX*34, t.ssY*34, 34, 34));
+            }
+
+            hpProperty.set(p.getHP());
+            spProperty.set(p.getSP());
+
+            attributePointsProperty.set(p.getAttributePoints());
+            skillPointsProperty.set(p.getSkillPoints());
+
+            baseLevelProperty.set(p.getBaseLevel());
+            statLevelProperty.set(p.getStatLevel());
+            jobLevelProperty.set(p.getJobLevel());
+
+            baseXPProperty.set(p.getBaseXPProgress());
+            jobXPProperty.set(p.getJobXPProgress());
+            statXPProperty.set(p.getStatXPProgress());
+
+            moneyProperty.set(p.getMoney());
+            classChangeProperty.set(GameCharacterClassChanger.canChangeClass(p));
+            classProperty.set(p.getCharClass().toString());
+        });
+    }
+}
@@ -1,29 +1,46 @@
 package uk.ac.brighton.uni.ab607.mmorpg.client.fx;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.almasb.java.io.ResourceManager;
 
 import javafx.scene.Parent;
+import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.text.Text;
 
 public class Sprite extends Parent {
 
+    /**
+     * Every character has a sprite, so each image is loaded once and shared
+     */
+    private static final ConcurrentHashMap<String, Image> images = new ConcurrentHashMap<String, Image>();
+
     public ImageView imageView;
     public Text name = new Text("");
     private boolean valid = true;
 
     public Sprite(String fileName) {
         try {
-            imageView = new ImageView(ResourceManager.loadFXImage(fileName));
+            imageView = new ImageView(images.computeIfAbsent(fileName, Sprite::loadImage));
             getChildren().addAll(imageView, name);
         }
-        catch (IOException e) {
+        catch (UncheckedIOException e) {
             e.printStackTrace();
         }
     }
 
+    private static Image loadImage(String fileName) {
+        try {
+            return ResourceManager.loadFXImage(fileName);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     public boolean isValid() {
         return valid;
     }
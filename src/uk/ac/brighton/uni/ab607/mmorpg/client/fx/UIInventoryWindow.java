@@ -34,9 +34,11 @@ import javafx.util.Duration;
 public class UIInventoryWindow extends UIFragmentWindow {
 
     private Player player;
+    private PlayerView view;
 
-    public UIInventoryWindow(Player player) {
-        this.player = player;
+    public UIInventoryWindow(PlayerView view) {
+        this.view = view;
+        this.player = view.player;
 
         try {
             ImageView imgLeft = new ImageView(ResourceManager.loadFXImage("inventory_left.png"));
@@ -134,7 +136,7 @@ public class UIInventoryWindow extends UIFragmentWindow {
         private ImageView imageView = new ImageView(UIConst.Images.SS_ITEMS);
 
         public ItemView(int pos) {
-            imageView.viewportProperty().bind(player.itemSpriteProperties.get(pos));
+            imageView.viewportProperty().bind(view.itemSpriteProperties.get(pos));
 
             //            imageView.setFitWidth(45);
             //            imageView.setFitHeight(45);
@@ -157,7 +159,7 @@ public class UIInventoryWindow extends UIFragmentWindow {
             Text fullText = new Text();
             fullText.setFont(fullText.getFont().font(18));
             fullText.setWrappingWidth(200);
-            fullText.textProperty().bind(player.itemDescProperties[pos]);
+            fullText.textProperty().bind(view.itemDescProperties[pos]);
             box.getChildren().add(fullText);
 
             popup.getContent().addAll(rect, box);
@@ -199,7 +201,7 @@ public class UIInventoryWindow extends UIFragmentWindow {
         private ImageView imageView = new ImageView(UIConst.Images.SS_ITEMS);
 
         public EquipItemView(int pos) {
-            imageView.viewportProperty().bind(player.equipItemSpriteProperties.get(pos));
+            imageView.viewportProperty().bind(view.equipItemSpriteProperties.get(pos));
 
             //            imageView.setFitWidth(45);
             //            imageView.setFitHeight(45);
@@ -222,7 +224,7 @@ public class UIInventoryWindow extends UIFragmentWindow {
             Text fullText = new Text();
             fullText.setFont(fullText.getFont().font(18));
             fullText.setWrappingWidth(200);
-            fullText.textProperty().bind(player.equipItemDescProperties[pos]);
+            fullText.textProperty().bind(view.equipItemDescProperties[pos]);
             box.getChildren().add(fullText);
 
             popup.getContent().addAll(rect, box);
@@ -25,7 +25,9 @@ import uk.ac.brighton.uni.ab607.mmorpg.common.request.ActionRequest.Action;
 
 public class UIStatsWindow extends UIFragmentWindow {
 
-    public UIStatsWindow(Player player) {
+    public UIStatsWindow(PlayerView view) {
+        Player player = view.player;
+
         StackPane stack = new StackPane();
         stack.setAlignment(Pos.TOP_LEFT);
 
@@ -50,24 +52,24 @@ public class UIStatsWindow extends UIFragmentWindow {
             attr.setFont(UIConst.FONT);
             attr.textProperty().bind(
                     new SimpleStringProperty(Attribute.values()[i].name() + ": " )
-                    .concat(player.attributeProperties[i]).concat("+")
-                    .concat(player.bonusAttributeProperties[i]));
+                    .concat(view.attributeProperties[i]).concat("+")
+                    .concat(view.bonusAttributeProperties[i]));
 
             Button btn = new Button("+");
             btn.setOnAction(event -> {
                 addActionRequest(new ActionRequest(Action.ATTR_UP, player.name, attrNum));
             });
-            btn.visibleProperty().bind(player.attributePointsProperty.greaterThan(0)
-                    .and(player.attributeProperties[i].lessThan(100)));
+            btn.visibleProperty().bind(view.attributePointsProperty.greaterThan(0)
+                    .and(view.attributeProperties[i].lessThan(100)));
 
             hLine.getChildren().addAll(attr, btn);
             attrBox.getChildren().add(hLine);
         }
 
         ChoiceBox<String> cb = new ChoiceBox<String>();
-        cb.visibleProperty().bind(player.classChangeProperty);
+        cb.visibleProperty().bind(view.classChangeProperty);
 
-        player.classChangeProperty.addListener((obs, old, newValue) -> {
+        view.classChangeProperty.addListener((obs, old, newValue) -> {
             if (newValue.booleanValue()) {
                 cb.getItems().clear();
 
@@ -84,7 +86,7 @@ public class UIStatsWindow extends UIFragmentWindow {
             String className = cb.getSelectionModel().getSelectedItem();
             addActionRequest(new ActionRequest(Action.CHANGE_CLASS, player.name, className));
         });
-        btn.visibleProperty().bind(player.classChangeProperty);
+        btn.visibleProperty().bind(view.classChangeProperty);
 
         HBox box = new HBox(10);
         box.getChildren().addAll(cb, btn);
@@ -99,52 +101,52 @@ public class UIStatsWindow extends UIFragmentWindow {
         Text statName = new Text(player.name);
 
         Text statClass = new Text();
-        statClass.textProperty().bind(new SimpleStringProperty("Class: ").concat(player.classProperty));
+        statClass.textProperty().bind(new SimpleStringProperty("Class: ").concat(view.classProperty));
 
         Text statLevel = new Text();
-        statLevel.textProperty().bind(new SimpleStringProperty("Level: ").concat(player.baseLevelProperty)
-                .concat("/").concat(player.jobLevelProperty)
-                .concat("/").concat(player.statLevelProperty));
+        statLevel.textProperty().bind(new SimpleStringProperty("Level: ").concat(view.baseLevelProperty)
+                .concat("/").concat(view.jobLevelProperty)
+                .concat("/").concat(view.statLevelProperty));
 
         Text statHPSP = new Text();
-        statHPSP.textProperty().bind(new SimpleStringProperty("HP: ").concat(player.hpProperty).concat("/")
-                .concat(player.statProperties[Player.MAX_HP].add(player.bonusStatProperties[Player.MAX_HP]))
-                .concat(" SP: ").concat(player.spProperty).concat("/")
-                .concat(player.statProperties[Player.MAX_SP].add(player.bonusStatProperties[Player.MAX_SP])));
+        statHPSP.textProperty().bind(new SimpleStringProperty("HP: ").concat(view.hpProperty).concat("/")
+                .concat(view.statProperties[Player.MAX_HP].add(view.bonusStatProperties[Player.MAX_HP]))
+                .concat(" SP: ").concat(view.spProperty).concat("/")
+                .concat(view.statProperties[Player.MAX_SP].add(view.bonusStatProperties[Player.MAX_SP])));
 
         Text statATK = new Text();
         statATK.textProperty().bind(
-                new SimpleStringProperty("ATK: ").concat(player.statProperties[Player.ATK].add(player.bonusStatProperties[Player.ATK]))
-                .concat(" (").concat(player.statProperties[Player.ATK]).concat("+").concat(player.bonusStatProperties[Player.ATK]).concat(")"));
+                new SimpleStringProperty("ATK: ").concat(view.statProperties[Player.ATK].add(view.bonusStatProperties[Player.ATK]))
+                .concat(" (").concat(view.statProperties[Player.ATK]).concat("+").concat(view.bonusStatProperties[Player.ATK]).concat(")"));
 
         Text statMATK = new Text();
         statMATK.textProperty().bind(
-                new SimpleStringProperty("MATK: ").concat(player.statProperties[Player.MATK].add(player.bonusStatProperties[Player.MATK]))
-                .concat(" (").concat(player.statProperties[Player.MATK]).concat("+").concat(player.bonusStatProperties[Player.MATK]).concat(")"));
+                new SimpleStringProperty("MATK: ").concat(view.statProperties[Player.MATK].add(view.bonusStatProperties[Player.MATK]))
+                .concat(" (").concat(view.statProperties[Player.MATK]).concat("+").concat(view.bonusStatProperties[Player.MATK]).concat(")"));
 
         Text statDEF = new Text();
         statDEF.textProperty().bind(
-                new SimpleStringProperty("DEF: ").concat(player.statProperties[Player.DEF].add(player.bonusStatProperties[Player.DEF]))
-                .concat(" (").concat(player.statProperties[Player.DEF]).concat("+").concat(player.bonusStatProperties[Player.DEF]).concat(")"));
+                new SimpleStringProperty("DEF: ").concat(view.statProperties[Player.DEF].add(view.bonusStatProperties[Player.DEF]))
+                .concat(" (").concat(view.statProperties[Player.DEF]).concat("+").concat(view.bonusStatProperties[Player.DEF]).concat(")"));
 
         Text statMDEF = new Text();
         statMDEF.textProperty().bind(
-                new SimpleStringProperty("MDEF: ").concat(player.statProperties[Player.MDEF].add(player.bonusStatProperties[Player.MDEF]))
-                .concat(" (").concat(player.statProperties[Player.MDEF]).concat("+").concat(player.bonusStatProperties[Player.MDEF]).concat(")"));
+                new SimpleStringProperty("MDEF: ").concat(view.statProperties[Player.MDEF].add(view.bonusStatProperties[Player.MDEF]))
+                .concat(" (").concat(view.statProperties[Player.MDEF]).concat("+").concat(view.bonusStatProperties[Player.MDEF]).concat(")"));
 
         Text statARM = new Text();
         statARM.textProperty().bind(
-                new SimpleStringProperty("ARM: ").concat(player.statProperties[Player.ARM].add(player.bonusStatProperties[Player.ARM]))
-                .concat(" (").concat(player.statProperties[Player.ARM]).concat("+").concat(player.bonusStatProperties[Player.ARM]).concat(")"));
+                new SimpleStringProperty("ARM: ").concat(view.statProperties[Player.ARM].add(view.bonusStatProperties[Player.ARM]))
+                .concat(" (").concat(view.statProperties[Player.ARM]).concat("+").concat(view.bonusStatProperties[Player.ARM]).concat(")"));
 
         Text statMARM = new Text();
         statMARM.textProperty().bind(
-                new SimpleStringProperty("MARM: ").concat(player.statProperties[Player.MARM].add(player.bonusStatProperties[Player.MARM]))
-                .concat(" (").concat(player.statProperties[Player.MARM]).concat("+").concat(player.bonusStatProperties[Player.MARM]).concat(")"));
+                new SimpleStringProperty("MARM: ").concat(view.statProperties[Player.MARM].add(view.bonusStatProperties[Player.MARM]))
+                .concat(" (").concat(view.statProperties[Player.MARM]).concat("+").concat(view.bonusStatProperties[Player.MARM]).concat(")"));
 
         Text statCrit = new Text();
-        statCrit.textProperty().bind(new SimpleStringProperty("CRIT: ").concat(player.statProperties[Player.CRIT_CHANCE])
-                .concat("+").concat(player.bonusStatProperties[Player.CRIT_CHANCE]).concat("%"));
+        statCrit.textProperty().bind(new SimpleStringProperty("CRIT: ").concat(view.statProperties[Player.CRIT_CHANCE])
+                .concat("+").concat(view.bonusStatProperties[Player.CRIT_CHANCE]).concat("%"));
 
         statBox.getChildren().addAll(statName, statClass, statLevel, statHPSP, statATK, statMATK, statDEF, statMDEF, statARM, statMARM, statCrit);
         statBox.getChildren().forEach(child -> ((Text)child).setFont(UIConst.FONT));
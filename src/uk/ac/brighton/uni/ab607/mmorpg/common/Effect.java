@@ -1,6 +1,7 @@
 package uk.ac.brighton.uni.ab607.mmorpg.common;
 
 import uk.ac.brighton.uni.ab607.mmorpg.common.object.Essence;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.TimerWheel;
 
 /**
  * Buff that lasts for a period of time, can be negative
@@ -25,6 +26,11 @@ public class Effect implements java.io.Serializable {
      */
     public final String sourceID;
 
+    /**
+     * Ends this effect, set by character it is applied to
+     */
+    /*package-private*/ transient TimerWheel.Timer timer;
+
     public Effect(float duration, String sourceID, Rune[] runes, Essence[] essences) {
         this.duration = duration;
         this.runes = runes;
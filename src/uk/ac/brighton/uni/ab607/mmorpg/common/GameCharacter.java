@@ -2,27 +2,24 @@ package uk.ac.brighton.uni.ab607.mmorpg.common;
 
 import static com.almasb.common.parsing.PseudoHTML.*;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 
-import javafx.application.Platform;
-import javafx.beans.property.SimpleDoubleProperty;
-import javafx.beans.property.SimpleIntegerProperty;
-import javafx.geometry.Rectangle2D;
-import javafx.scene.shape.Rectangle;
-
 import com.almasb.common.graphics.Color;
 import com.almasb.common.graphics.Drawable;
 import com.almasb.common.graphics.GraphicsContext;
 import com.almasb.java.util.ByteStream;
 import com.almasb.common.util.Out;
 
-import uk.ac.brighton.uni.ab607.mmorpg.client.fx.Sprite;
 import uk.ac.brighton.uni.ab607.mmorpg.common.StatusEffect.Status;
 import uk.ac.brighton.uni.ab607.mmorpg.common.item.EquippableItem.Element;
 import uk.ac.brighton.uni.ab607.mmorpg.common.object.ObjectManager;
 import uk.ac.brighton.uni.ab607.mmorpg.common.object.Skill;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.SpatialIndex;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.TimerWheel;
+import uk.ac.brighton.uni.ab607.mmorpg.common.request.BufferStream;
 import uk.ac.brighton.uni.ab607.mmorpg.common.request.SkillUseResult;
 
 /**
@@ -32,7 +29,7 @@ import uk.ac.brighton.uni.ab607.mmorpg.common.request.SkillUseResult;
  * @author Almas Baimagambetov
  *
  */
-public abstract class GameCharacter implements java.io.Serializable, Drawable, ByteStream {
+public abstract class GameCharacter implements java.io.Serializable, Drawable, BufferStream {
     private static final long serialVersionUID = -4840633591092062960L;
 
     public static final int BYTE_STREAM_SIZE = 13;
@@ -67,6 +64,11 @@ public abstract class GameCharacter implements java.io.Serializable, Drawable, B
      */
     public String id, name, description;
 
+    /**
+     * Dense template ID assigned by ObjectManager, -1 for players
+     */
+    protected int templateID = -1;
+
     /**
      * ID of the object in 1 instance of the game
      */
@@ -117,15 +119,90 @@ public abstract class GameCharacter implements java.io.Serializable, Drawable, B
             HP_REGEN = 14,
             SP_REGEN = 15;
 
-    protected byte[] attributes = new byte[9];    // we have 9 attributes
-    protected byte[] bAttributes = new byte[9];   // on top of native attributes items can give bonuses
-    protected float[] stats = new float[16];        // 16 stats
-    protected float[] bStats = new float[16];       // bonus stats given by item
+    protected byte[] attributes;    // we have 9 attributes
+    protected byte[] bAttributes;   // on top of native attributes items can give bonuses
+    protected float[] stats;        // 16 stats
+    protected float[] bStats;       // bonus stats given by item
+
+    /**
+     * Bonuses of passive skills, rebuilt when stats are recalculated
+     */
+    private int[] pAttributes;
+    private float[] pStats;
+
+    /**
+     * Attribute bonuses of passive skills before the last rebuild,
+     * reused so that rebuilds do not allocate
+     */
+    private transient int[] oldPAttributes;
+
+    /**
+     * Character whose stat arrays this one shares, null if not created from one
+     */
+    private transient GameCharacter statTemplate;
+
+    /**
+     * Whether stat arrays are shared with other characters of the same
+     * template, they are copied before the first change to them
+     */
+    private boolean sharedStats = false;
+
+    private static final int ALL_STATS = (1 << 16) - 1;
+
+    /**
+     * Stats that depend on each attribute, one bit per stat
+     */
+    private static final int[] ATTRIBUTE_STATS = {
+        bits(MAX_HP, ATK, DEF),                                                     // STR
+        bits(MAX_HP, DEF, HP_REGEN),                                                // VIT
+        bits(ATK, MATK, ASPD, MSPD, CRIT_CHANCE),                                   // DEX
+        bits(ASPD),                                                                 // AGI
+        bits(MAX_SP, MATK, MDEF, MSPD),                                             // INT
+        bits(MAX_SP, MATK, MDEF, MSPD, CRIT_CHANCE, SP_REGEN),                      // WIS
+        bits(MAX_SP, MATK, MDEF, MSPD, MCRIT_CHANCE),                               // WIL
+        bits(ATK, MATK, DEF, MDEF, MSPD, CRIT_CHANCE, MCRIT_CHANCE),                // PER
+        bits(ATK, MATK, MSPD, CRIT_CHANCE, MCRIT_CHANCE, CRIT_DMG, MCRIT_DMG)       // LUC
+    };
+
+    /**
+     * Stats that depend on base level or character class
+     */
+    private static final int LEVEL_STATS = bits(MAX_HP, MAX_SP, ATK, MATK, DEF, MDEF);
+
+    /**
+     * Stats that need to be recalculated, one bit per stat.
+     * Stats are only recalculated when they are read
+     */
+    private int dirtyStats = ALL_STATS;
+
+    /**
+     * Whether bonuses of passive skills need to be rebuilt
+     */
+    private boolean passivesDirty = true;
+
+    /**
+     * Whether a passive skill depends on current HP
+     */
+    private boolean hpPassives = false;
 
     protected Skill[] skills;
 
-    private ArrayList<StatusEffect> statuses = new ArrayList<StatusEffect>();
-    private ArrayList<Effect> effects = new ArrayList<Effect>();
+    private static final int NUM_STATUSES = Status.values().length;
+
+    /**
+     * Active status effects, one bit per Status.ordinal()
+     */
+    private int statusFlags = 0;
+
+    /**
+     * Expiry timers of active status effects, by Status.ordinal()
+     */
+    private transient CharacterTimer[] statusTimers;
+
+    /**
+     * Active effects, null until the first one
+     */
+    private ArrayList<Effect> effects;
 
     protected int baseLevel = 1, atkTick = 0,
             hp = 0, sp = 0; // these are current hp/sp
@@ -138,20 +215,96 @@ public abstract class GameCharacter implements java.io.Serializable, Drawable, B
 
     protected GameCharacterClass charClass;
 
-    protected Experience xp = new Experience(0, 0, 0);
-
+    protected Experience xp;
 
-    public transient SimpleDoubleProperty xProperty = new SimpleDoubleProperty();
-    public transient SimpleDoubleProperty yProperty = new SimpleDoubleProperty();
 
     public GameCharacter(String name, String description, GameCharacterClass charClass) {
         //this.id = id;
         this.name = name;
         this.description = description;
         this.charClass = charClass;
+        this.xp = new Experience(0, 0, 0);
+
+        attributes = new byte[9];
+        bAttributes = new byte[9];
+        stats = new float[16];
+        bStats = new float[16];
+        pAttributes = new int[9];
+        pStats = new float[16];
+
         init();
     }
 
+    /**
+     * Creates a character with base stats of template, e.g. an enemy
+     * of the same type. Stat arrays are shared with template until
+     * they change here, e.g. when an effect lands. Template must not
+     * change afterwards, its experience is shared too
+     *
+     * @param template
+     */
+    protected GameCharacter(GameCharacter template) {
+        this.id = template.id;
+        this.name = template.name;
+        this.description = template.description;
+        this.charClass = template.charClass;
+        this.templateID = template.templateID;
+        this.baseLevel = template.baseLevel;
+        this.xp = template.xp;
+        this.spriteID = template.spriteID;
+
+        this.skills = new Skill[template.skills.length];
+        for (int i = 0; i < skills.length; i++) {
+            skills[i] = ObjectManager.getSkillByID(template.skills[i].id);
+            skills[i].setLevel(template.skills[i].getLevel());
+        }
+
+        template.updateStats();
+        template.sharedStats = true;
+        shareStats(template);
+
+        setHP((int)getTotalStat(MAX_HP));   // set current hp/sp to max
+        setSP((int)getTotalStat(MAX_SP));
+    }
+
+    /**
+     * Points stat arrays to those of template, which must be up to date
+     *
+     * @param template
+     */
+    private void shareStats(GameCharacter template) {
+        statTemplate = template;
+        sharedStats = true;
+
+        attributes = template.attributes;
+        bAttributes = template.bAttributes;
+        stats = template.stats;
+        bStats = template.bStats;
+        pAttributes = template.pAttributes;
+        pStats = template.pStats;
+
+        dirtyStats = 0;
+        passivesDirty = false;
+        hpPassives = template.hpPassives;
+    }
+
+    /**
+     * Copies stat arrays if they are shared, must be called before
+     * any change to them
+     */
+    private void ownStats() {
+        if (sharedStats) {
+            sharedStats = false;
+
+            attributes = attributes.clone();
+            bAttributes = bAttributes.clone();
+            stats = stats.clone();
+            bStats = bStats.clone();
+            pAttributes = pAttributes.clone();
+            pStats = pStats.clone();
+        }
+    }
+
     public void init() {
         this.skills = new Skill[charClass.skillIDs.length];
 
@@ -170,15 +323,24 @@ public abstract class GameCharacter implements java.io.Serializable, Drawable, B
     }
 
     public float getBaseStat(Stat stat) {
+        updateStats();
         return stats[stat.ordinal()];
     }
 
+    /**
+     *
+     * @param attr
+     * @return
+     *          bonus given by items, effects and passive skills
+     */
     public int getBonusAttribute(int attr) {
-        return bAttributes[attr];
+        updateStats();
+        return bAttributes[attr] + pAttributes[attr];
     }
 
     public float getBonusStat(Stat stat) {
-        return bStats[stat.ordinal()];
+        updateStats();
+        return bStats[stat.ordinal()] + pStats[stat.ordinal()];
     }
 
     /**
@@ -189,11 +351,12 @@ public abstract class GameCharacter implements java.io.Serializable, Drawable, B
      *          total value for attr, including bonuses
      */
     public int getTotalAttribute(int attr) {
-        return attributes[attr] + bAttributes[attr];
+        updateStats();
+        return attributes[attr] + bAttributes[attr] + pAttributes[attr];
     }
 
     public int getTotalAttribute(Attribute attr) {
-        return attributes[attr.ordinal()] + bAttributes[attr.ordinal()];
+        return getTotalAttribute(attr.ordinal());
     }
 
     /**
@@ -204,65 +367,167 @@ public abstract class GameCharacter implements java.io.Serializable, Drawable, B
      *          total value for stat, including bonuses
      */
     public float getTotalStat(int stat) {
-        return stats[stat] + bStats[stat];
+        updateStats();
+        return stats[stat] + bStats[stat] + pStats[stat];
     }
 
     public float getTotalStat(Stat stat) {
-        return stats[stat.ordinal()] + bStats[stat.ordinal()];
+        return getTotalStat(stat.ordinal());
     }
 
     /**
-     * Character stats are directly affected by his attributes
-     * Therefore any change in attributes must be followed by
-     * call to this method
+     * Recalculates all stats and bonuses of passive skills now.
+     * Stats are kept up to date on their own, this is only needed
+     * when fields they depend on are set directly, e.g. after loading
      */
     public final void calculateStats() {
-        int strength    = getTotalAttribute(STR);   // calculate totals first
-        int vitality    = getTotalAttribute(VIT);
-        int dexterity   = getTotalAttribute(DEX);
-        int agility     = getTotalAttribute(AGI);
-        int intellect   = getTotalAttribute(INT);
-        int wisdom      = getTotalAttribute(WIS);
-        int willpower   = getTotalAttribute(WIL);
-        int perception  = getTotalAttribute(PER);
-        int luck        = getTotalAttribute(LUC);
+        dirtyStats = ALL_STATS;
+        passivesDirty = true;
+        updateStats();
+    }
+
+    /**
+     * Marks stats that depend on base level and class for recalculation
+     */
+    protected final void onLevelChanged() {
+        dirtyStats |= LEVEL_STATS;
+        passivesDirty = true;
+    }
+
+    /**
+     * Marks stats that depend on attr for recalculation
+     *
+     * @param attr
+     */
+    protected final void onAttributeChanged(int attr) {
+        dirtyStats |= ATTRIBUTE_STATS[attr];
+        passivesDirty = true;
+    }
+
+    /**
+     * Marks bonuses of passive skills for rebuilding,
+     * called when skills or their levels change
+     */
+    public final void onSkillsChanged() {
+        passivesDirty = true;
+    }
+
+    /**
+     * Brings dirty stats up to date, called on every read
+     */
+    private void updateStats() {
+        if (sharedStats && (passivesDirty || dirtyStats != 0))
+            ownStats();
+
+        if (passivesDirty) {
+            // clear first, passive skills read stats while they are applied
+            passivesDirty = false;
+            hpPassives = false;
+
+            // attribute bonuses come first as stats are calculated from total attributes
+            if (oldPAttributes == null)
+                oldPAttributes = new int[pAttributes.length];
+
+            System.arraycopy(pAttributes, 0, oldPAttributes, 0, pAttributes.length);
+            Arrays.fill(pAttributes, 0);
+            for (Skill sk : skills) {
+                if (!sk.active && sk.getLevel() > 0) {
+                    sk.addAttributeBonus(this, pAttributes);
+                    hpPassives |= sk.dependsOnHP();
+                }
+            }
+
+            for (int i = 0; i < pAttributes.length; i++)
+                if (pAttributes[i] != oldPAttributes[i])
+                    dirtyStats |= ATTRIBUTE_STATS[i];
+
+            calculateDirtyStats();
+
+            Arrays.fill(pStats, 0);
+            for (Skill sk : skills)
+                if (!sk.active && sk.getLevel() > 0)
+                    sk.addStatBonus(this, pStats);
+        }
+        else if (dirtyStats != 0) {
+            calculateDirtyStats();
+        }
+    }
+
+    /**
+     * Character stats are directly affected by his attributes,
+     * only stats with dirty bits are calculated
+     */
+    private void calculateDirtyStats() {
+        int dirty = dirtyStats;
+        dirtyStats = 0;
+
+        int strength    = attributes[STR] + bAttributes[STR] + pAttributes[STR];   // calculate totals first
+        int vitality    = attributes[VIT] + bAttributes[VIT] + pAttributes[VIT];
+        int dexterity   = attributes[DEX] + bAttributes[DEX] + pAttributes[DEX];
+        int agility     = attributes[AGI] + bAttributes[AGI] + pAttributes[AGI];
+        int intellect   = attributes[INT] + bAttributes[INT] + pAttributes[INT];
+        int wisdom      = attributes[WIS] + bAttributes[WIS] + pAttributes[WIS];
+        int willpower   = attributes[WIL] + bAttributes[WIL] + pAttributes[WIL];
+        int perception  = attributes[PER] + bAttributes[PER] + pAttributes[PER];
+        int luck        = attributes[LUC] + bAttributes[LUC] + pAttributes[LUC];
 
         // None of these formulae are finalised yet and need to be checked for game balance
         // only calculate "native" base stats
 
-        stats[MAX_HP] = (vitality*MODIFIER_VERY_HIGH + strength*MODIFIER_MEDIUM + MODIFIER_LEVEL*baseLevel + (vitality/10))
+        if ((dirty & 1 << MAX_HP) != 0)
+            stats[MAX_HP] = (vitality*MODIFIER_VERY_HIGH + strength*MODIFIER_MEDIUM + MODIFIER_LEVEL*baseLevel + (vitality/10))
                 * charClass.hp;
 
-        stats[MAX_SP] = (wisdom*MODIFIER_VERY_HIGH + intellect*MODIFIER_MEDIUM + willpower*MODIFIER_VERY_LOW + MODIFIER_LEVEL*baseLevel + (wisdom/10))
+        if ((dirty & 1 << MAX_SP) != 0)
+            stats[MAX_SP] = (wisdom*MODIFIER_VERY_HIGH + intellect*MODIFIER_MEDIUM + willpower*MODIFIER_VERY_LOW + MODIFIER_LEVEL*baseLevel + (wisdom/10))
                 * charClass.sp;
 
-        stats[ATK] = strength*MODIFIER_VERY_HIGH + dexterity*MODIFIER_MEDIUM + perception*MODIFIER_LOW + luck*MODIFIER_VERY_LOW
+        if ((dirty & 1 << ATK) != 0)
+            stats[ATK] = strength*MODIFIER_VERY_HIGH + dexterity*MODIFIER_MEDIUM + perception*MODIFIER_LOW + luck*MODIFIER_VERY_LOW
                 + baseLevel + (strength/10)*( (strength/10)+1);
 
-        stats[MATK] = intellect*MODIFIER_VERY_HIGH + wisdom*MODIFIER_HIGH + willpower*MODIFIER_HIGH + dexterity*MODIFIER_MEDIUM
+        if ((dirty & 1 << MATK) != 0)
+            stats[MATK] = intellect*MODIFIER_VERY_HIGH + wisdom*MODIFIER_HIGH + willpower*MODIFIER_HIGH + dexterity*MODIFIER_MEDIUM
                 + perception*MODIFIER_LOW + luck*MODIFIER_VERY_LOW + baseLevel + (intellect/10)*( (intellect/10)+1);
 
-        stats[DEF] = vitality*MODIFIER_MEDIUM + perception*MODIFIER_LOW + strength*MODIFIER_VERY_LOW
+        if ((dirty & 1 << DEF) != 0)
+            stats[DEF] = vitality*MODIFIER_MEDIUM + perception*MODIFIER_LOW + strength*MODIFIER_VERY_LOW
                 + MODIFIER_LEVEL*baseLevel + (vitality/20)*(charClass.hp/10);
 
-        stats[MDEF] = willpower*MODIFIER_HIGH + wisdom*MODIFIER_MEDIUM + perception*MODIFIER_LOW + intellect*MODIFIER_VERY_LOW
+        if ((dirty & 1 << MDEF) != 0)
+            stats[MDEF] = willpower*MODIFIER_HIGH + wisdom*MODIFIER_MEDIUM + perception*MODIFIER_LOW + intellect*MODIFIER_VERY_LOW
                 + MODIFIER_LEVEL*baseLevel + (willpower/20)*(intellect/10);
 
-        stats[ASPD] = agility*MODIFIER_VERY_HIGH + dexterity*MODIFIER_LOW;
+        if ((dirty & 1 << ASPD) != 0)
+            stats[ASPD] = agility*MODIFIER_VERY_HIGH + dexterity*MODIFIER_LOW;
 
-        stats[MSPD] = dexterity*MODIFIER_MEDIUM + willpower*MODIFIER_VERY_LOW + wisdom*MODIFIER_VERY_LOW
+        if ((dirty & 1 << MSPD) != 0)
+            stats[MSPD] = dexterity*MODIFIER_MEDIUM + willpower*MODIFIER_VERY_LOW + wisdom*MODIFIER_VERY_LOW
                 + intellect*MODIFIER_VERY_LOW + perception*MODIFIER_VERY_LOW + luck*MODIFIER_VERY_LOW;
 
-        stats[CRIT_CHANCE] = luck*MODIFIER_VERY_HIGH + dexterity*MODIFIER_VERY_LOW + perception*MODIFIER_VERY_LOW
+        if ((dirty & 1 << CRIT_CHANCE) != 0)
+            stats[CRIT_CHANCE] = luck*MODIFIER_VERY_HIGH + dexterity*MODIFIER_VERY_LOW + perception*MODIFIER_VERY_LOW
                 + wisdom*MODIFIER_VERY_LOW;
 
-        stats[MCRIT_CHANCE] = luck*MODIFIER_HIGH + willpower*MODIFIER_LOW + perception*MODIFIER_VERY_LOW;
+        if ((dirty & 1 << MCRIT_CHANCE) != 0)
+            stats[MCRIT_CHANCE] = luck*MODIFIER_HIGH + willpower*MODIFIER_LOW + perception*MODIFIER_VERY_LOW;
+
+        if ((dirty & 1 << CRIT_DMG) != 0)
+            stats[CRIT_DMG]  = 2 + luck*0.01f;
+        if ((dirty & 1 << MCRIT_DMG) != 0)
+            stats[MCRIT_DMG] = 2 + luck*0.01f;
 
-        stats[CRIT_DMG]  = 2 + luck*0.01f;
-        stats[MCRIT_DMG] = 2 + luck*0.01f;
+        if ((dirty & 1 << HP_REGEN) != 0)
+            stats[HP_REGEN] = 1 + vitality * MODIFIER_VERY_LOW;
+        if ((dirty & 1 << SP_REGEN) != 0)
+            stats[SP_REGEN] = 2 + wisdom * MODIFIER_VERY_LOW;
+    }
 
-        stats[HP_REGEN] = 1 + vitality * MODIFIER_VERY_LOW;
-        stats[SP_REGEN] = 2 + wisdom * MODIFIER_VERY_LOW;
+    private static int bits(int... stats) {
+        int bits = 0;
+        for (int stat : stats)
+            bits |= 1 << stat;
+        return bits;
     }
 
     /**
@@ -274,7 +539,9 @@ public abstract class GameCharacter implements java.io.Serializable, Drawable, B
      *              value
      */
     public void addBonusAttribute(Attribute attr, int bonus) {
+        ownStats();
         bAttributes[attr.ordinal()] += bonus;
+        onAttributeChanged(attr.ordinal());
     }
 
     /**
@@ -286,11 +553,18 @@ public abstract class GameCharacter implements java.io.Serializable, Drawable, B
      *              value
      */
     public void addBonusStat(Stat stat, int bonus) {
+        ownStats();
         bStats[stat.ordinal()] += bonus;
+        // passive skills may depend on total stats
+        passivesDirty = true;
     }
 
     public void setHP(int hp) {
-        this.hp = hp;
+        if (this.hp != hp) {
+            this.hp = hp;
+            if (hpPassives)
+                passivesDirty = true;
+        }
     }
 
     public void setSP(int sp) {
@@ -323,7 +597,7 @@ public abstract class GameCharacter implements java.io.Serializable, Drawable, B
      *          false otherwise
      */
     public boolean hasStatusEffect(Status status) {
-        return statuses.contains(status);
+        return (statusFlags & 1 << status.ordinal()) != 0;
     }
 
     /**
@@ -335,10 +609,22 @@ public abstract class GameCharacter implements java.io.Serializable, Drawable, B
         return skills;
     }
 
+    public int getBaseLevel() {
+        return baseLevel;
+    }
+
+    public GameCharacterClass getCharClass() {
+        return charClass;
+    }
+
     public void setRuntimeID(int id) {
         runtimeID = id;
     }
 
+    public int getTemplateID() {
+        return templateID;
+    }
+
     public int getRuntimeID() {
         return runtimeID;
     }
@@ -347,87 +633,122 @@ public abstract class GameCharacter implements java.io.Serializable, Drawable, B
         return alive;
     }
 
+    /**
+     * Brings character back to the state it had when created so that
+     * it can be reused. Character must be detached from its map first
+     */
+    protected void reset() {
+        if (effects != null) {
+            for (Effect e : effects)
+                e.onEnd(this);
+            effects.clear();
+        }
+
+        // effects are gone, go back to stats of the template
+        if (statTemplate != null && !sharedStats)
+            shareStats(statTemplate);
+
+        statusFlags = 0;
+        if (statusTimers != null)
+            Arrays.fill(statusTimers, null);
+        if (timers != null)
+            timers.clear();
+        if (regenTimer != null) {
+            regenTimer.setTicksLeft(REGEN_TICKS);
+            startTimer(regenTimer);
+        }
+
+        for (Skill sk : skills)
+            sk.endCooldown();
+
+        atkTick = 0;
+        xSpeed = ySpeed = 0;
+        frame = place = 0;
+        direction = Dir.DOWN;
+        alive = true;
+
+        setHP((int)getTotalStat(MAX_HP));
+        setSP((int)getTotalStat(MAX_SP));
+    }
+
     public abstract Element getWeaponElement();
     public abstract Element getArmorElement();
 
     public void addEffect(Effect e) {
+        if (effects == null)
+            effects = new ArrayList<Effect>();
+
         for (Iterator<Effect> it = effects.iterator(); it.hasNext(); ) {
             Effect eff = it.next();
             if (eff.sourceID.equals(e.sourceID)) {
                 eff.onEnd(this);
                 it.remove();
+                stopTimer(eff.timer);
                 break;
             }
         }
 
         e.onBegin(this);
         effects.add(e);
+        e.timer = startTimer(TimerWheel.toTicks(e.getDuration()), () -> {
+            effects.remove(e);
+            e.onEnd(this);
+        });
     }
 
+    /**
+     * Same status effects don't stack, applying a status effect
+     * that is already active only extends it if its duration
+     * is longer than what is left
+     *
+     * @param e
+     */
     public void addStatusEffect(StatusEffect e) {
-        statuses.add(e);
-    }
+        int status = e.getStatus().ordinal();
+        int ticks = TimerWheel.toTicks(e.getDuration());
 
-    protected void updateEffects() {
-        for (Iterator<Effect> it = effects.iterator(); it.hasNext(); ) {
-            Effect e = it.next();
-            e.reduceDuration(0.02f);
-            if (e.getDuration() <= 0) {
-                e.onEnd(this);
-                it.remove();
-            }
+        if (statusTimers == null)
+            statusTimers = new CharacterTimer[NUM_STATUSES];
+
+        CharacterTimer timer = statusTimers[status];
+        if (timer != null) {
+            if (timer.getTicksLeft() >= ticks)
+                return;
+
+            stopTimer(timer);
         }
+
+        statusFlags |= 1 << status;
+        statusTimers[status] = startTimer(ticks, () -> {
+            statusFlags &= ~(1 << status);
+            statusTimers[status] = null;
+        });
     }
 
-    private void updateStatusEffects() {
-        for (Iterator<StatusEffect> it = statuses.iterator(); it.hasNext(); ) {
-            StatusEffect e = it.next();
-            e.reduceDuration(0.02f);
-            if (e.getDuration() <= 0) {
-                it.remove();
-            }
+    /**
+     * HP/SP regen interval, 2 secs
+     */
+    private static final int REGEN_TICKS = 100;
+
+    private void regen() {
+        if (!hasStatusEffect(Status.POISONED)) {
+            setHP(Math.min((int)getTotalStat(MAX_HP), (int)(hp + getTotalStat(HP_REGEN))));
+            sp = Math.min((int)getTotalStat(MAX_SP), (int)(sp + getTotalStat(SP_REGEN)));
         }
-    }
 
-    protected float regenTick = 0.0f;
+        regenTimer.setTicksLeft(REGEN_TICKS);
+        startTimer(regenTimer);
+    }
 
     /**
      * With current server settings this update
      * is called every 0.02 seconds
+     *
+     * Effects, status effects, cooldowns and regen are timers
+     * on the map's timer wheel and don't need updating here
      */
     public void update() {
-        // HP/SP regen
-        regenTick += 0.02f;
-
-        if (regenTick >= 2.0f) {    // 2 secs
-            if (!hasStatusEffect(Status.POISONED)) {
-                hp = Math.min((int)getTotalStat(MAX_HP), (int)(hp + getTotalStat(HP_REGEN)));
-                sp = Math.min((int)getTotalStat(MAX_SP), (int)(sp + getTotalStat(SP_REGEN)));
-            }
-            regenTick = 0.0f;
-        }
-
         if (!canAttack()) atkTick++;
-
-        // skill cooldowns
-
-        for (Skill sk : skills) {
-            if (sk.active) {
-                if (sk.getCurrentCooldown() > 0) {
-                    sk.reduceCurrentCooldown(0.02f);
-                }
-            }
-            else {  // reapply passive skills
-                if (sk.getLevel() > 0)
-                    sk.use(this, null);
-            }
-        }
-
-        // check buffs
-        updateEffects();
-        updateStatusEffects();
-
-        calculateStats();
     }
 
     /**
@@ -457,6 +778,8 @@ public abstract class GameCharacter implements java.io.Serializable, Drawable, B
             tmpSkills[j++] = ObjectManager.getSkillByID(charClass.skillIDs[i]);
 
         this.skills = tmpSkills;
+        onLevelChanged();
+        onSkillsChanged();
     }
 
     /**
@@ -493,7 +816,7 @@ public abstract class GameCharacter implements java.io.Serializable, Drawable, B
         float damageAfterReduction = (100 - target.getTotalStat(ARM)) * baseDamage / 100.0f - target.getTotalStat(DEF);
 
         int totalDamage = Math.max(Math.round(elementalDamageModifier * damageAfterReduction), 0);
-        target.hp -= totalDamage;
+        target.setHP(target.hp - totalDamage);
 
         // set the negative bit on to indicate crit
         if (crit)
@@ -534,7 +857,7 @@ public abstract class GameCharacter implements java.io.Serializable, Drawable, B
         float damageAfterReduction = (100 - target.getTotalStat(MARM)) * baseDamage / 100.0f - target.getTotalStat(MDEF);
 
         int totalDamage = Math.max(Math.round(elementalDamageModifier * damageAfterReduction), 0);
-        target.hp -= totalDamage;
+        target.setHP(target.hp - totalDamage);
 
         return totalDamage;
     }
@@ -561,7 +884,7 @@ public abstract class GameCharacter implements java.io.Serializable, Drawable, B
      * @param dmg
      */
     public void dealPureDamage(GameCharacter target, float dmg) {
-        target.hp -= dmg;
+        target.setHP((int)(target.hp - dmg));
     }
 
     /**
@@ -580,6 +903,8 @@ public abstract class GameCharacter implements java.io.Serializable, Drawable, B
             if (this.sp >= sk.getManaCost()) {
                 this.sp -= sk.getManaCost();
                 sk.use(this, target);
+                if (sk.getCurrentCooldown() > 0)
+                    startTimer(TimerWheel.toTicks(sk.getCurrentCooldown()), sk::endCooldown);
                 // successful use of skill
                 return sk.getUseResult();
             }
@@ -596,15 +921,15 @@ public abstract class GameCharacter implements java.io.Serializable, Drawable, B
 
     public String attributesToPseudoHTML() {
         return HTML_START
-                + "STR: " + B + BLUE + attributes[STR] + FONT_END + "+" + GREEN + bAttributes[STR] + BFBR
-                + "VIT: " + B + BLUE + attributes[VIT] + FONT_END + "+" + GREEN + bAttributes[VIT] + BFBR
-                + "DEX: " + B + BLUE + attributes[DEX] + FONT_END + "+" + GREEN + bAttributes[DEX] + BFBR
-                + "AGI: " + B + BLUE + attributes[AGI] + FONT_END + "+" + GREEN + bAttributes[AGI] + BFBR
-                + "INT: " + B + BLUE + attributes[INT] + FONT_END + "+" + GREEN + bAttributes[INT] + BFBR
-                + "WIS: " + B + BLUE + attributes[WIS] + FONT_END + "+" + GREEN + bAttributes[WIS] + BFBR
-                + "WIL: " + B + BLUE + attributes[WIL] + FONT_END + "+" + GREEN + bAttributes[WIL] + BFBR
-                + "PER: " + B + BLUE + attributes[PER] + FONT_END + "+" + GREEN + bAttributes[PER] + BFBR
-                + "LUC: " + B + BLUE + attributes[LUC] + FONT_END + "+" + GREEN + bAttributes[LUC] + FONT_END;
+                + "STR: " + B + BLUE + attributes[STR] + FONT_END + "+" + GREEN + getBonusAttribute(STR) + BFBR
+                + "VIT: " + B + BLUE + attributes[VIT] + FONT_END + "+" + GREEN + getBonusAttribute(VIT) + BFBR
+                + "DEX: " + B + BLUE + attributes[DEX] + FONT_END + "+" + GREEN + getBonusAttribute(DEX) + BFBR
+                + "AGI: " + B + BLUE + attributes[AGI] + FONT_END + "+" + GREEN + getBonusAttribute(AGI) + BFBR
+                + "INT: " + B + BLUE + attributes[INT] + FONT_END + "+" + GREEN + getBonusAttribute(INT) + BFBR
+                + "WIS: " + B + BLUE + attributes[WIS] + FONT_END + "+" + GREEN + getBonusAttribute(WIS) + BFBR
+                + "WIL: " + B + BLUE + attributes[WIL] + FONT_END + "+" + GREEN + getBonusAttribute(WIL) + BFBR
+                + "PER: " + B + BLUE + attributes[PER] + FONT_END + "+" + GREEN + getBonusAttribute(PER) + BFBR
+                + "LUC: " + B + BLUE + attributes[LUC] + FONT_END + "+" + GREEN + getBonusAttribute(LUC) + FONT_END;
     }
 
     @Override
@@ -671,17 +996,133 @@ public abstract class GameCharacter implements java.io.Serializable, Drawable, B
     }
 
     public void setX(int x) {
+        int oldX = this.x;
         this.x = x;
+        onPositionChanged(oldX, y);
     }
 
     public void setY(int y) {
+        int oldY = this.y;
         this.y = y;
+        onPositionChanged(x, oldY);
+    }
+
+    /**
+     * Spatial index of the map this character is currently on,
+     * null if character isn't on a map (e.g. client side copies)
+     */
+    private transient SpatialIndex<GameCharacter> spatialIndex;
+
+    /**
+     * Timer wheel of the map this character is currently on, null if
+     * character isn't on a map. Timers of a character that isn't on a map
+     * are paused and resume on the next map
+     */
+    private transient TimerWheel timerWheel;
+
+    /**
+     * Timers started by this character that haven't fired yet
+     */
+    private transient ArrayList<CharacterTimer> timers;
+    private transient CharacterTimer regenTimer;
+
+    private final class CharacterTimer extends TimerWheel.Timer {
+        private final Runnable action;
+
+        CharacterTimer(int ticks, Runnable action) {
+            super(ticks);
+            this.action = action;
+        }
+
+        @Override
+        protected void onFire() {
+            timers.remove(this);
+            action.run();
+        }
+    }
+
+    /**
+     *
+     * @param ticks
+     * @param action
+     *              called when timer fires
+     * @return
+     *          timer, scheduled if character is on a map
+     */
+    private CharacterTimer startTimer(int ticks, Runnable action) {
+        return startTimer(new CharacterTimer(ticks, action));
+    }
+
+    private CharacterTimer startTimer(CharacterTimer timer) {
+        if (timers == null)
+            timers = new ArrayList<CharacterTimer>();
+
+        timers.add(timer);
+        if (timerWheel != null)
+            timerWheel.schedule(timer);
+
+        return timer;
+    }
+
+    private void stopTimer(TimerWheel.Timer timer) {
+        if (timer != null && timers != null && timers.remove(timer) && timerWheel != null)
+            timerWheel.cancel(timer);
+    }
+
+    /**
+     * Puts this character into given index, so that any change
+     * of position is reflected in the index, and schedules
+     * its timers on given wheel
+     *
+     * @param index
+     *              spatial index of the map
+     * @param wheel
+     *              timer wheel of the map
+     */
+    public void attachTo(SpatialIndex<GameCharacter> index, TimerWheel wheel) {
+        detach();
+        spatialIndex = index;
+        index.add(this);
+
+        timerWheel = wheel;
+        if (timers != null)
+            for (CharacterTimer timer : timers)
+                wheel.schedule(timer);
+
+        if (regenTimer == null)
+            regenTimer = startTimer(REGEN_TICKS, this::regen);
+    }
+
+    /**
+     * Removes this character from spatial index and timer wheel it is attached to
+     */
+    public void detach() {
+        if (spatialIndex != null) {
+            spatialIndex.remove(this);
+            spatialIndex = null;
+        }
+
+        if (timerWheel != null) {
+            if (timers != null)
+                for (CharacterTimer timer : timers)
+                    timerWheel.cancel(timer);
+            timerWheel = null;
+        }
+    }
+
+    private void onPositionChanged(int oldX, int oldY) {
+        if (spatialIndex != null)
+            spatialIndex.update(this, oldX, oldY);
     }
 
     public void move() {
+        int oldX = x, oldY = y;
+
         x += xSpeed;
         y += ySpeed;
 
+        onPositionChanged(oldX, oldY);
+
         if (xSpeed > 0)
             direction = Dir.RIGHT;
         if (xSpeed < 0)
@@ -744,42 +1185,55 @@ public abstract class GameCharacter implements java.io.Serializable, Drawable, B
 
         place = (byte)(data[8] >> 2 & 0b11);
         direction = Dir.values()[(byte)(data[8] & 0b11)];
-
-        Platform.runLater(() -> {
-            sprite.setTranslateX(x);
-            sprite.setTranslateY(y);
-
-            xProperty.set(x);
-            yProperty.set(y);
-
-            Rectangle2D rect = new Rectangle2D(place*40, getRow()*40, 40, 40);
-
-            sprite.imageView.setViewport(rect);
-            sprite.name.setText(name);
-        });
     }
 
     @Override
-    public byte[] toByteArray() {
-        byte[] data = new byte[BYTE_STREAM_SIZE];
-
-        int xy = x << 16 | y;
-
-        ByteStream.intToByteArray(data, 0, xy);
-        ByteStream.intToByteArray(data, 4, spriteID);
+    public int getByteStreamSize() {
+        return BYTE_STREAM_SIZE;
+    }
 
-        data[8] = (byte)((place << 2 | direction.ordinal()) & 0xFF);
+    @Override
+    public void writeTo(ByteBuffer buf) {
+        buf.putInt(getPackedXY());
+        buf.putInt(spriteID);
+        buf.put(getPackedPlaceDir());
+        buf.putInt(getPackedIDs());
+    }
 
-        int idValue = id != null ? Integer.parseInt(id) : runtimeID;
+    /**
+     *
+     * @return
+     *          x and y packed into 1 int as sent over network
+     */
+    public int getPackedXY() {
+        return x << 16 | y;
+    }
 
-        int ids = idValue << 16 | runtimeID;
+    /**
+     *
+     * @return
+     *          sprite place and direction packed into 1 byte as sent over network
+     */
+    public byte getPackedPlaceDir() {
+        return (byte)((place << 2 | direction.ordinal()) & 0xFF);
+    }
 
-        ByteStream.intToByteArray(data, 9, ids);
+    /**
+     * Template ID (runtime ID for players) and runtime ID packed
+     * into 1 int, which identifies this character on the client
+     *
+     * @return
+     *          packed IDs as sent over network
+     */
+    public int getPackedIDs() {
+        int idValue = templateID >= 0 ? templateID : runtimeID;
 
-        return data;
+        return idValue << 16 | runtimeID;
     }
 
-    public transient Sprite sprite = new Sprite("player1.png");
+    public int getSpriteID() {
+        return spriteID;
+    }
 
     // test methods
     public void setXY(int xy) {
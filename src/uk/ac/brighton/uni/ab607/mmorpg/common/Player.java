@@ -1,24 +1,15 @@
 package uk.ac.brighton.uni.ab607.mmorpg.common;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Optional;
-
-import javafx.application.Platform;
-import javafx.beans.property.ObjectProperty;
-import javafx.beans.property.SimpleBooleanProperty;
-import javafx.beans.property.SimpleDoubleProperty;
-import javafx.beans.property.SimpleIntegerProperty;
-import javafx.beans.property.SimpleObjectProperty;
-import javafx.beans.property.SimpleStringProperty;
-import javafx.geometry.Rectangle2D;
-import javafx.scene.image.Image;
 
 import com.almasb.common.graphics.Color;
 import com.almasb.common.graphics.GraphicsContext;
 import com.almasb.common.parsing.PseudoHTML;
 import com.almasb.common.util.Out;
 
-import uk.ac.brighton.uni.ab607.mmorpg.client.fx.UIConst;
 import uk.ac.brighton.uni.ab607.mmorpg.common.item.EquippableItem.Element;
 import uk.ac.brighton.uni.ab607.mmorpg.common.item.GameItem;
 import uk.ac.brighton.uni.ab607.mmorpg.common.item.EquippableItem;
@@ -100,42 +91,6 @@ public class Player extends GameCharacter implements PseudoHTML {
     public String ip;
     public int port;
 
-    public transient SimpleIntegerProperty[] attributeProperties = new SimpleIntegerProperty[9];
-    public transient SimpleIntegerProperty[] bonusAttributeProperties = new SimpleIntegerProperty[9];
-    public transient SimpleIntegerProperty[] statProperties = new SimpleIntegerProperty[16];
-    public transient SimpleIntegerProperty[] bonusStatProperties = new SimpleIntegerProperty[16];
-
-    public transient SimpleIntegerProperty attributePointsProperty = new SimpleIntegerProperty();
-    public transient SimpleIntegerProperty skillPointsProperty = new SimpleIntegerProperty();
-
-    public transient SimpleIntegerProperty hpProperty = new SimpleIntegerProperty();
-    public transient SimpleIntegerProperty spProperty = new SimpleIntegerProperty();
-    public transient SimpleIntegerProperty baseLevelProperty = new SimpleIntegerProperty();
-    public transient SimpleIntegerProperty jobLevelProperty = new SimpleIntegerProperty();
-    public transient SimpleIntegerProperty statLevelProperty = new SimpleIntegerProperty();
-    public transient SimpleDoubleProperty baseXPProperty = new SimpleDoubleProperty();
-    public transient SimpleDoubleProperty jobXPProperty = new SimpleDoubleProperty();
-    public transient SimpleDoubleProperty statXPProperty = new SimpleDoubleProperty();
-
-    public transient SimpleStringProperty classProperty = new SimpleStringProperty("NOVICE");
-    public transient SimpleBooleanProperty classChangeProperty = new SimpleBooleanProperty(false);
-
-    public transient SimpleIntegerProperty moneyProperty = new SimpleIntegerProperty(-1);
-
-    /**
-     * Properties for displaying skills
-     */
-    public transient SimpleIntegerProperty[] skillLevelProperties = new SimpleIntegerProperty[9];
-    public transient SimpleStringProperty[] skillDescProperties = new SimpleStringProperty[9];
-    public transient ArrayList<ObjectProperty<Image>> skillImageProperties = new ArrayList<ObjectProperty<Image>>();
-    public transient SimpleBooleanProperty[] skillReadyProperties = new SimpleBooleanProperty[9];
-
-    public transient SimpleStringProperty[] itemDescProperties = new SimpleStringProperty[Inventory.MAX_SIZE];
-    public transient ArrayList<ObjectProperty<Rectangle2D>> itemSpriteProperties = new ArrayList<ObjectProperty<Rectangle2D>>();
-
-    public transient SimpleStringProperty[] equipItemDescProperties = new SimpleStringProperty[5];
-    public transient ArrayList<ObjectProperty<Rectangle2D>> equipItemSpriteProperties = new ArrayList<ObjectProperty<Rectangle2D>>();
-
     public Player() {
         this("", GameCharacterClass.NOVICE, 0, 0, "", 0);
     }
@@ -143,33 +98,6 @@ public class Player extends GameCharacter implements PseudoHTML {
     public Player(String name, GameCharacterClass charClass, int x, int y, String ip, int port) {
         super(name, "Player", charClass);
 
-        // init everything to 1 to avoid division by 0
-        for (int i = STR; i <= LUC; i++) {
-            attributeProperties[i] = new SimpleIntegerProperty(1);
-            bonusAttributeProperties[i] = new SimpleIntegerProperty(1);
-
-            // just so happens STR = 0 and LUC = 8
-            skillLevelProperties[i] = new SimpleIntegerProperty(0);
-            skillDescProperties[i] = new SimpleStringProperty("");
-            ObjectProperty<Image> img = new SimpleObjectProperty<Image>(UIConst.Images.IC_SKILL_DUMMY);
-            skillImageProperties.add(img);
-            skillReadyProperties[i] = new SimpleBooleanProperty(true);
-        }
-        for (int i = MAX_HP; i <= SP_REGEN; i++) {
-            statProperties[i] = new SimpleIntegerProperty(1);
-            bonusStatProperties[i] = new SimpleIntegerProperty(1);
-        }
-
-        for (int i = 0; i < itemDescProperties.length; i++) {
-            itemDescProperties[i] = new SimpleStringProperty("");
-            itemSpriteProperties.add(new SimpleObjectProperty<Rectangle2D>(new Rectangle2D(0, 0, 34, 34)));
-        }
-        for (int i = 0; i < equipItemDescProperties.length; i++) {
-            equipItemDescProperties[i] = new SimpleStringProperty("");
-            equipItemSpriteProperties.add(new SimpleObjectProperty<Rectangle2D>(new Rectangle2D(0, 0, 34, 34)));
-        }
-
-
         this.x = x;
         this.y = y;
         this.ip = ip;
@@ -191,64 +119,10 @@ public class Player extends GameCharacter implements PseudoHTML {
 
         this.hp = player.hp;
         this.sp = player.sp;
+        onLevelChanged();
+        onSkillsChanged();
 
         this.setRuntimeID(player.getRuntimeID());
-
-        Platform.runLater(() -> {
-            for (int i = STR; i <= LUC; i++) {
-                attributeProperties[i].set(player.getBaseAttribute(i));
-                bonusAttributeProperties[i].set(player.getBonusAttribute(i));
-            }
-            for (int i = MAX_HP; i <= SP_REGEN; i++) {
-                statProperties[i].set((int)(player.getBaseStat(Stat.values()[i])));
-                bonusStatProperties[i].set((int)(player.getBonusStat(Stat.values()[i])));
-            }
-            for (int i = 0; i < player.skills.length; i++) {
-                Skill skill = player.skills[i];
-
-                skillLevelProperties[i].set(skill.getLevel());
-                skillImageProperties.get(i).set(UIConst.Images.getSkillImageByID(skill.id));
-                skillDescProperties[i].set(skill.name + "\n" + "SP: " + skill.getManaCost() + "\n" + skill.description);
-                skillReadyProperties[i].set(skill.getCurrentCooldown() == 0);
-            }
-
-            for (int i = 0; i < itemDescProperties.length; i++) {
-                Optional<GameItem> item = player.inventory.getItem(i);
-                if (item.isPresent()) {
-                    itemDescProperties[i].set(item.get().description);
-                    itemSpriteProperties.get(i).set(new Rectangle2D(item.get().ssX*34, item.get().ssY*34, 34, 34));
-                }
-                else {
-                    itemDescProperties[i].set("");
-                    itemSpriteProperties.get(i).set(new Rectangle2D(0, 0, 34, 34));
-                }
-            }
-
-            for (int i = 0; i < equipItemDescProperties.length; i++) {
-                EquippableItem item = player.equip[i];
-                equipItemDescProperties[i].set(item.description);
-                equipItemSpriteProperties.get(i).set(new Rectangle2D(item.ssX*34, item.ssY*34, 34, 34));
-            }
-
-            hpProperty.set(player.getHP());
-            spProperty.set(player.getSP());
-
-            attributePointsProperty.set(player.attributePoints);
-            skillPointsProperty.set(player.skillPoints);
-
-            baseLevelProperty.set(player.baseLevel);
-            statLevelProperty.set(player.statLevel);
-            jobLevelProperty.set(player.jobLevel);
-
-            baseXPProperty.set(player.xp.base*1.0f / EXP_NEEDED_BASE[player.baseLevel-1]);
-            jobXPProperty.set(player.xp.job*1.0f / EXP_NEEDED_JOB[player.jobLevel-1]);
-            statXPProperty.set(player.xp.stat*1.0f / EXP_NEEDED_STAT[player.statLevel-1]);
-
-
-            moneyProperty.set(player.money);
-            classChangeProperty.set(GameCharacterClassChanger.canChangeClass(player));
-            classProperty.set(GameCharacterClass.values()[player.charClass.ordinal()].toString());
-        });
     }
 
     /**
@@ -280,8 +154,8 @@ public class Player extends GameCharacter implements PseudoHTML {
 
     public void baseLevelUp() {
         baseLevel++;
-        calculateStats();
-        this.hp = (int)this.getTotalStat(Stat.MAX_HP);
+        onLevelChanged();
+        setHP((int)this.getTotalStat(Stat.MAX_HP));
         this.sp = (int)this.getTotalStat(Stat.MAX_SP);
     }
 
@@ -307,6 +181,7 @@ public class Player extends GameCharacter implements PseudoHTML {
         if (attributes[attr] < MAX_ATTRIBUTE) {
             attributes[attr]++;
             attributePoints--;
+            onAttributeChanged(attr);
         }
     }
 
@@ -314,8 +189,10 @@ public class Player extends GameCharacter implements PseudoHTML {
         if (skillCode >= skills.length)
             return;
 
-        if (skills[skillCode].levelUp())
+        if (skills[skillCode].levelUp()) {
             skillPoints--;
+            onSkillsChanged();
+        }
     }
 
     @Override
@@ -324,7 +201,7 @@ public class Player extends GameCharacter implements PseudoHTML {
         Weapon w2 = (Weapon) this.getEquip(LEFT_HAND);
 
         return atkTick >= 50 / (1 + getTotalStat(GameCharacter.ASPD)
-                *w1.type.aspdFactor*w2.type.aspdFactor/100.0f);
+                *w1.getTemplate().type.aspdFactor*w2.getTemplate().type.aspdFactor/100.0f);
     }
 
     public int getMoney() {
@@ -338,7 +215,7 @@ public class Player extends GameCharacter implements PseudoHTML {
     public void equipWeapon(Weapon w) {
         inventory.removeItem(w);    // remove item from inventory to clear space
 
-        if (w.type.ordinal() >= WeaponType.TWO_H_SWORD.ordinal()) {
+        if (w.getTemplate().type.ordinal() >= WeaponType.TWO_H_SWORD.ordinal()) {
             if (Inventory.MAX_SIZE - inventory.getSize() == 1 && !isFree(RIGHT_HAND) && !isFree(LEFT_HAND)) {
                 // ex case, when inventory is full and player tries to equip 2H weapon
                 // but holds two 1H weapons
@@ -350,7 +227,7 @@ public class Player extends GameCharacter implements PseudoHTML {
             equip[RIGHT_HAND] = w;
             equip[LEFT_HAND] = w;
         }
-        else if (w.type == WeaponType.SHIELD || !isFree(RIGHT_HAND)) {
+        else if (w.getTemplate().type == WeaponType.SHIELD || !isFree(RIGHT_HAND)) {
             unEquipItem(LEFT_HAND);
             equip[LEFT_HAND] = w;
         }
@@ -364,8 +241,8 @@ public class Player extends GameCharacter implements PseudoHTML {
 
     public void equipArmor(Armor a) {
         inventory.removeItem(a);    // remove it first, so we can unequip our armor
-        unEquipItem(a.type.ordinal());  // just because place number made to match ArmorType enum
-        equip[a.type.ordinal()] = a;
+        unEquipItem(a.getTemplate().type.ordinal());  // just because place number made to match ArmorType enum
+        equip[a.getTemplate().type.ordinal()] = a;
         a.onEquip(this);
     }
 
@@ -375,7 +252,7 @@ public class Player extends GameCharacter implements PseudoHTML {
 
         if (equip[itemPlace] instanceof Weapon) {
             Weapon w = (Weapon) equip[itemPlace];
-            if (w.type.ordinal() >= WeaponType.TWO_H_SWORD.ordinal()) { // if 2 handed
+            if (w.getTemplate().type.ordinal() >= WeaponType.TWO_H_SWORD.ordinal()) { // if 2 handed
                 if (itemPlace == RIGHT_HAND)
                     equip[LEFT_HAND]  = ObjectManager.getWeaponByID(ID.Weapon.HANDS);
                 else
@@ -389,8 +266,9 @@ public class Player extends GameCharacter implements PseudoHTML {
     }
 
     public boolean isFree(int itemPlace) {
-        return equip[itemPlace].id.equals(ID.Weapon.HANDS) || equip[itemPlace].id.equals(ID.Armor.HAT)
-                || equip[itemPlace].id.equals(ID.Armor.CLOTHES) || equip[itemPlace].id.equals(ID.Armor.SHOES);
+        String id = equip[itemPlace].getTemplate().id;
+        return id.equals(ID.Weapon.HANDS) || id.equals(ID.Armor.HAT)
+                || id.equals(ID.Armor.CLOTHES) || id.equals(ID.Armor.SHOES);
     }
 
     public EquippableItem getEquip(int place) {
@@ -412,7 +290,7 @@ public class Player extends GameCharacter implements PseudoHTML {
     }
 
     public void onDeath() {
-        hp = (int)(0.25f*getTotalStat(MAX_HP));
+        setHP((int)(0.25f*getTotalStat(MAX_HP)));
         sp = (int)(0.25f*getTotalStat(MAX_SP));
     }
 
@@ -420,13 +298,175 @@ public class Player extends GameCharacter implements PseudoHTML {
         return jobLevel;
     }
 
+    public int getStatLevel() {
+        return statLevel;
+    }
+
+    public int getAttributePoints() {
+        return attributePoints;
+    }
+
+    public int getSkillPoints() {
+        return skillPoints;
+    }
+
+    /**
+     *
+     * @return
+     *          base experience towards next base level, 0..1
+     */
+    public float getBaseXPProgress() {
+        return xp.base*1.0f / EXP_NEEDED_BASE[baseLevel-1];
+    }
+
+    public float getJobXPProgress() {
+        return xp.job*1.0f / EXP_NEEDED_JOB[jobLevel-1];
+    }
+
+    public float getStatXPProgress() {
+        return xp.stat*1.0f / EXP_NEEDED_STAT[statLevel-1];
+    }
+
+    /**
+     * Writes persistent state, items and skills are written as IDs with
+     * refine/skill level, everything else is rebuilt on load.
+     * Effects, statuses and cooldowns are not persistent
+     *
+     * @param out
+     * @throws IOException
+     */
+    public void writeState(DataOutput out) throws IOException {
+        out.writeUTF(charClass.name());
+        out.writeInt(x);
+        out.writeInt(y);
+
+        out.writeInt(baseLevel);
+        out.writeInt(statLevel);
+        out.writeInt(jobLevel);
+        out.writeInt(xp.base);
+        out.writeInt(xp.stat);
+        out.writeInt(xp.job);
+        out.writeByte(attributePoints);
+        out.writeByte(skillPoints);
+        out.writeInt(money);
+        out.writeInt(hp);
+        out.writeInt(sp);
+        out.write(attributes);
+
+        out.writeByte(skills.length);
+        for (Skill skill : skills) {
+            out.writeUTF(skill.id);
+            out.writeByte(skill.getLevel());
+        }
+
+        ArrayList<GameItem> items = inventory.getItems();
+        out.writeByte(items.size());
+        for (GameItem item : items)
+            writeItem(out, item);
+
+        for (EquippableItem item : equip)
+            writeItem(out, item);
+    }
+
+    private static void writeItem(DataOutput out, GameItem item) throws IOException {
+        // empty ID is read back as no item
+        out.writeUTF(item != null ? item.getTemplate().id : "");
+        out.writeByte(item instanceof EquippableItem ? ((EquippableItem) item).getRefineLevel() : 0);
+    }
+
+    /**
+     * Reads state written by {@link #writeState(DataOutput)}
+     *
+     * @param name
+     *              player name
+     * @param in
+     * @param version
+     *              format version the state was written with
+     * @return
+     *          new player
+     * @throws IOException
+     */
+    public static Player readState(String name, DataInput in, int version) throws IOException {
+        GameCharacterClass charClass = GameCharacterClass.valueOf(in.readUTF());
+        int x = in.readInt();
+        int y = in.readInt();
+
+        Player p = new Player(name, charClass, x, y, "", 0);
+
+        p.baseLevel = in.readInt();
+        p.statLevel = in.readInt();
+        p.jobLevel = in.readInt();
+        p.xp.base = in.readInt();
+        p.xp.stat = in.readInt();
+        p.xp.job = in.readInt();
+        p.attributePoints = in.readByte();
+        p.skillPoints = in.readByte();
+        p.money = in.readInt();
+        int hp = in.readInt();
+        int sp = in.readInt();
+        in.readFully(p.attributes);
+
+        ArrayList<Skill> skills = new ArrayList<Skill>();
+        int numSkills = in.readUnsignedByte();
+        for (int i = 0; i < numSkills; i++) {
+            Skill skill = ObjectManager.getSkillByID(in.readUTF());
+            int level = in.readByte();
+            if (skill != null) {
+                skill.setLevel(level);
+                skills.add(skill);
+            }
+        }
+        p.skills = skills.toArray(new Skill[0]);
+
+        int numItems = in.readUnsignedByte();
+        for (int i = 0; i < numItems; i++) {
+            GameItem item = readItem(in);
+            if (item != null)
+                p.inventory.addItem(item);
+        }
+
+        for (int i = HELM; i <= LEFT_HAND; i++) {
+            GameItem item = readItem(in);
+            if (!(item instanceof EquippableItem))
+                continue;
+
+            // 2H weapon takes both hands as one item
+            if (i == LEFT_HAND && item instanceof Weapon
+                    && ((Weapon) item).getTemplate().type.ordinal() >= WeaponType.TWO_H_SWORD.ordinal()
+                    && p.equip[RIGHT_HAND].getTemplateID() == item.getTemplateID()) {
+                p.equip[LEFT_HAND] = p.equip[RIGHT_HAND];
+                continue;
+            }
+
+            p.equip[i] = (EquippableItem) item;
+            if (!p.isFree(i))
+                p.equip[i].onEquip(p);
+        }
+
+        p.calculateStats();
+        p.setHP(hp);
+        p.setSP(sp);
+
+        return p;
+    }
+
+    private static GameItem readItem(DataInput in) throws IOException {
+        String id = in.readUTF();
+        GameItem item = id.isEmpty() ? null : ObjectManager.getItemByID(id);
+        int refineLevel = in.readByte();
+        if (item instanceof EquippableItem)
+            ((EquippableItem) item).setRefineLevel(refineLevel);
+
+        return item;
+    }
+
     @Override
     public String toPseudoHTML() {
         return "pseudo";
     }
 
     public String statsToPseudoHTML() {
-        int aspd = (int)(getTotalStat(ASPD) * ((Weapon)getEquip(RIGHT_HAND)).type.aspdFactor * ((Weapon)getEquip(LEFT_HAND)).type.aspdFactor);
+        int aspd = (int)(getTotalStat(ASPD) * ((Weapon)getEquip(RIGHT_HAND)).getTemplate().type.aspdFactor * ((Weapon)getEquip(LEFT_HAND)).getTemplate().type.aspdFactor);
 
         return HTML_START
                 + B + this.name + B_END + BR
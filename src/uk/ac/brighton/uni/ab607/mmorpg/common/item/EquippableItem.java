@@ -1,6 +1,8 @@
 package uk.ac.brighton.uni.ab607.mmorpg.common.item;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import com.almasb.common.util.Out;
 
@@ -50,35 +52,35 @@ public abstract class EquippableItem extends GameItem {
 
     protected static final int MAX_REFINE_LEVEL = 5;
 
-    public final String author;
-    public final ItemLevel level;
-
     protected Essence essence;
-    protected Element element;
-    protected int runesMax;
     protected int refineLevel = 0;
-    protected Rune[] defaultRunes;
-    protected ArrayList<Rune> runes = new ArrayList<Rune>();
-
-    public EquippableItem(String id, String name, String description, int ssX, int ssY, String author, ItemLevel level, Element element, int runesMax, Rune... defaultRunes) {
-        super(id, name, description, ssX, ssY);
-        this.author = author;
-        this.level = level;
-        this.element = element;
-        this.runesMax = runesMax;
-        this.defaultRunes = defaultRunes;
-    }
 
-    public EquippableItem(String id, String name, String description, int ssX, int ssY) {
-        this(id, name, description, ssX, ssY, "Almas", ItemLevel.NORMAL, Element.NEUTRAL, 1);
+    /**
+     * Runes added to this item, null until the first one
+     */
+    protected ArrayList<Rune> runes;
+
+    public EquippableItem(ItemTemplate template) {
+        super(template);
     }
 
     public Element getElement() {
-        return element;
+        return template.element;
+    }
+
+    /**
+     *
+     * @return
+     *          runes added to this item, without the default ones
+     */
+    public List<Rune> getRunes() {
+        return runes != null ? runes : Collections.<Rune>emptyList();
     }
 
     public boolean addRune(Rune rune) {
-        if (runes.size() < runesMax) {
+        if (getRunes().size() < template.runesMax) {
+            if (runes == null)
+                runes = new ArrayList<Rune>(template.runesMax);
             return runes.add(rune);
         }
         Out.d("addRune", "Can't add any more runes to this item");
@@ -95,30 +97,43 @@ public abstract class EquippableItem extends GameItem {
     }
 
     public void onEquip(Player ch) {
-        for (Rune r : defaultRunes)
+        for (Rune r : template.defaultRunes)
             ch.addBonusAttribute(r.attribute, r.bonus);
-        for (Rune r : runes)
+        for (Rune r : getRunes())
             ch.addBonusAttribute(r.attribute, r.bonus);
         if (essence != null)
             ch.addBonusStat(essence.stat, essence.bonus);
     }
 
     public void onUnEquip(Player ch) {
-        for (Rune r : runes)
+        for (Rune r : getRunes())
             ch.addBonusAttribute(r.attribute, -r.bonus);
-        for (Rune r : defaultRunes)
+        for (Rune r : template.defaultRunes)
             ch.addBonusAttribute(r.attribute, -r.bonus);
         if (essence != null)
             ch.addBonusStat(essence.stat, -essence.bonus);
     }
 
+    public int getRefineLevel() {
+        return refineLevel;
+    }
+
+    /**
+     * Restores refine level, e.g. of an item loaded from DB
+     *
+     * @param refineLevel
+     */
+    public void setRefineLevel(int refineLevel) {
+        this.refineLevel = Math.max(0, Math.min(refineLevel, MAX_REFINE_LEVEL));
+    }
+
     public void refine() {
         if (refineLevel >= MAX_REFINE_LEVEL) {
             Out.d("refine", "Can't refine this item any more");
             return;
         }
 
-        if (GameMath.checkChance(100 - refineLevel * level.refineChanceReduction))
+        if (GameMath.checkChance(100 - refineLevel * template.level.refineChanceReduction))
             refineLevel++;
         else if (refineLevel > 0)
             refineLevel--;
@@ -1,5 +1,11 @@
 package uk.ac.brighton.uni.ab607.mmorpg.common.item;
 
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.ObjectManager;
+
 public abstract class GameItem implements java.io.Serializable {
 
     /**
@@ -7,25 +13,29 @@ public abstract class GameItem implements java.io.Serializable {
      */
     private static final long serialVersionUID = 924533834152552568L;
 
-    public String id, name, description;
+    /**
+     * Shared data of this item. Only the template ID is serialized,
+     * the other side looks the template up in its own ObjectManager
+     */
+    protected transient ItemTemplate template;
+    protected int templateID;
 
-    public final int ssX, ssY;
+    public GameItem(ItemTemplate template) {
+        this.template = template;
+        this.templateID = template.getTemplateID();
+    }
 
-    public GameItem(String id, String name, String description) {
-        this(id, name, description, 6, 1);
+    public ItemTemplate getTemplate() {
+        return template;
     }
 
-    public GameItem(String id, String name, String description, int x, int y) {
-        this.id = id;
-        this.name = name;
-        this.description = description;
-        this.ssX = x;
-        this.ssY = y;
+    public int getTemplateID() {
+        return templateID;
     }
 
     @Override
     public String toString() {
-        return id + ":" + name;
+        return template.id + ":" + template.name;
     }
 
     // make abstract
@@ -36,4 +46,18 @@ public abstract class GameItem implements java.io.Serializable {
     public String toPseudoHTMLShort() {
         return "PSEUDO";
     }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+
+        // items saved before templates only have their String ID
+        if (fields.defaulted("templateID"))
+            templateID = ObjectManager.getTemplateID((String) fields.get("id", null));
+        else
+            templateID = fields.get("templateID", -1);
+
+        template = ObjectManager.getItemTemplate(templateID);
+        if (template == null)
+            throw new InvalidObjectException("Unknown item template: " + templateID);
+    }
 }
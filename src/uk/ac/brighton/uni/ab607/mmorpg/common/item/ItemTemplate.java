@@ -0,0 +1,54 @@
+package uk.ac.brighton.uni.ab607.mmorpg.common.item;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import uk.ac.brighton.uni.ab607.mmorpg.common.Rune;
+import uk.ac.brighton.uni.ab607.mmorpg.common.item.EquippableItem.Element;
+import uk.ac.brighton.uni.ab607.mmorpg.common.item.EquippableItem.ItemLevel;
+
+/**
+ * Data shared by all items of one template, created once
+ * in ObjectManager.load(). Items themselves only keep what
+ * can differ between copies, like refine level and runes
+ */
+public class ItemTemplate {
+
+    public final String id, name, description;
+
+    public final int ssX, ssY;
+
+    public final String author;
+    public final ItemLevel level;
+    public final Element element;
+    public final int runesMax;
+    public final List<Rune> defaultRunes;
+
+    /**
+     * Dense ID assigned by ObjectManager
+     */
+    protected int templateID = -1;
+
+    public ItemTemplate(String id, String name, String description, int ssX, int ssY, String author,
+            ItemLevel level, Element element, int runesMax, Rune... defaultRunes) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.ssX = ssX;
+        this.ssY = ssY;
+        this.author = author;
+        this.level = level;
+        this.element = element;
+        this.runesMax = runesMax;
+        this.defaultRunes = Collections.unmodifiableList(Arrays.asList(defaultRunes));
+    }
+
+    public ItemTemplate(String id, String name, String description, int ssX, int ssY) {
+        this(id, name, description, ssX, ssY, "Almas", ItemLevel.NORMAL, Element.NEUTRAL, 1);
+    }
+
+    public int getTemplateID() {
+        return templateID;
+    }
+}
@@ -9,8 +9,8 @@ public abstract class UsableItem extends GameItem {
      */
     private static final long serialVersionUID = 9082052313919069522L;
 
-    public UsableItem(String id, String name, String description) {
-        super(id, name, description);
+    public UsableItem(ItemTemplate template) {
+        super(template);
     }
 
     public abstract void onUse(GameCharacter target);
@@ -0,0 +1,161 @@
+package uk.ac.brighton.uni.ab607.mmorpg.common.object;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A* search on a map's cells, 4 directions, same as AStarLogic
+ *
+ * Unlike AStarLogic it does not store search state in the shared
+ * AStarNode grid. Costs, parents and the open list live in scratch
+ * arrays owned by the searching thread, which are reused between searches.
+ * The heuristic is computed only for cells the search reaches
+ */
+public class AStarPathfinder implements Pathfinder {
+
+    private static final int STEP_COST = 10;
+
+    /**
+     * Search state, one per thread, grows to the largest map searched
+     */
+    private static class Scratch {
+        int[] g = new int[0], parent = new int[0];
+        /**
+         * g and parent of a cell are valid only if seen[cell] == stamp,
+         * so arrays never need clearing
+         */
+        int[] seen = new int[0], closed = new int[0];
+        int stamp = 0;
+
+        /**
+         * Open list of (f << 32 | cell), a cell may be in it more than once
+         */
+        LongMinHeap open = new LongMinHeap();
+
+        void begin(int numCells) {
+            if (g.length < numCells) {
+                g = new int[numCells];
+                parent = new int[numCells];
+                seen = new int[numCells];
+                closed = new int[numCells];
+                stamp = 0;
+            }
+
+            if (++stamp == 0) {
+                Arrays.fill(seen, 0);
+                Arrays.fill(closed, 0);
+                stamp = 1;
+            }
+
+            open.clear();
+        }
+    }
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private final int width, height;
+    private final boolean[] walkable;
+
+    /**
+     *
+     * @param data
+     *              map rows, '1' is a blocked cell
+     */
+    public AStarPathfinder(List<String> data) {
+        height = data.size();
+        width = data.get(0).length();
+
+        walkable = new boolean[width * height];
+        for (int y = 0; y < height; y++) {
+            String line = data.get(y);
+            for (int x = 0; x < width; x++)
+                walkable[y * width + x] = line.charAt(x) != '1';
+        }
+    }
+
+    @Override
+    public boolean isWalkable(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height && walkable[y * width + x];
+    }
+
+    private int heuristic(int cell, int targetX, int targetY) {
+        return (Math.abs(cell % width - targetX) + Math.abs(cell / width - targetY)) * STEP_COST;
+    }
+
+    /**
+     * Path found is always shortest
+     */
+    @Override
+    public Path findPath(int startX, int startY, int targetX, int targetY) {
+        if (!isWalkable(targetX, targetY) || startX < 0 || startX >= width || startY < 0 || startY >= height)
+            return new Path(new int[0], width, targetX, targetY);
+
+        int start = startY * width + startX, target = targetY * width + targetX;
+
+        if (start == target)
+            return new Path(new int[] { target }, width, targetX, targetY);
+
+        Scratch s = SCRATCH.get();
+        s.begin(width * height);
+
+        s.g[start] = 0;
+        s.parent[start] = -1;
+        s.seen[start] = s.stamp;
+        s.open.push((long) heuristic(start, targetX, targetY) << 32 | start);
+
+        boolean found = false;
+
+        while (!s.open.isEmpty()) {
+            int cell = (int) s.open.pop();
+            if (s.closed[cell] == s.stamp)
+                continue;
+
+            if (cell == target) {
+                found = true;
+                break;
+            }
+
+            s.closed[cell] = s.stamp;
+
+            int x = cell % width, y = cell / width;
+            int g = s.g[cell] + STEP_COST;
+
+            for (int dir = 0; dir < 4; dir++) {
+                int nx = x, ny = y;
+                switch (dir) {
+                    case 0: nx--; break;
+                    case 1: nx++; break;
+                    case 2: ny--; break;
+                    default: ny++; break;
+                }
+
+                if (!isWalkable(nx, ny))
+                    continue;
+
+                int next = ny * width + nx;
+                if (s.closed[next] == s.stamp)
+                    continue;
+
+                if (s.seen[next] != s.stamp || g < s.g[next]) {
+                    s.seen[next] = s.stamp;
+                    s.g[next] = g;
+                    s.parent[next] = cell;
+                    s.open.push((long) (g + heuristic(next, targetX, targetY)) << 32 | next);
+                }
+            }
+        }
+
+        if (!found)
+            return new Path(new int[0], width, targetX, targetY);
+
+        int length = 0;
+        for (int cell = target; cell != start; cell = s.parent[cell])
+            length++;
+
+        int[] cells = new int[length];
+        for (int cell = target, i = length - 1; cell != start; cell = s.parent[cell], i--)
+            cells[i] = cell;
+
+        return new Path(cells, width, targetX, targetY);
+    }
+}
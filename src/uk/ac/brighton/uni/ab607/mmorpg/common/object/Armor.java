@@ -1,9 +1,6 @@
 package uk.ac.brighton.uni.ab607.mmorpg.common.object;
 
-import java.util.Arrays;
-
 import uk.ac.brighton.uni.ab607.mmorpg.common.Player;
-import uk.ac.brighton.uni.ab607.mmorpg.common.Rune;
 import uk.ac.brighton.uni.ab607.mmorpg.common.GameCharacter.Stat;
 import uk.ac.brighton.uni.ab607.mmorpg.common.item.EquippableItem;
 import static com.almasb.common.parsing.PseudoHTML.*;
@@ -19,28 +16,13 @@ public class Armor extends EquippableItem {
         HELM, BODY, SHOES
     }
 
-    public final ArmorType type;
-
-    private int armor, marmor;
-
-    /*package-private*/ Armor(String id, String name, String description, int ssX, int ssY, String author, ItemLevel level, ArmorType type,
-            int armor, int marmor, Element element, int runesMax, Rune... defaultRunes) {
-        super(id, name, description, ssX, ssY, author, level, element, runesMax, defaultRunes);
-        this.type = type;
-        this.armor = armor;
-        this.marmor = marmor;
-    }
-
-    /*package-private*/ Armor(Armor copy) {
-        this(copy.id, copy.name, copy.description, copy.ssX, copy.ssY, copy.author, copy.level, copy.type,
-                copy.armor, copy.marmor, copy.element, copy.runesMax, copy.defaultRunes);
+    /*package-private*/ Armor(ArmorTemplate template) {
+        super(template);
     }
 
-    /*package-private*/ Armor(String id, String name, String description, int ssX, int ssY, ArmorType type, int armor, int marmor) {
-        super(id, name, description, ssX, ssY);
-        this.type = type;
-        this.armor = armor;
-        this.marmor = marmor;
+    @Override
+    public ArmorTemplate getTemplate() {
+        return (ArmorTemplate) template;
     }
 
     @Override
@@ -58,53 +40,58 @@ public class Armor extends EquippableItem {
     }
 
     public int getArmorRating() {
-        return armor + refineLevel * (refineLevel > 2 ? level.bonus + 1 : level.bonus);
+        ArmorTemplate t = getTemplate();
+        return t.armor + refineLevel * (refineLevel > 2 ? t.level.bonus + 1 : t.level.bonus);
     }
 
     public int getMArmorRating() {
-        return marmor + refineLevel * (refineLevel > 2 ? level.bonus + 1 : level.bonus);
+        ArmorTemplate t = getTemplate();
+        return t.marmor + refineLevel * (refineLevel > 2 ? t.level.bonus + 1 : t.level.bonus);
     }
 
     @Override
     public String toString() {
-        return (refineLevel == 0 ? "" : "+" + refineLevel + " ") + name + "(" + runesMax + ")" + "\n"
-                + "ID: " + id + "\n"
-                + description + "\n"
-                + "Author: " + author + "\n"
-                + "Armor: " + armor + " + " + refineLevel * (refineLevel > 2 ? level.bonus + 1 : level.bonus) + "\n"
-                + "MArmor: " + marmor + " + " + refineLevel * (refineLevel > 2 ? level.bonus + 1 : level.bonus) + "\n"
-                + "Element: " + element + "\n"
-                + Arrays.toString(defaultRunes) + "\n"
-                + "Runes installed: " + runes.toString() + "\n"
+        ArmorTemplate t = getTemplate();
+        return (refineLevel == 0 ? "" : "+" + refineLevel + " ") + t.name + "(" + t.runesMax + ")" + "\n"
+                + "ID: " + t.id + "\n"
+                + t.description + "\n"
+                + "Author: " + t.author + "\n"
+                + "Armor: " + t.armor + " + " + refineLevel * (refineLevel > 2 ? t.level.bonus + 1 : t.level.bonus) + "\n"
+                + "MArmor: " + t.marmor + " + " + refineLevel * (refineLevel > 2 ? t.level.bonus + 1 : t.level.bonus) + "\n"
+                + "Element: " + t.element + "\n"
+                + t.defaultRunes + "\n"
+                + "Runes installed: " + getRunes().toString() + "\n"
                 + "Essence installed: " + (essence == null ? "NONE" : essence);
     }
 
     @Override
     public String toPseudoHTML() {
+        ArmorTemplate t = getTemplate();
         return HTML_START
-                + "<center>" + BLUE + (refineLevel == 0 ? "" : "+" + refineLevel + " ") + name + FONT_END + "(" + runesMax + ")" + "</center>"
-                + description + BR
-                + "Author: " + RED + author + FONT_END + BR
-                + "Armor: " + BLUE + armor + " + " + refineLevel * (refineLevel > 2 ? level.bonus + 1 : level.bonus) + "%" + FONT_END + BR
-                + "MArmor: " + BLUE + marmor + " + " + refineLevel * (refineLevel > 2 ? level.bonus + 1 : level.bonus) + "%" + FONT_END + BR
-                + "Element: " + BLUE + element + FONT_END + BR
-                + GREEN + Arrays.toString(defaultRunes) + FONT_END + BR
+                + "<center>" + BLUE + (refineLevel == 0 ? "" : "+" + refineLevel + " ") + t.name + FONT_END + "(" + t.runesMax + ")" + "</center>"
+                + t.description + BR
+                + "Author: " + RED + t.author + FONT_END + BR
+                + "Armor: " + BLUE + t.armor + " + " + refineLevel * (refineLevel > 2 ? t.level.bonus + 1 : t.level.bonus) + "%" + FONT_END + BR
+                + "MArmor: " + BLUE + t.marmor + " + " + refineLevel * (refineLevel > 2 ? t.level.bonus + 1 : t.level.bonus) + "%" + FONT_END + BR
+                + "Element: " + BLUE + t.element + FONT_END + BR
+                + GREEN + t.defaultRunes + FONT_END + BR
                 + "Runes: " + BR
-                + GREEN + runes.toString() + FONT_END + BR
+                + GREEN + getRunes().toString() + FONT_END + BR
                 + "Essence: " + BR
                 + (essence == null ? "NONE" : essence.toStringHTML());
     }
 
     @Override
     public String toPseudoHTMLShort() {
+        ArmorTemplate t = getTemplate();
         return HTML_START
-                + "<center>" + BLUE + (refineLevel == 0 ? "" : "+" + refineLevel + " ") + name + FONT_END + " (" + runesMax + ")" + "</center>"
-                + "Armor: " + BLUE + armor + " + " + refineLevel * (refineLevel > 2 ? level.bonus + 1 : level.bonus) + "%" + FONT_END + BR
-                + "MArmor: " + BLUE + marmor + " + " + refineLevel * (refineLevel > 2 ? level.bonus + 1 : level.bonus) + "%" + FONT_END + BR
-                + "Element: " + BLUE + element + FONT_END + BR
-                + GREEN + Arrays.toString(defaultRunes) + FONT_END + BR
+                + "<center>" + BLUE + (refineLevel == 0 ? "" : "+" + refineLevel + " ") + t.name + FONT_END + " (" + t.runesMax + ")" + "</center>"
+                + "Armor: " + BLUE + t.armor + " + " + refineLevel * (refineLevel > 2 ? t.level.bonus + 1 : t.level.bonus) + "%" + FONT_END + BR
+                + "MArmor: " + BLUE + t.marmor + " + " + refineLevel * (refineLevel > 2 ? t.level.bonus + 1 : t.level.bonus) + "%" + FONT_END + BR
+                + "Element: " + BLUE + t.element + FONT_END + BR
+                + GREEN + t.defaultRunes + FONT_END + BR
                 + "Runes: " + BR
-                + GREEN + runes.toString() + FONT_END + BR
+                + GREEN + getRunes().toString() + FONT_END + BR
                 + "Essence: " + BR
                 + (essence == null ? "NONE" : essence.toStringHTML());
     }
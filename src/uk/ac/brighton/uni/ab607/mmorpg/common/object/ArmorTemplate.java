@@ -0,0 +1,35 @@
+package uk.ac.brighton.uni.ab607.mmorpg.common.object;
+
+import uk.ac.brighton.uni.ab607.mmorpg.common.Rune;
+import uk.ac.brighton.uni.ab607.mmorpg.common.item.EquippableItem.Element;
+import uk.ac.brighton.uni.ab607.mmorpg.common.item.EquippableItem.ItemLevel;
+import uk.ac.brighton.uni.ab607.mmorpg.common.item.ItemTemplate;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.Armor.ArmorType;
+
+/**
+ * Shared data of an armor, see {@link ItemTemplate}
+ */
+public class ArmorTemplate extends ItemTemplate {
+
+    public final ArmorType type;
+    public final int armor, marmor;
+
+    /*package-private*/ ArmorTemplate(String id, String name, String description, int ssX, int ssY, String author, ItemLevel level, ArmorType type,
+            int armor, int marmor, Element element, int runesMax, Rune... defaultRunes) {
+        super(id, name, description, ssX, ssY, author, level, element, runesMax, defaultRunes);
+        this.type = type;
+        this.armor = armor;
+        this.marmor = marmor;
+    }
+
+    /*package-private*/ ArmorTemplate(String id, String name, String description, int ssX, int ssY, ArmorType type, int armor, int marmor) {
+        super(id, name, description, ssX, ssY);
+        this.type = type;
+        this.armor = armor;
+        this.marmor = marmor;
+    }
+
+    /*package-private*/ void setTemplateID(int templateID) {
+        this.templateID = templateID;
+    }
+}
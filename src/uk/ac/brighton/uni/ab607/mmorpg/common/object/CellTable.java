@@ -0,0 +1,76 @@
+package uk.ac.brighton.uni.ab607.mmorpg.common.object;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import uk.ac.brighton.uni.ab607.mmorpg.common.GameMath;
+
+/**
+ * Walkable cells of a map packed as y * width + x, grouped into areas
+ * with weights. Sampling picks an area by weight, then a cell
+ * of that area uniformly, without touching map data
+ */
+/*package-private*/ class CellTable {
+
+    private final int[][] areas;
+
+    /**
+     * Running totals of area weights
+     */
+    private final int[] weights;
+
+    private int size = 0;
+
+    /**
+     *
+     * @param areas
+     *              cells of each area, areas without cells are dropped
+     * @param weights
+     *              weight of each area
+     */
+    /*package-private*/ CellTable(ArrayList<int[]> areas, ArrayList<Integer> weights) {
+        ArrayList<int[]> nonEmpty = new ArrayList<int[]>();
+        int[] totals = new int[areas.size()];
+        int total = 0;
+
+        for (int i = 0; i < areas.size(); i++) {
+            if (areas.get(i).length == 0)
+                continue;
+
+            total += weights.get(i);
+            totals[nonEmpty.size()] = total;
+            nonEmpty.add(areas.get(i));
+            size += areas.get(i).length;
+        }
+
+        this.areas = nonEmpty.toArray(new int[0][]);
+        this.weights = Arrays.copyOf(totals, nonEmpty.size());
+    }
+
+    /**
+     *
+     * @return
+     *          number of cells in all areas
+     */
+    /*package-private*/ int size() {
+        return size;
+    }
+
+    /**
+     * Table must not be empty
+     *
+     * @return
+     *          a random cell, packed
+     */
+    /*package-private*/ int sample() {
+        int area = 0;
+        if (areas.length > 1) {
+            int w = GameMath.random(weights[weights.length - 1]);
+            while (weights[area] < w)
+                area++;
+        }
+
+        int[] cells = areas[area];
+        return cells[GameMath.random(cells.length) - 1];
+    }
+}
@@ -54,17 +54,28 @@ public class Enemy extends GameCharacter {
         setSP((int)getTotalStat(MAX_SP));
     }
 
+    /**
+     * Enemies of one type share base stats with their prototype
+     * until an effect or item changes them
+     *
+     * @param copy
+     *              prototype
+     */
     /*package-private*/ Enemy(Enemy copy) {
-        this(copy.id, copy.name, copy.description, copy.type, copy.element, copy.baseLevel,
-                new AttributeInfo().str(copy.getBaseAttribute(STR))
-                .vit(copy.getBaseAttribute(VIT))
-                .dex(copy.getBaseAttribute(DEX))
-                .agi(copy.getBaseAttribute(AGI))
-                .int_(copy.getBaseAttribute(INT))
-                .wis(copy.getBaseAttribute(WIS))
-                .wil(copy.getBaseAttribute(WIL))
-                .per(copy.getBaseAttribute(PER))
-                .luc(copy.getBaseAttribute(LUC)), copy.xp, copy.spriteID, copy.drops);
+        super(copy);
+        this.type = copy.type;
+        this.element = copy.element;
+        this.drops = copy.drops;
+    }
+
+    /*package-private*/ void setTemplateID(int templateID) {
+        this.templateID = templateID;
+    }
+
+    @Override
+    protected void reset() {
+        super.reset();
+        attackers.clear();
     }
 
     public void addAttackerRuntimeID(int runtimeID) {
@@ -0,0 +1,80 @@
+package uk.ac.brighton.uni.ab607.mmorpg.common.object;
+
+import java.util.ArrayDeque;
+
+/**
+ * Dead enemies kept by template ID so that respawning
+ * reuses them instead of creating new ones.
+ * Each map has its own pool, only used by the map's update
+ */
+public class EnemyPool {
+
+    private final IntMap<ArrayDeque<Enemy>> free = new IntMap<ArrayDeque<Enemy>>();
+
+    private int size = 0;
+    private long created = 0, reused = 0;
+
+    /**
+     *
+     * @param templateID
+     *              enemy template ID
+     * @return
+     *          dead enemy of that template reset to its initial state,
+     *          or a new enemy if there are none
+     */
+    /*package-private*/ Enemy acquire(int templateID) {
+        ArrayDeque<Enemy> enemies = free.get(templateID);
+        if (enemies != null && !enemies.isEmpty()) {
+            Enemy e = enemies.poll();
+            e.reset();
+            size--;
+            reused++;
+            return e;
+        }
+
+        created++;
+        return ObjectManager.getEnemyByID(templateID);
+    }
+
+    /**
+     * Keeps dead enemy for reuse, it must be detached from its map
+     *
+     * @param e
+     */
+    /*package-private*/ void release(Enemy e) {
+        ArrayDeque<Enemy> enemies = free.get(e.getTemplateID());
+        if (enemies == null) {
+            enemies = new ArrayDeque<Enemy>();
+            free.put(e.getTemplateID(), enemies);
+        }
+        enemies.add(e);
+        size++;
+    }
+
+    /**
+     *
+     * @return
+     *          number of dead enemies waiting to be reused
+     */
+    public int size() {
+        return size;
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    public long getReused() {
+        return reused;
+    }
+
+    /**
+     *
+     * @return
+     *          fraction of spawns that reused an enemy
+     */
+    public double getReuseRate() {
+        long spawns = created + reused;
+        return spawns == 0 ? 0 : (double) reused / spawns;
+    }
+}
@@ -1,27 +1,24 @@
 package uk.ac.brighton.uni.ab607.mmorpg.common.object;
 
-import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Stream;
 
 import uk.ac.brighton.uni.ab607.mmorpg.common.GameCharacter;
-import uk.ac.brighton.uni.ab607.mmorpg.common.GameMath;
 import uk.ac.brighton.uni.ab607.mmorpg.common.Player;
-import uk.ac.brighton.uni.ab607.mmorpg.common.Sys;
 import uk.ac.brighton.uni.ab607.mmorpg.common.request.AnimationMessage;
+import uk.ac.brighton.uni.ab607.mmorpg.common.request.EntityDelta;
+import uk.ac.brighton.uni.ab607.mmorpg.common.request.FrameBuffer;
 import uk.ac.brighton.uni.ab607.mmorpg.common.request.ImageAnimationMessage;
 import uk.ac.brighton.uni.ab607.mmorpg.common.request.MessageType;
 import uk.ac.brighton.uni.ab607.mmorpg.common.request.TextAnimationMessage;
 
 import com.almasb.common.graphics.Point2D;
-import com.almasb.common.graphics.Rect2D;
 import com.almasb.common.net.DataPacket;
 import com.almasb.common.net.UDPServer;
 import com.almasb.common.search.AStarNode;
 import com.almasb.common.util.Out;
-import com.almasb.java.io.ResourceManager;
 
 public class GameMap {
 
@@ -29,84 +26,187 @@ public class GameMap {
     public final int spriteID;
     public final int width, height;
     public final List<String> data;
+
+    /**
+     * Shared by all instances of this map
+     */
+    private final MapTerrain terrain;
+
+    /**
+     * Built on first use, AStarNode holds search state so each instance needs its own
+     */
     private AStarNode[][] map;
 
+    private Pathfinder pathfinder;
+
+    /**
+     * Last path found for each character that asked for one
+     */
+    private HashMap<GameCharacter, Pathfinder.Path> paths = new HashMap<GameCharacter, Pathfinder.Path>();
+
     private ArrayList< ArrayList<Enemy> > enemies = new ArrayList< ArrayList<Enemy> >();
     private SpawnInfo[] spawnInfo;
+
+    /**
+     * Free cells of each spawn's region, built on load so that
+     * placing a character never scans map data. Shared by copies
+     */
+    private CellTable[] spawnCells;
+
+    /**
+     * Number of cells tried when looking for one without an enemy,
+     * if all are taken the last one is used
+     */
+    private static final int SPAWN_ATTEMPTS = 8;
     private int enemyRuntimeID = 1; // it will keep going up
 
     private ArrayList<Player> players = new ArrayList<Player>();
 
+    /**
+     * Lookup tables, kept in sync on spawn, death, add and remove
+     */
+    private IntMap<Enemy> enemiesByRuntimeID = new IntMap<Enemy>();
+    private IntMap<Player> playersByRuntimeID = new IntMap<Player>();
+    private HashMap<String, Player> playersByName = new HashMap<String, Player>();
+
     public ArrayList<TextAnimationMessage> animationsText = new ArrayList<TextAnimationMessage>();
     public ArrayList<ImageAnimationMessage> animationsImage = new ArrayList<ImageAnimationMessage>();
 
+    /**
+     * Vision rectangle of a player, centred on the player
+     */
+    private static final int VISION_WIDTH = 1280, VISION_HEIGHT = 720;
+
+    /**
+     * Spatial indices, characters keep these up to date as they move
+     * Animations only live for 1 tick, so they are re-indexed each update
+     */
+    private SpatialIndex<GameCharacter> playerIndex, enemyIndex;
+    private SpatialIndex<AnimationMessage> animationIndex;
+
+    /**
+     * Effects, status effects, cooldowns and regen of characters on this map
+     */
+    private TimerWheel timerWheel = new TimerWheel();
+
+    /**
+     * Dead enemies reused on respawn
+     */
+    private EnemyPool enemyPool = new EnemyPool();
+
+    /**
+     * Reusable buffers for vision queries, only touched by update()
+     */
+    private ArrayList<GameCharacter> visiblePlayers = new ArrayList<GameCharacter>();
+    private ArrayList<GameCharacter> visibleEnemies = new ArrayList<GameCharacter>();
+    private ArrayList<AnimationMessage> visibleAnimations = new ArrayList<AnimationMessage>();
+    private ArrayList<Player> tmpPlayers = new ArrayList<Player>();
+
+    /**
+     * Characters are sent to clients as changes against what each client
+     * already has. Every KEYFRAME_INTERVAL frames a client gets a full
+     * UPDATE_GAME_CHAR instead, which recovers from lost packets.
+     * Clients are staggered so that keyframes do not all go out on the same tick
+     */
+    private static final int KEYFRAME_INTERVAL = 50;
+
+    private HashMap<Player, SnapshotBaseline> baselines = new HashMap<Player, SnapshotBaseline>();
+    private long frame = 0;
+
     private int tick = 0;
 
     /*package-private*/ GameMap(String name, int spriteID, SpawnInfo... info) {
-        this.name = name;
-        this.spriteID = spriteID;
+        this(new MapTerrain(name), spriteID, info, null);
+    }
+
+    /*package-private*/ GameMap(GameMap copy) {
+        this(copy.terrain, copy.spriteID, copy.spawnInfo, copy.spawnCells);
+    }
 
-        data = ResourceManager.loadText(name);
+    private GameMap(MapTerrain terrain, int spriteID, SpawnInfo[] info, CellTable[] spawnCells) {
+        this.terrain = terrain;
+        this.name = terrain.name;
+        this.spriteID = spriteID;
+        this.width = terrain.width;
+        this.height = terrain.height;
+        this.data = terrain.data;
 
-        if (data == null)
-            Sys.logExceptionAndExit(new Exception("no map data"));
+        pathfinder = terrain.getPathfinder();
 
-        height = data.size();
-        width = data.get(0).length();
+        playerIndex = new SpatialIndex<GameCharacter>(width * 40, height * 40, GameCharacter::getX, GameCharacter::getY);
+        enemyIndex = new SpatialIndex<GameCharacter>(width * 40, height * 40, GameCharacter::getX, GameCharacter::getY);
+        animationIndex = new SpatialIndex<AnimationMessage>(width * 40, height * 40, AnimationMessage::getX, AnimationMessage::getY);
 
-        map = new AStarNode[width][height];
+        spawnInfo = info;
 
-        for (int i = 0; i < data.size(); i++) {
-            String line = data.get(i);
-            for (int j = 0; j < line.length(); j++) {
-                map[j][i] = new AStarNode(j, i, 0, line.charAt(j) == '1' ? 1 : 0);
+        if (spawnCells == null) {
+            spawnCells = new CellTable[info.length];
+            for (int j = 0; j < info.length; j++) {
+                if (info[j].region != null) {
+                    spawnCells[j] = info[j].region.toCells(this);
+                    if (spawnCells[j].size() == 0)
+                        Out.d("GameMap", "No free cells in spawn region of " + info[j].enemyID + ", using whole map");
+                }
             }
         }
+        this.spawnCells = spawnCells;
 
-        spawnInfo = info;
-
-        for (SpawnInfo sp : spawnInfo) {
+        for (int j = 0; j < spawnInfo.length; j++) {
+            SpawnInfo sp = spawnInfo[j];
             ArrayList<Enemy> list = new ArrayList<Enemy>();
             for (int i = 0; i < sp.number; i++) {
-                Enemy e = ObjectManager.getEnemyByID(sp.enemyID);
-                Point2D p = getRandomFreePos();
-                e.setX((int) p.getX());
-                e.setY((int) p.getY());
-                e.setRuntimeID(enemyRuntimeID++);
-                list.add(e);
+                list.add(spawnEnemy(j));
             }
             enemies.add(list);
         }
     }
 
-    /*package-private*/ GameMap(GameMap copy) {
-        this(copy.name, copy.spriteID, copy.spawnInfo);
+    private Enemy spawnEnemy(int spawn) {
+        CellTable cells = spawnCells[spawn] != null && spawnCells[spawn].size() > 0
+                ? spawnCells[spawn] : terrain.getFreeCells();
+
+        // avoid stacking enemies on one cell while there is room
+        int cell = cells.sample();
+        for (int i = 1; i < SPAWN_ATTEMPTS && enemyIndex.get(cell % width * 40, cell / width * 40) != null; i++)
+            cell = cells.sample();
+
+        Enemy e = enemyPool.acquire(spawnInfo[spawn].templateID);
+        e.setX(cell % width * 40);
+        e.setY(cell / width * 40);
+        e.setRuntimeID(enemyRuntimeID++);
+        e.attachTo(enemyIndex, timerWheel);
+        enemiesByRuntimeID.put(e.getRuntimeID(), e);
+        return e;
     }
 
     public void update(UDPServer server) {
-        List<Player> tmpPlayers = new ArrayList<Player>(players);
+        // indexed loops below, iterators are not always scalar replaced in a method this size
+        tmpPlayers.clear();
+        for (int i = 0; i < players.size(); i++)
+            tmpPlayers.add(players.get(i));
+
+        timerWheel.advance();
 
         // clean animations
-        for (Iterator<TextAnimationMessage> it = animationsText.iterator(); it.hasNext(); ) {
-            if (it.next().isSent())
-                it.remove();
-        }
-        for (Iterator<ImageAnimationMessage> it = animationsImage.iterator(); it.hasNext(); ) {
-            if (it.next().isSent())
-                it.remove();
-        }
+        removeSent(animationsText);
+        removeSent(animationsImage);
 
         // process enemies
         for (int i = 0; i < enemies.size(); i++) {
             ArrayList<Enemy> enemyList = enemies.get(i);
 
-            for (Iterator<Enemy> it = enemyList.iterator(); it.hasNext(); ) {
-                Enemy e = it.next();
+            for (int j = 0; j < enemyList.size(); ) {
+                Enemy e = enemyList.get(j);
                 if (e.isAlive()) {
                     e.update();
+                    j++;
                 }
                 else {
-                    it.remove();
+                    e.detach();
+                    enemiesByRuntimeID.remove(e.getRuntimeID());
+                    paths.remove(e);
+                    enemyList.remove(j);
+                    enemyPool.release(e);
                 }
             }
         }
@@ -114,39 +214,34 @@ public class GameMap {
         // respawn monsters if needed
         for (int j = 0; j < spawnInfo.length; j++) {
             ArrayList<Enemy> list = enemies.get(j);
-            for (int i = 0; i < spawnInfo[j].number - list.size(); i++) {
-                Enemy e = ObjectManager.getEnemyByID(spawnInfo[j].enemyID);
-                Point2D p = getRandomFreePos();
-                e.setX((int) p.getX());
-                e.setY((int) p.getY());
-                e.setRuntimeID(enemyRuntimeID++);
-                list.add(e);
+            while (list.size() < spawnInfo[j].number) {
+                list.add(spawnEnemy(j));
             }
         }
 
 
         // process players
-        for (Player p : tmpPlayers) {
-            p.update();
+        for (int i = 0; i < tmpPlayers.size(); i++) {
+            tmpPlayers.get(i).update();
         }
 
-        // all objects to send
-        ArrayList<Enemy> tmpList = new ArrayList<Enemy>();
-        enemies.forEach(list -> list.forEach(enemy -> tmpList.add(enemy)));
-
+        animationIndex.clear();
+        for (int i = 0; i < animationsText.size(); i++)
+            animationIndex.add(animationsText.get(i));
+        for (int i = 0; i < animationsImage.size(); i++)
+            animationIndex.add(animationsImage.get(i));
 
-//        Stream<Player> playerStream = tmpPlayers.stream();
-//        Stream<TextAnimationMessage> animationStream = animationsText.stream();
-//        Stream<ImageAnimationMessage> animationStream2 = animationsImage.stream();
-//        Stream<Enemy> enemyStream = tmpList.stream();
+        for (int p = 0; p < tmpPlayers.size(); p++) {
+            Player player = tmpPlayers.get(p);
+            int visionX = player.getX() - VISION_WIDTH / 2, visionY = player.getY() - VISION_HEIGHT / 2;
 
-        tmpPlayers.forEach(player -> {
-            Rect2D playerVision = new Rect2D(player.getX() - 640, player.getY() - 360, 1280, 720);
+            visiblePlayers.clear();
+            visibleEnemies.clear();
+            visibleAnimations.clear();
 
-            Player[] playersToSend = tmpPlayers.stream().filter(p -> playerVision.contains(new Point2D(p.getX(), p.getY()))).toArray(Player[]::new);
-            TextAnimationMessage[] animationsToSend = animationsText.stream().filter(anim -> playerVision.contains(new Point2D(anim.getX(), anim.getY()))).toArray(TextAnimationMessage[]::new);
-            ImageAnimationMessage[] animationsToSend2 = animationsImage.stream().filter(anim -> playerVision.contains(new Point2D(anim.getX(), anim.getY()))).toArray(ImageAnimationMessage[]::new);
-            Enemy[] enemiesToSend =  tmpList.stream().filter(enemy -> playerVision.contains(new Point2D(enemy.getX(), enemy.getY()))).toArray(Enemy[]::new);
+            playerIndex.query(visionX, visionY, VISION_WIDTH, VISION_HEIGHT, visiblePlayers);
+            enemyIndex.query(visionX, visionY, VISION_WIDTH, VISION_HEIGHT, visibleEnemies);
+            animationIndex.query(visionX, visionY, VISION_WIDTH, VISION_HEIGHT, visibleAnimations);
 
             try {
                 // send THE player
@@ -154,44 +249,51 @@ public class GameMap {
                     server.send(new DataPacket(player), player.ip, player.port);
 
                 // send players / enemies
-                ByteArrayOutputStream baos = new ByteArrayOutputStream();
-
-                if (playersToSend.length > 0 || enemiesToSend.length > 0) {
-                    baos.write((byte)MessageType.UPDATE_GAME_CHAR.ordinal());
-                    for (int i = 0; i < playersToSend.length; i++) {
-                        baos.write(playersToSend[i].toByteArray());
-                    }
-                    for (int i = 0; i < enemiesToSend.length; i++) {
-                        baos.write(enemiesToSend[i].toByteArray());
-                    }
+                SnapshotBaseline baseline = baselines.get(player);
+                if (baseline == null) {
+                    baseline = new SnapshotBaseline();
+                    baselines.put(player, baseline);
                 }
 
-                server.sendRawBytes(baos.toByteArray(), player.ip, player.port);
-
-                // send animations
-                baos = new ByteArrayOutputStream();
-                if (animationsToSend.length > 0) {
-                    baos.write((byte)MessageType.ANIMATION_TEXT.ordinal());
-
-                    for (int i = 0; i < animationsToSend.length; i++) {
-                        baos.write(animationsToSend[i].toByteArray());
-                        animationsToSend[i].setSent();
+                int numChars = visiblePlayers.size() + visibleEnemies.size();
+                ByteBuffer buf = FrameBuffer.get(1 + (numChars + baseline.size()) * EntityDelta.MAX_ENTRY_SIZE);
+
+                baseline.begin();
+
+                if ((frame + player.getRuntimeID()) % KEYFRAME_INTERVAL == 0) {
+                    if (numChars > 0) {
+                        buf.put((byte)MessageType.UPDATE_GAME_CHAR.ordinal());
+                        for (int i = 0; i < visiblePlayers.size(); i++) {
+                            visiblePlayers.get(i).writeTo(buf);
+                            baseline.add(visiblePlayers.get(i), null);
+                        }
+                        for (int i = 0; i < visibleEnemies.size(); i++) {
+                            visibleEnemies.get(i).writeTo(buf);
+                            baseline.add(visibleEnemies.get(i), null);
+                        }
                     }
-                }
 
-                server.sendRawBytes(baos.toByteArray(), player.ip, player.port);
-
-                baos = new ByteArrayOutputStream();
-                if (animationsToSend2.length > 0) {
-                    baos.write((byte)MessageType.ANIMATION_IMAGE.ordinal());
-
-                    for (int i = 0; i < animationsToSend2.length; i++) {
-                        baos.write(animationsToSend2[i].toByteArray());
-                        animationsToSend2[i].setSent();
+                    baseline.end(null);
+                }
+                else {
+                    // header is always sent, client replies with its actions to every frame
+                    buf.put((byte)MessageType.UPDATE_GAME_CHAR_DELTA.ordinal());
+                    for (int i = 0; i < visiblePlayers.size(); i++) {
+                        baseline.add(visiblePlayers.get(i), buf);
                     }
+                    for (int i = 0; i < visibleEnemies.size(); i++) {
+                        baseline.add(visibleEnemies.get(i), buf);
+                    }
+
+                    baseline.end(buf);
                 }
 
-                server.sendRawBytes(baos.toByteArray(), player.ip, player.port);
+                if (buf.position() > 0)
+                    server.sendRawBytes(FrameBuffer.toByteArray(buf), player.ip, player.port);
+
+                // send animations
+                sendAnimations(server, player, MessageType.ANIMATION_TEXT, TextAnimationMessage.class, TextAnimationMessage.BYTE_STREAM_SIZE);
+                sendAnimations(server, player, MessageType.ANIMATION_IMAGE, ImageAnimationMessage.class, ImageAnimationMessage.BYTE_STREAM_SIZE);
 
                 //                tick++;
                 //
@@ -201,27 +303,50 @@ public class GameMap {
             catch (Exception e) {
                 Out.e("update", "Failed to send a packet", this, e);
             }
-        });
+        }
+
+        frame++;
     }
 
-    public Enemy getEnemyByRuntimeID(int id) {
-        for (ArrayList<Enemy> list : enemies) {
-            for (Enemy e : list)
-                if (e.getRuntimeID() == id)
-                    return e;
+    private static void removeSent(ArrayList<? extends AnimationMessage> animations) {
+        for (int i = animations.size() - 1; i >= 0; i--) {
+            if (animations.get(i).isSent())
+                animations.remove(i);
         }
-
-        return null;
     }
 
-    public Enemy getEnemyByXY(int x, int y) {
-        for (ArrayList<Enemy> list : enemies) {
-            for (Enemy e : list)
-                if (e.getX() == x && e.getY() == y)
-                    return e;
+    /**
+     * Sends visible animations of given type, nothing is sent if there are none
+     */
+    private void sendAnimations(UDPServer server, Player player, MessageType type,
+            Class<? extends AnimationMessage> animClass, int size) throws Exception {
+        ByteBuffer buf = FrameBuffer.get(1 + visibleAnimations.size() * size);
+
+        for (int i = 0; i < visibleAnimations.size(); i++) {
+            AnimationMessage anim = visibleAnimations.get(i);
+            if (animClass.isInstance(anim)) {
+                if (buf.position() == 0)
+                    buf.put((byte)type.ordinal());
+
+                anim.writeTo(buf);
+                anim.setSent();
+            }
         }
 
-        return null;
+        if (buf.position() > 0)
+            server.sendRawBytes(FrameBuffer.toByteArray(buf), player.ip, player.port);
+    }
+
+    public EnemyPool getEnemyPool() {
+        return enemyPool;
+    }
+
+    public Enemy getEnemyByRuntimeID(int id) {
+        return enemiesByRuntimeID.get(id);
+    }
+
+    public Enemy getEnemyByXY(int x, int y) {
+        return (Enemy) enemyIndex.get(x, y);
     }
 
     public ArrayList<Player> getPlayers() {
@@ -234,42 +359,103 @@ public class GameMap {
      *          x, y coords of random unoccupied cell
      */
     public Point2D getRandomFreePos() {
-        int x, y;
-        do {
-            x = GameMath.random(width) - 1;
-            y = GameMath.random(height) - 1;
-        }
-        while(data.get(y).charAt(x) == '1');
+        int cell = terrain.getFreeCells().sample();
+        return new Point2D(cell % width * 40, cell / width * 40);
+    }
 
-        return new Point2D(x*40, y*40);
+    /**
+     *
+     * @param x
+     *              cell x
+     * @param y
+     *              cell y
+     * @return
+     *          true if characters can stand on cell
+     */
+    /*package-private*/ boolean isFree(int x, int y) {
+        return terrain.isWalkable(x, y);
     }
 
     public AStarNode[][] getGrid() {
+        if (map == null) {
+            map = new AStarNode[width][height];
+            for (int y = 0; y < height; y++)
+                for (int x = 0; x < width; x++)
+                    map[x][y] = new AStarNode(x, y, 0, isFree(x, y) ? 0 : 1);
+        }
+
         return map;
     }
 
+    public MapTerrain getTerrain() {
+        return terrain;
+    }
+
+    public Pathfinder getPathfinder() {
+        return pathfinder;
+    }
+
+    /**
+     * Replaces the search used by this map, cached paths are dropped
+     *
+     * @param pathfinder
+     */
+    public void setPathfinder(Pathfinder pathfinder) {
+        this.pathfinder = pathfinder;
+        paths.clear();
+    }
+
+    /**
+     * Returns path for the character to target cell. The path found by
+     * previous call is reused while it leads to the same target and the
+     * character is still on it, cells already reached are dropped
+     *
+     * @param ch
+     * @param targetX
+     *              cell x
+     * @param targetY
+     *              cell y
+     * @return
+     *          remaining path, empty if target can't be reached
+     */
+    public Pathfinder.Path getPath(GameCharacter ch, int targetX, int targetY) {
+        Pathfinder.Path path = paths.get(ch);
+        if (path != null && path.targetX == targetX && path.targetY == targetY) {
+            while (!path.isEmpty() && ch.getX() == path.getNextX() * 40 && ch.getY() == path.getNextY() * 40)
+                path.advance();
+
+            if (path.isEmpty()
+                    || (Math.abs(ch.getX() - path.getNextX() * 40) <= 40 && Math.abs(ch.getY() - path.getNextY() * 40) <= 40))
+                return path;
+        }
+
+        path = pathfinder.findPath(ch.getX() / 40, ch.getY() / 40, targetX, targetY);
+        paths.put(ch, path);
+        return path;
+    }
+
     public void addPlayer(Player p) {
         players.add(p);
+        p.attachTo(playerIndex, timerWheel);
+        playersByRuntimeID.put(p.getRuntimeID(), p);
+        playersByName.put(p.name, p);
     }
 
     public void removePlayer(Player p) {
         players.remove(p);
+        p.detach();
+        playersByRuntimeID.remove(p.getRuntimeID());
+        playersByName.remove(p.name);
+        paths.remove(p);
+        baselines.remove(p);
     }
 
     public Player getPlayerByName(String name) {
-        for (Player p : players)
-            if (p.name.equals(name))
-                return p;
-
-        return null;
+        return playersByName.get(name);
     }
 
     public Player getPlayerByRuntimeID(int runtimeID) {
-        for (Player p : players)
-            if (p.getRuntimeID() == runtimeID)
-                return p;
-
-        return null;
+        return playersByRuntimeID.get(runtimeID);
     }
 
     /**
@@ -287,10 +473,26 @@ public class GameMap {
 
     static class SpawnInfo {
         public String enemyID;
+        public int templateID;
         public int number;
+        public SpawnRegion region;
         public SpawnInfo(String id, int number) {
+            this(id, number, null);
+        }
+
+        /**
+         *
+         * @param id
+         *              enemy ID, the enemy must be loaded already
+         * @param number
+         * @param region
+         *              where enemies appear, null for anywhere on the map
+         */
+        public SpawnInfo(String id, int number, SpawnRegion region) {
             this.enemyID = id;
+            this.templateID = ObjectManager.getTemplateID(id);
             this.number = number;
+            this.region = region;
         }
     }
 }
@@ -0,0 +1,532 @@
+package uk.ac.brighton.uni.ab607.mmorpg.common.object;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Hierarchical A* (HPA*) for large maps
+ *
+ * The map is split into square clusters. When the map loads, walkable
+ * openings between neighbouring clusters become entrance nodes, and
+ * entrance nodes of the same cluster are connected with their
+ * path inside the cluster, which is kept. A search then runs on this
+ * small graph and only the clusters of start and target are searched
+ * cell by cell, the rest of the path is put together from kept paths.
+ *
+ * Paths are near shortest, usually a few cells longer than A*
+ */
+public class HierarchicalPathfinder implements Pathfinder {
+
+    public static final int CLUSTER_SIZE = 10;
+
+    /**
+     * Openings at least this wide get an entrance at each end instead of one in the middle
+     */
+    private static final int MAX_ENTRANCE_WIDTH = 6;
+
+    private static final int STEP_COST = 10;
+
+    private final int width, height;
+    private final int clustersX, clustersY;
+    private final AStarPathfinder cells;
+
+    /**
+     * Abstract graph, node IDs index these arrays
+     */
+    private final int[] nodeCell;
+    private final int[][] edges, edgeCosts;
+    private final int[][] clusterNodes;
+
+    /**
+     * Open list keys are [f][h][node], so of nodes with equal f
+     * the one closest to target is expanded first
+     */
+    private final int hBits, nodeBits;
+
+    /**
+     * Cells of paths between entrances of the same cluster, both ends included,
+     * as index within the cluster, which fits a byte while CLUSTER_SIZE <= 16.
+     * Edge's path starts at edgePaths offset and has edge cost / STEP_COST + 1 cells,
+     * offset is -1 for edges between clusters
+     */
+    private final byte[] pathCells;
+    private final int[][] edgePaths;
+
+    /**
+     * Search state, one per thread
+     */
+    private static class Scratch {
+        // search inside start and target clusters, indexed by local cell
+        int[] dist = new int[CLUSTER_SIZE * CLUSTER_SIZE];
+        int[] prev = new int[CLUSTER_SIZE * CLUSTER_SIZE];
+        int[] targetDist = new int[CLUSTER_SIZE * CLUSTER_SIZE];
+        int[] targetPrev = new int[CLUSTER_SIZE * CLUSTER_SIZE];
+        int[] queue = new int[CLUSTER_SIZE * CLUSTER_SIZE];
+
+        // search on abstract graph, indexed by node
+        int[] g = new int[0], parent = new int[0], seen = new int[0], closed = new int[0];
+        int[] toTarget = new int[0], toTargetSeen = new int[0];
+        int stamp = 0;
+        LongMinHeap open = new LongMinHeap();
+
+        void begin(int numNodes) {
+            if (g.length < numNodes) {
+                g = new int[numNodes];
+                parent = new int[numNodes];
+                seen = new int[numNodes];
+                closed = new int[numNodes];
+                toTarget = new int[numNodes];
+                toTargetSeen = new int[numNodes];
+                stamp = 0;
+            }
+
+            if (++stamp == 0) {
+                Arrays.fill(seen, 0);
+                Arrays.fill(closed, 0);
+                Arrays.fill(toTargetSeen, 0);
+                stamp = 1;
+            }
+
+            open.clear();
+        }
+    }
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    /**
+     *
+     * @param data
+     *              map rows, '1' is a blocked cell
+     */
+    public HierarchicalPathfinder(List<String> data) {
+        cells = new AStarPathfinder(data);
+
+        height = data.size();
+        width = data.get(0).length();
+        clustersX = (width + CLUSTER_SIZE - 1) / CLUSTER_SIZE;
+        clustersY = (height + CLUSTER_SIZE - 1) / CLUSTER_SIZE;
+
+        // build abstract graph
+        int[] nodeOfCell = new int[width * height];
+        Arrays.fill(nodeOfCell, -1);
+
+        ArrayList<Integer> nodes = new ArrayList<Integer>();
+        ArrayList<int[]> edgeList = new ArrayList<int[]>();
+
+        for (int cy = 0; cy < clustersY; cy++) {
+            for (int cx = 0; cx < clustersX; cx++) {
+                int x0 = cx * CLUSTER_SIZE, y0 = cy * CLUSTER_SIZE;
+
+                // border with right neighbour
+                if (cx + 1 < clustersX)
+                    addEntrances(x0 + CLUSTER_SIZE - 1, y0, 1, 0, 0, 1,
+                            Math.min(CLUSTER_SIZE, height - y0), nodeOfCell, nodes, edgeList);
+
+                // border with bottom neighbour
+                if (cy + 1 < clustersY)
+                    addEntrances(x0, y0 + CLUSTER_SIZE - 1, 0, 1, 1, 0,
+                            Math.min(CLUSTER_SIZE, width - x0), nodeOfCell, nodes, edgeList);
+            }
+        }
+
+        // f is about every cell walked once at most, one bit is spare
+        hBits = bitsFor((long) (width + height) * STEP_COST);
+        nodeBits = bitsFor(nodes.size() + 2);
+        if (bitsFor((long) width * height * STEP_COST) + 1 > 63 - hBits - nodeBits)
+            throw new IllegalArgumentException("Map is too large: " + width + "x" + height);
+
+        nodeCell = new int[nodes.size()];
+        for (int i = 0; i < nodeCell.length; i++)
+            nodeCell[i] = nodes.get(i);
+
+        ArrayList<ArrayList<Integer>> byCluster = new ArrayList<ArrayList<Integer>>();
+        for (int i = 0; i < clustersX * clustersY; i++)
+            byCluster.add(new ArrayList<Integer>());
+        for (int i = 0; i < nodeCell.length; i++)
+            byCluster.get(clusterOf(nodeCell[i])).add(i);
+
+        clusterNodes = new int[byCluster.size()][];
+        for (int c = 0; c < clusterNodes.length; c++)
+            clusterNodes[c] = byCluster.get(c).stream().mapToInt(Integer::intValue).toArray();
+
+        // connect entrances of the same cluster and keep their paths
+        Scratch s = SCRATCH.get();
+        IntList paths = new IntList();
+        for (int c = 0; c < clusterNodes.length; c++) {
+            int[] list = clusterNodes[c];
+            for (int i = 0; i < list.length; i++) {
+                searchCluster(nodeCell[list[i]], s.dist, s.prev, s.queue);
+                for (int j = i + 1; j < list.length; j++) {
+                    int d = s.dist[local(nodeCell[list[j]])];
+                    if (d >= 0) {
+                        edgeList.add(new int[] { list[i], list[j], d * STEP_COST, paths.size });
+                        paths.add(nodeCell[list[i]]);
+                        appendClusterPath(s.prev, nodeCell[list[j]], paths);
+                    }
+                }
+            }
+        }
+
+        pathCells = new byte[paths.size];
+        for (int i = 0; i < paths.size; i++)
+            pathCells[i] = (byte) local(paths.data[i]);
+
+        int[] degree = new int[nodeCell.length];
+        for (int[] e : edgeList) {
+            degree[e[0]]++;
+            degree[e[1]]++;
+        }
+
+        edges = new int[nodeCell.length][];
+        edgeCosts = new int[nodeCell.length][];
+        edgePaths = new int[nodeCell.length][];
+        for (int i = 0; i < nodeCell.length; i++) {
+            edges[i] = new int[degree[i]];
+            edgeCosts[i] = new int[degree[i]];
+            edgePaths[i] = new int[degree[i]];
+            degree[i] = 0;
+        }
+
+        for (int[] e : edgeList) {
+            int path = e.length > 3 ? e[3] : -1;
+
+            edges[e[0]][degree[e[0]]] = e[1];
+            edgeCosts[e[0]][degree[e[0]]] = e[2];
+            edgePaths[e[0]][degree[e[0]]++] = path;
+            edges[e[1]][degree[e[1]]] = e[0];
+            edgeCosts[e[1]][degree[e[1]]] = e[2];
+            edgePaths[e[1]][degree[e[1]]++] = path;
+        }
+    }
+
+    /**
+     * Scans a border between two clusters for runs of cells walkable on both sides
+     *
+     * @param x
+     *          first cell on this side of the border
+     * @param y
+     *          first cell on this side of the border
+     * @param dx
+     *          step across the border
+     * @param dy
+     *          step across the border
+     * @param stepX
+     *          step along the border
+     * @param stepY
+     *          step along the border
+     * @param length
+     *          number of cells along the border
+     */
+    private void addEntrances(int x, int y, int dx, int dy, int stepX, int stepY, int length,
+            int[] nodeOfCell, ArrayList<Integer> nodes, ArrayList<int[]> edgeList) {
+        int runStart = -1;
+        for (int i = 0; i <= length; i++) {
+            int ax = x + i * stepX, ay = y + i * stepY;
+            boolean open = i < length && cells.isWalkable(ax, ay) && cells.isWalkable(ax + dx, ay + dy);
+
+            if (open && runStart == -1) {
+                runStart = i;
+            }
+            else if (!open && runStart != -1) {
+                int runEnd = i - 1;
+                if (runEnd - runStart + 1 >= MAX_ENTRANCE_WIDTH) {
+                    addTransition(x, y, dx, dy, stepX, stepY, runStart, nodeOfCell, nodes, edgeList);
+                    addTransition(x, y, dx, dy, stepX, stepY, runEnd, nodeOfCell, nodes, edgeList);
+                }
+                else {
+                    addTransition(x, y, dx, dy, stepX, stepY, (runStart + runEnd) / 2, nodeOfCell, nodes, edgeList);
+                }
+
+                runStart = -1;
+            }
+        }
+    }
+
+    private void addTransition(int x, int y, int dx, int dy, int stepX, int stepY, int i,
+            int[] nodeOfCell, ArrayList<Integer> nodes, ArrayList<int[]> edgeList) {
+        int ax = x + i * stepX, ay = y + i * stepY;
+
+        int a = addNode(ay * width + ax, nodeOfCell, nodes);
+        int b = addNode((ay + dy) * width + ax + dx, nodeOfCell, nodes);
+        edgeList.add(new int[] { a, b, STEP_COST });
+    }
+
+    private static int addNode(int cell, int[] nodeOfCell, ArrayList<Integer> nodes) {
+        if (nodeOfCell[cell] == -1) {
+            nodeOfCell[cell] = nodes.size();
+            nodes.add(cell);
+        }
+
+        return nodeOfCell[cell];
+    }
+
+    private static int bitsFor(long value) {
+        return 64 - Long.numberOfLeadingZeros(value);
+    }
+
+    private int clusterOf(int cell) {
+        return (cell / width / CLUSTER_SIZE) * clustersX + (cell % width) / CLUSTER_SIZE;
+    }
+
+    /**
+     *
+     * @return
+     *          index of cell within its cluster
+     */
+    private int local(int cell) {
+        return (cell / width % CLUSTER_SIZE) * CLUSTER_SIZE + cell % width % CLUSTER_SIZE;
+    }
+
+    private int global(int origin, int local) {
+        return origin + local / CLUSTER_SIZE * width + local % CLUSTER_SIZE;
+    }
+
+    /**
+     * Breadth first search from cell, without leaving its cluster.
+     * Fills dist (-1 if unreachable) and prev by local index
+     */
+    private void searchCluster(int from, int[] dist, int[] prev, int[] queue) {
+        int x0 = (from % width) / CLUSTER_SIZE * CLUSTER_SIZE, y0 = (from / width) / CLUSTER_SIZE * CLUSTER_SIZE;
+        int x1 = Math.min(x0 + CLUSTER_SIZE, width), y1 = Math.min(y0 + CLUSTER_SIZE, height);
+
+        Arrays.fill(dist, -1);
+
+        int head = 0, tail = 0;
+        dist[local(from)] = 0;
+        prev[local(from)] = -1;
+        queue[tail++] = from;
+
+        while (head < tail) {
+            int cell = queue[head++];
+            int x = cell % width, y = cell / width;
+            int d = dist[local(cell)] + 1;
+
+            for (int dir = 0; dir < 4; dir++) {
+                int nx = x, ny = y;
+                switch (dir) {
+                    case 0: nx--; break;
+                    case 1: nx++; break;
+                    case 2: ny--; break;
+                    default: ny++; break;
+                }
+
+                if (nx < x0 || nx >= x1 || ny < y0 || ny >= y1 || !cells.isWalkable(nx, ny))
+                    continue;
+
+                int next = ny * width + nx;
+                if (dist[local(next)] == -1) {
+                    dist[local(next)] = d;
+                    prev[local(next)] = cell;
+                    queue[tail++] = next;
+                }
+            }
+        }
+    }
+
+    /**
+     * Appends path inside the cluster from searched cell to cell, start excluded
+     */
+    private void appendClusterPath(int[] prev, int to, IntList out) {
+        int from = out.size;
+        for (int cell = to; prev[local(cell)] != -1; cell = prev[local(cell)])
+            out.add(cell);
+
+        out.reverse(from, out.size);
+    }
+
+    /**
+     * Appends kept path of edge from node to next, node's cell excluded
+     */
+    private void appendEdgePath(int node, int next, IntList out) {
+        int i = 0;
+        while (edges[node][i] != next)
+            i++;
+
+        int offset = edgePaths[node][i];
+        if (offset == -1) {
+            // entrances are next to each other
+            out.add(nodeCell[next]);
+            return;
+        }
+
+        int cell = nodeCell[node];
+        int origin = cell - local(cell) % CLUSTER_SIZE - local(cell) / CLUSTER_SIZE * width;
+
+        int last = offset + edgeCosts[node][i] / STEP_COST;
+        if ((pathCells[offset] & 0xFF) == local(cell)) {
+            for (int j = offset + 1; j <= last; j++)
+                out.add(global(origin, pathCells[j] & 0xFF));
+        }
+        else {
+            for (int j = last - 1; j >= offset; j--)
+                out.add(global(origin, pathCells[j] & 0xFF));
+        }
+    }
+
+    /**
+     * Appends path inside the target cluster from cell to target, cell excluded.
+     * Target's search leads back to target, so no reversing is needed
+     */
+    private void appendTargetPath(int[] targetPrev, int from, IntList out) {
+        for (int cell = targetPrev[local(from)]; cell != -1; cell = targetPrev[local(cell)])
+            out.add(cell);
+    }
+
+    private int heuristic(int cell, int target) {
+        return (Math.abs(cell % width - target % width) + Math.abs(cell / width - target / width)) * STEP_COST;
+    }
+
+    @Override
+    public boolean isWalkable(int x, int y) {
+        return cells.isWalkable(x, y);
+    }
+
+    public int getNumNodes() {
+        return nodeCell.length;
+    }
+
+    @Override
+    public Path findPath(int startX, int startY, int targetX, int targetY) {
+        if (!isWalkable(startX, startY) || !isWalkable(targetX, targetY)
+                || (startX == targetX && startY == targetY))
+            return cells.findPath(startX, startY, targetX, targetY);
+
+        int start = startY * width + startX, target = targetY * width + targetX;
+        int startCluster = clusterOf(start), targetCluster = clusterOf(target);
+
+        Scratch s = SCRATCH.get();
+        IntList result = new IntList();
+
+        // no need for abstract graph if target can be reached within the cluster
+        if (startCluster == targetCluster) {
+            searchCluster(start, s.dist, s.prev, s.queue);
+            if (s.dist[local(target)] >= 0) {
+                appendClusterPath(s.prev, target, result);
+                return new Path(result.toArray(), width, targetX, targetY);
+            }
+        }
+
+        // start and target are extra nodes, connected to entrances of their clusters
+        int numNodes = nodeCell.length;
+        int startNode = numNodes, targetNode = numNodes + 1;
+
+        s.begin(numNodes + 2);
+
+        searchCluster(target, s.targetDist, s.targetPrev, s.queue);
+        for (int n : clusterNodes[targetCluster]) {
+            int d = s.targetDist[local(nodeCell[n])];
+            if (d >= 0) {
+                s.toTarget[n] = d * STEP_COST;
+                s.toTargetSeen[n] = s.stamp;
+            }
+        }
+
+        searchCluster(start, s.dist, s.prev, s.queue);
+        int[] startNodes = clusterNodes[startCluster];
+
+        s.g[startNode] = 0;
+        s.parent[startNode] = -1;
+        s.seen[startNode] = s.stamp;
+        s.open.push(key(heuristic(start, target), heuristic(start, target), startNode));
+
+        boolean found = false;
+
+        while (!s.open.isEmpty()) {
+            int node = (int) (s.open.pop() & ((1L << nodeBits) - 1));
+            if (s.closed[node] == s.stamp)
+                continue;
+
+            if (node == targetNode) {
+                found = true;
+                break;
+            }
+
+            s.closed[node] = s.stamp;
+
+            if (node == startNode) {
+                for (int n : startNodes) {
+                    int d = s.dist[local(nodeCell[n])];
+                    if (d >= 0)
+                        relax(s, node, n, d * STEP_COST, target);
+                }
+                continue;
+            }
+
+            for (int i = 0; i < edges[node].length; i++)
+                relax(s, node, edges[node][i], edgeCosts[node][i], target);
+
+            if (s.toTargetSeen[node] == s.stamp)
+                relax(s, node, targetNode, s.toTarget[node], target);
+        }
+
+        if (!found)
+            return new Path(new int[0], width, targetX, targetY);
+
+        // abstract path from target back to start
+        IntList abstractPath = new IntList();
+        for (int node = targetNode; node != startNode; node = s.parent[node])
+            abstractPath.add(node);
+
+        // refine, start and target clusters from their searches, the rest from kept paths
+        // start node only leads to entrances, so the first node is one
+        int first = abstractPath.data[abstractPath.size - 1];
+        appendClusterPath(s.prev, nodeCell[first], result);
+
+        for (int i = abstractPath.size - 2; i >= 0; i--) {
+            int node = abstractPath.data[i], prevNode = abstractPath.data[i + 1];
+
+            if (node == targetNode)
+                appendTargetPath(s.targetPrev, nodeCell[prevNode], result);
+            else
+                appendEdgePath(prevNode, node, result);
+        }
+
+        return new Path(result.toArray(), width, targetX, targetY);
+    }
+
+    private void relax(Scratch s, int node, int next, int cost, int target) {
+        if (s.closed[next] == s.stamp)
+            return;
+
+        int g = s.g[node] + cost;
+        if (s.seen[next] != s.stamp || g < s.g[next]) {
+            s.seen[next] = s.stamp;
+            s.g[next] = g;
+            s.parent[next] = node;
+
+            int h = next < nodeCell.length ? heuristic(nodeCell[next], target) : 0;
+            s.open.push(key(g + h, h, next));
+        }
+    }
+
+    private long key(int f, int h, int node) {
+        return (long) f << (hBits + nodeBits) | (long) h << nodeBits | node;
+    }
+
+    /**
+     * Growable int array for building paths
+     */
+    private static class IntList {
+        int[] data = new int[32];
+        int size = 0;
+
+        void add(int value) {
+            if (size == data.length)
+                data = Arrays.copyOf(data, size * 2);
+            data[size++] = value;
+        }
+
+        void reverse(int from, int to) {
+            for (int i = from, j = to - 1; i < j; i++, j--) {
+                int tmp = data[i];
+                data[i] = data[j];
+                data[j] = tmp;
+            }
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(data, size);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package uk.ac.brighton.uni.ab607.mmorpg.common.object;
+
+import java.util.Arrays;
+
+/**
+ * Map with primitive int keys, open addressing with linear probing.
+ * Unlike HashMap&lt;Integer, V&gt; lookups do not box the key
+ *
+ * Null values are not allowed
+ *
+ * @param <V>
+ *              type of values
+ */
+public class IntMap<V> {
+
+    private int[] keys;
+    private Object[] values;
+    private int size = 0;
+
+    public IntMap() {
+        this(16);
+    }
+
+    /**
+     *
+     * @param expectedSize
+     *                  number of entries the map will hold without growing
+     */
+    public IntMap(int expectedSize) {
+        int capacity = 16;
+        while (capacity < expectedSize * 2)
+            capacity <<= 1;
+
+        keys = new int[capacity];
+        values = new Object[capacity];
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     *
+     * @return
+     *          slot of key or empty slot where it should go
+     */
+    private int indexOf(int key) {
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (values[i] != null && keys[i] != key)
+            i = (i + 1) & mask;
+
+        return i;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        return (V) values[indexOf(key)];
+    }
+
+    public boolean containsKey(int key) {
+        return values[indexOf(key)] != null;
+    }
+
+    /**
+     *
+     * @param key
+     * @param value
+     * @return
+     *          previous value or null
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (value == null)
+            throw new IllegalArgumentException("Null values are not allowed");
+
+        int i = indexOf(key);
+        V old = (V) values[i];
+        if (old == null) {
+            if ((size + 1) * 2 > keys.length) {
+                grow();
+                i = indexOf(key);
+            }
+            size++;
+        }
+
+        keys[i] = key;
+        values[i] = value;
+        return old;
+    }
+
+    /**
+     *
+     * @param key
+     * @return
+     *          removed value or null if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int i = indexOf(key);
+        V old = (V) values[i];
+        if (old == null)
+            return null;
+
+        // backward shift deletion, keeps probe chains intact without tombstones
+        int mask = keys.length - 1;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (values[j] == null)
+                break;
+
+            int home = hash(keys[j]) & mask;
+            if (i <= j ? (home <= i || home > j) : (home <= i && home > j)) {
+                keys[i] = keys[j];
+                values[i] = values[j];
+                i = j;
+            }
+        }
+
+        values[i] = null;
+        size--;
+        return old;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+
+        keys = new int[oldKeys.length * 2];
+        values = new Object[oldValues.length * 2];
+
+        for (int k = 0; k < oldKeys.length; k++) {
+            if (oldValues[k] != null) {
+                int i = indexOf(oldKeys[k]);
+                keys[i] = oldKeys[k];
+                values[i] = oldValues[k];
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package uk.ac.brighton.uni.ab607.mmorpg.common.object;
+
+import java.util.Arrays;
+
+/**
+ * Binary min heap of primitive longs, used as open list of path searches
+ * with keys (cost << 32 | node), so no objects are created per push
+ */
+/*package-private*/ class LongMinHeap {
+
+    private long[] heap = new long[64];
+    private int size = 0;
+
+    /*package-private*/ void clear() {
+        size = 0;
+    }
+
+    /*package-private*/ boolean isEmpty() {
+        return size == 0;
+    }
+
+    /*package-private*/ void push(long key) {
+        if (size == heap.length)
+            heap = Arrays.copyOf(heap, size * 2);
+
+        int i = size++;
+        while (i > 0) {
+            int p = (i - 1) >> 1;
+            if (heap[p] <= key)
+                break;
+            heap[i] = heap[p];
+            i = p;
+        }
+        heap[i] = key;
+    }
+
+    /*package-private*/ long pop() {
+        long top = heap[0];
+        long last = heap[--size];
+
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size)
+                break;
+            if (child + 1 < size && heap[child + 1] < heap[child])
+                child++;
+            if (last <= heap[child])
+                break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = last;
+
+        return top;
+    }
+}
@@ -0,0 +1,119 @@
+package uk.ac.brighton.uni.ab607.mmorpg.common.object;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import uk.ac.brighton.uni.ab607.mmorpg.common.Sys;
+
+import com.almasb.java.io.ResourceManager;
+
+/**
+ * Cells of a map and everything derived from them, loaded once
+ * and shared by all instances of the map. Nothing here changes after
+ * loading, so instances on different threads can use it without locking
+ */
+public class MapTerrain {
+
+    /**
+     * Maps with more cells than this use hierarchical search
+     */
+    private static final int HIERARCHICAL_PATHFINDING_CELLS = 10000;
+
+    public final String name;
+    public final int width, height;
+
+    /**
+     * Map rows, '1' is a blocked cell
+     */
+    public final List<String> data;
+
+    /**
+     * Bit per cell, index y * width + x, set if cell is walkable
+     */
+    private final long[] walkable;
+
+    private final CellTable freeCells;
+    private final Pathfinder pathfinder;
+
+    /**
+     *
+     * @param name
+     *              map file name
+     */
+    /*package-private*/ MapTerrain(String name) {
+        this.name = name;
+
+        List<String> rows = ResourceManager.loadText(name);
+
+        if (rows == null)
+            Sys.logExceptionAndExit(new Exception("no map data"));
+
+        data = Collections.unmodifiableList(new ArrayList<String>(rows));
+        height = data.size();
+        width = data.get(0).length();
+
+        walkable = new long[(width * height + 63) >>> 6];
+
+        int count = 0;
+        int[] cells = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            String line = data.get(y);
+            for (int x = 0; x < width; x++) {
+                if (line.charAt(x) != '1') {
+                    int cell = y * width + x;
+                    walkable[cell >>> 6] |= 1L << cell;
+                    cells[count++] = cell;
+                }
+            }
+        }
+
+        ArrayList<int[]> areas = new ArrayList<int[]>();
+        areas.add(Arrays.copyOf(cells, count));
+        ArrayList<Integer> weights = new ArrayList<Integer>();
+        weights.add(1);
+        freeCells = new CellTable(areas, weights);
+
+        if (freeCells.size() == 0)
+            Sys.logExceptionAndExit(new Exception("no free cells in map " + name));
+
+        pathfinder = width * height > HIERARCHICAL_PATHFINDING_CELLS
+                ? new HierarchicalPathfinder(data) : new AStarPathfinder(data);
+    }
+
+    /**
+     *
+     * @param x
+     *              cell x
+     * @param y
+     *              cell y
+     * @return
+     *          true if cell is within map and characters can stand on it
+     */
+    public boolean isWalkable(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height)
+            return false;
+
+        int cell = y * width + x;
+        return (walkable[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    /**
+     *
+     * @return
+     *          all walkable cells, packed as y * width + x
+     */
+    /*package-private*/ CellTable getFreeCells() {
+        return freeCells;
+    }
+
+    /**
+     *
+     * @return
+     *          search used by instances of this map unless they replace it
+     */
+    public Pathfinder getPathfinder() {
+        return pathfinder;
+    }
+}
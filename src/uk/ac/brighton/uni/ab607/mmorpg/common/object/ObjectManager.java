@@ -1,8 +1,7 @@
 package uk.ac.brighton.uni.ab607.mmorpg.common.object;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
 import java.util.HashMap;
+import java.util.function.Supplier;
 
 import uk.ac.brighton.uni.ab607.mmorpg.common.Attribute;
 import uk.ac.brighton.uni.ab607.mmorpg.common.Attribute.AttributeInfo;
@@ -19,6 +18,7 @@ import uk.ac.brighton.uni.ab607.mmorpg.common.item.DroppableItem;
 import uk.ac.brighton.uni.ab607.mmorpg.common.item.EquippableItem.Element;
 import uk.ac.brighton.uni.ab607.mmorpg.common.item.EquippableItem.ItemLevel;
 import uk.ac.brighton.uni.ab607.mmorpg.common.item.GameItem;
+import uk.ac.brighton.uni.ab607.mmorpg.common.item.ItemTemplate;
 import uk.ac.brighton.uni.ab607.mmorpg.common.object.Armor.ArmorType;
 import uk.ac.brighton.uni.ab607.mmorpg.common.object.Enemy.EnemyType;
 import uk.ac.brighton.uni.ab607.mmorpg.common.object.Weapon.WeaponType;
@@ -27,10 +27,29 @@ import uk.ac.brighton.uni.ab607.mmorpg.common.request.SkillUseResult;
 
 public class ObjectManager {
 
-    private static HashMap<String, Weapon> defaultWeapons = new HashMap<String, Weapon>();
-    private static HashMap<String, Armor> defaultArmor = new HashMap<String, Armor>();
-    private static HashMap<String, Skill> defaultSkills = new HashMap<String, Skill>();
-    private static HashMap<String, Enemy> defaultEnemies = new HashMap<String, Enemy>();
+    /**
+     * Template IDs are dense ints below this, player runtime IDs
+     * start from it so both fit in the same half of packed IDs
+     */
+    public static final int MAX_TEMPLATES = 1000;
+
+    /**
+     * String IDs are only used where content is authored or saved,
+     * load() gives every template a dense int ID in registration order
+     * which objects, spawns and network packets carry instead
+     */
+    private static HashMap<String, Integer> templateIDs = new HashMap<String, Integer>();
+
+    /**
+     * Factories of game objects by template ID, captured once in load()
+     * so that new objects don't need reflection
+     */
+    private static IntMap<Supplier<Weapon>> weaponFactories = new IntMap<Supplier<Weapon>>();
+    private static IntMap<Supplier<Armor>> armorFactories = new IntMap<Supplier<Armor>>();
+    private static IntMap<Supplier<Skill>> skillFactories = new IntMap<Supplier<Skill>>();
+    private static IntMap<Supplier<Enemy>> enemyFactories = new IntMap<Supplier<Enemy>>();
+    private static IntMap<ItemTemplate> itemTemplates = new IntMap<ItemTemplate>();
+    private static IntMap<String> enemyNames = new IntMap<String>();
     private static HashMap<String, Essence> defaultEssences = new HashMap<String, Essence>();
     private static HashMap<String, GameMap> defaultMaps = new HashMap<String, GameMap>();
 
@@ -39,75 +58,73 @@ public class ObjectManager {
     public static void load() {
         // ARMOR
 
-        addArmor(new Armor(ID.Armor.HAT, "Hat", Desc.Armor.HAT, 10, 13, ArmorType.HELM, 0, 0));    // 5000, matches type enum for easy equip
-        addArmor(new Armor(ID.Armor.CLOTHES, "Clothes", Desc.Armor.CLOTHES, 0, 13, ArmorType.BODY, 0, 0));  // 5001
-        addArmor(new Armor(ID.Armor.SHOES, "Shoes", Desc.Armor.SHOES, 0, 14, ArmorType.SHOES, 0, 0));    // 5002
-        addArmor(new Armor(ID.Armor.CHAINMAL, "Chainmail", Desc.Armor.CHAINMAL, 4, 13, ArmorType.BODY, 15, 5));
+        addArmor(new ArmorTemplate(ID.Armor.HAT, "Hat", Desc.Armor.HAT, 10, 13, ArmorType.HELM, 0, 0));    // 5000, matches type enum for easy equip
+        addArmor(new ArmorTemplate(ID.Armor.CLOTHES, "Clothes", Desc.Armor.CLOTHES, 0, 13, ArmorType.BODY, 0, 0));  // 5001
+        addArmor(new ArmorTemplate(ID.Armor.SHOES, "Shoes", Desc.Armor.SHOES, 0, 14, ArmorType.SHOES, 0, 0));    // 5002
+        addArmor(new ArmorTemplate(ID.Armor.CHAINMAL, "Chainmail", Desc.Armor.CHAINMAL, 4, 13, ArmorType.BODY, 15, 5));
 
-        addArmor(new Armor(ID.Armor.SOUL_BARRIER, "Soul Barrier", Desc.Armor.SOUL_BARRIER, 3, 13,
+        addArmor(new ArmorTemplate(ID.Armor.SOUL_BARRIER, "Soul Barrier", Desc.Armor.SOUL_BARRIER, 3, 13,
                 "Stefos", ItemLevel.UNIQUE, ArmorType.BODY, 10, 50, Element.NEUTRAL, 3, new Rune(Attribute.WILLPOWER, 3)));
 
-        addArmor(new Armor(ID.Armor.DOMOVOI, "Domovoi", Desc.Armor.DOMOVOI, 2, 13,
+        addArmor(new ArmorTemplate(ID.Armor.DOMOVOI, "Domovoi", Desc.Armor.DOMOVOI, 2, 13,
                 "Joe", ItemLevel.UNIQUE, ArmorType.BODY, 15, 30, Element.NEUTRAL, 4, new Rune(Attribute.WILLPOWER, 3)));
 
-        addArmor(new Armor(ID.Armor.SAPPHIRE_LEGION_PLATE_MAIL, "Sapphire Legion Plate Mail", Desc.Armor.SAPPHIRE_LEGION_PLATE_MAIL, 5, 13,
+        addArmor(new ArmorTemplate(ID.Armor.SAPPHIRE_LEGION_PLATE_MAIL, "Sapphire Legion Plate Mail", Desc.Armor.SAPPHIRE_LEGION_PLATE_MAIL, 5, 13,
                 "Oliver", ItemLevel.UNIQUE, ArmorType.BODY, 30, 10, Element.NEUTRAL, 4, new Rune(Attribute.VITALITY, 4)));
 
-        addArmor(new Armor(ID.Armor.THANATOS_BODY_ARMOR, "Thanatos Body Armor", Desc.Armor.THANATOS_BODY_ARMOR, 6, 13,
+        addArmor(new ArmorTemplate(ID.Armor.THANATOS_BODY_ARMOR, "Thanatos Body Armor", Desc.Armor.THANATOS_BODY_ARMOR, 6, 13,
                 "Almas", ItemLevel.EPIC, ArmorType.BODY, 50, 25, Element.EARTH, 4, new Rune(Attribute.VITALITY, 5), new Rune(Attribute.PERCEPTION, 4)));
 
         // WEAPON
 
-        addWeapon(new Weapon(ID.Weapon.HANDS, "Hands", Desc.Weapon.HANDS, 0, 7, WeaponType.MACE, 0));
-        addWeapon(new Weapon(ID.Weapon.IRON_SWORD, "Iron Sword", Desc.Weapon.IRON_SWORD, 0, 5, WeaponType.ONE_H_SWORD, 15));
-        addWeapon(new Weapon(ID.Weapon.KNIFE, "Knife", Desc.Weapon.KNIFE, 0, 6, WeaponType.DAGGER, 5));
-        addWeapon(new Weapon(ID.Weapon.CLAYMORE, "Claymore", Desc.Weapon.CLAYMORE, 10, 5, WeaponType.TWO_H_SWORD, 35));
-        addWeapon(new Weapon(ID.Weapon.BROADSWORD, "Broadsword", Desc.Weapon.BROADSWORD, 11, 5, WeaponType.TWO_H_SWORD, 28));
+        addWeapon(new WeaponTemplate(ID.Weapon.HANDS, "Hands", Desc.Weapon.HANDS, 0, 7, WeaponType.MACE, 0));
+        addWeapon(new WeaponTemplate(ID.Weapon.IRON_SWORD, "Iron Sword", Desc.Weapon.IRON_SWORD, 0, 5, WeaponType.ONE_H_SWORD, 15));
+        addWeapon(new WeaponTemplate(ID.Weapon.KNIFE, "Knife", Desc.Weapon.KNIFE, 0, 6, WeaponType.DAGGER, 5));
+        addWeapon(new WeaponTemplate(ID.Weapon.CLAYMORE, "Claymore", Desc.Weapon.CLAYMORE, 10, 5, WeaponType.TWO_H_SWORD, 35));
+        addWeapon(new WeaponTemplate(ID.Weapon.BROADSWORD, "Broadsword", Desc.Weapon.BROADSWORD, 11, 5, WeaponType.TWO_H_SWORD, 28));
 
-        addWeapon(new Weapon(ID.Weapon.BATTLESWORD,
+        addWeapon(new WeaponTemplate(ID.Weapon.BATTLESWORD,
                 "Battlesword", Desc.Weapon.BATTLESWORD, 12, 5,
                 "Almas", ItemLevel.NORMAL, WeaponType.TWO_H_SWORD, 44, Element.NEUTRAL, 2,
                 new Rune(Attribute.STRENGTH, 2)));
 
-        addWeapon(new Weapon(ID.Weapon.LONGSWORD,
+        addWeapon(new WeaponTemplate(ID.Weapon.LONGSWORD,
                 "Longsword", Desc.Weapon.LONGSWORD, 9, 5,
                 "Almas", ItemLevel.NORMAL, WeaponType.TWO_H_SWORD, 33, Element.NEUTRAL, 2,
                 new Rune(Attribute.DEXTERITY, 2), new Rune(Attribute.AGILITY, 1)));
 
-        addWeapon(new Weapon(ID.Weapon.GETSUGA_TENSHO,
+        addWeapon(new WeaponTemplate(ID.Weapon.GETSUGA_TENSHO,
                 "Getsuga Tensho", Desc.Weapon.GETSUGA_TENSHO, 4, 6,
                 "Matthew", ItemLevel.EPIC, WeaponType.ONE_H_SWORD, 150, Element.NEUTRAL, 4,
                 new Rune(Attribute.STRENGTH, 5), new Rune(Attribute.AGILITY, 4), new Rune(Attribute.DEXTERITY, 4), new Rune(Attribute.LUCK, 1)));
 
-        addWeapon(new Weapon(ID.Weapon.SOUL_REAPER,
+        addWeapon(new WeaponTemplate(ID.Weapon.SOUL_REAPER,
                 "Soul Reaper", Desc.Weapon.SOUL_REAPER, 10, 10,
                 "Sam Bowen", ItemLevel.EPIC, WeaponType.TWO_H_AXE, 170, Element.NEUTRAL, 4,
                 new Rune(Attribute.STRENGTH, 7), new Rune(Attribute.VITALITY, 4), new Rune(Attribute.DEXTERITY, 2)));
 
-        addWeapon(new Weapon(ID.Weapon.GUT_RIPPER,
+        addWeapon(new WeaponTemplate(ID.Weapon.GUT_RIPPER,
                 "The Gut Ripper", Desc.Weapon.GUT_RIPPER, 2, 6,
                 "Tim Snow", ItemLevel.EPIC, WeaponType.DAGGER, 100, Element.NEUTRAL, 4,
                 new Rune(Attribute.AGILITY, 4), new Rune(Attribute.DEXTERITY, 4), new Rune(Attribute.LUCK, 1)));
 
-        addWeapon(new Weapon(ID.Weapon.DRAGON_CLAW,
+        addWeapon(new WeaponTemplate(ID.Weapon.DRAGON_CLAW,
                 "Dragon's Claw", Desc.Weapon.DRAGON_CLAW, 12, 11,
                 "Atheryos", ItemLevel.EPIC, WeaponType.BOW, 130, Element.FIRE, 4,
                 new Rune(Attribute.VITALITY, 3), new Rune(Attribute.WISDOM, 5), new Rune(Attribute.AGILITY, 3)));
 
-        addWeapon(new Weapon(ID.Weapon.FROSTMOURN, "Frostmourn", Desc.Weapon.FROSTMOURN, 8, 25,
+        addWeapon(new WeaponTemplate(ID.Weapon.FROSTMOURN, "Frostmourn", Desc.Weapon.FROSTMOURN, 8, 25,
                 "Stefos", ItemLevel.EPIC, WeaponType.TWO_H_SWORD, 130, Element.WATER, 4,
                 new Rune(Attribute.DEXTERITY, 5), new Rune(Attribute.STRENGTH, 3)));
 
         // SKILLS
 
-        addSkill(new Skill(ID.Skill.Gladiator.BLOODLUST, "Bloodlust", Desc.Skill.Gladiator.BLOODLUST, false, 0.0f) {
+        addSkill(() -> new Skill(ID.Skill.Gladiator.BLOODLUST, "Bloodlust", Desc.Skill.Gladiator.BLOODLUST, false, 0.0f) {
             /**
              *
              */
             private static final long serialVersionUID = 5844145407908548491L;
 
-            private int value = 0;
-
             @Override
             public int getManaCost() {
                 return 0;
@@ -115,14 +132,22 @@ public class ObjectManager {
 
             @Override
             protected void useImpl(GameCharacter caster, GameCharacter target) {
-                caster.addBonusStat(Stat.ATK, -value);
+                // passive, bonus is added when caster's stats are recalculated
+            }
+
+            @Override
+            public void addStatBonus(GameCharacter caster, float[] bonus) {
                 // div 0 shouldn't occur
-                value = (int) (10*level * caster.getTotalStat(Stat.MAX_HP) / (caster.getHP() + 1));
-                caster.addBonusStat(Stat.ATK, value);
+                bonus[Stat.ATK.ordinal()] += (int) (10*level * caster.getTotalStat(Stat.MAX_HP) / (caster.getHP() + 1));
+            }
+
+            @Override
+            public boolean dependsOnHP() {
+                return true;
             }
         });
 
-        addSkill(new Skill(ID.Skill.Gladiator.BASH, "Bash", Desc.Skill.Gladiator.BASH, true, 15.0f) {
+        addSkill(() -> new Skill(ID.Skill.Gladiator.BASH, "Bash", Desc.Skill.Gladiator.BASH, true, 15.0f) {
             /**
              *
              */
@@ -143,7 +168,7 @@ public class ObjectManager {
             }
         });
 
-        addSkill(new Skill(ID.Skill.Warrior.MIGHTY_SWING, "Mighty Swing", Desc.Skill.Warrior.MIGHTY_SWING, true, 15.0f) {
+        addSkill(() -> new Skill(ID.Skill.Warrior.MIGHTY_SWING, "Mighty Swing", Desc.Skill.Warrior.MIGHTY_SWING, true, 15.0f) {
             /**
              *
              */
@@ -163,7 +188,7 @@ public class ObjectManager {
             }
         });
 
-        addSkill(new Skill(ID.Skill.Gladiator.DOUBLE_EDGE, "Double Edge", Desc.Skill.Gladiator.DOUBLE_EDGE, true, 0.0f) {
+        addSkill(() -> new Skill(ID.Skill.Gladiator.DOUBLE_EDGE, "Double Edge", Desc.Skill.Gladiator.DOUBLE_EDGE, true, 0.0f) {
             /**
              *
              */
@@ -184,7 +209,7 @@ public class ObjectManager {
             }
         });
 
-        addSkill(new Skill(ID.Skill.Warrior.ROAR, "Roar", Desc.Skill.Warrior.ROAR, true, 5.0f) {
+        addSkill(() -> new Skill(ID.Skill.Warrior.ROAR, "Roar", Desc.Skill.Warrior.ROAR, true, 5.0f) {
             /**
              *
              */
@@ -214,7 +239,7 @@ public class ObjectManager {
             }
         });
 
-        addSkill(new Skill(ID.Skill.Crusader.LAST_STAND, "Last Stand", Desc.Skill.Crusader.LAST_STAND, true, 60.0f) {
+        addSkill(() -> new Skill(ID.Skill.Crusader.LAST_STAND, "Last Stand", Desc.Skill.Crusader.LAST_STAND, true, 60.0f) {
             /**
              *
              */
@@ -243,7 +268,7 @@ public class ObjectManager {
             }
         });
 
-        addSkill(new Skill(ID.Skill.Gladiator.SHATTER_ARMOR, "Shatter Armor", Desc.Skill.Gladiator.SHATTER_ARMOR, true, 30.0f) {
+        addSkill(() -> new Skill(ID.Skill.Gladiator.SHATTER_ARMOR, "Shatter Armor", Desc.Skill.Gladiator.SHATTER_ARMOR, true, 30.0f) {
             /**
              *
              */
@@ -267,14 +292,12 @@ public class ObjectManager {
             }
         });
 
-        addSkill(new Skill(ID.Skill.Warrior.ARMOR_MASTERY, "Armor Mastery", Desc.Skill.Warrior.ARMOR_MASTERY, false, 0.0f) {
+        addSkill(() -> new Skill(ID.Skill.Warrior.ARMOR_MASTERY, "Armor Mastery", Desc.Skill.Warrior.ARMOR_MASTERY, false, 0.0f) {
             /**
              *
              */
             private static final long serialVersionUID = 8019137126608309704L;
 
-            private int value = 0;
-
             @Override
             public int getManaCost() {
                 return 0;
@@ -282,7 +305,11 @@ public class ObjectManager {
 
             @Override
             protected void useImpl(GameCharacter caster, GameCharacter target) {
-                caster.addBonusStat(Stat.ARM, -value);
+                // passive, bonus is added when caster's stats are recalculated
+            }
+
+            @Override
+            public void addStatBonus(GameCharacter caster, float[] bonus) {
                 float factor = 2.0f;
                 for (Skill skill : caster.getSkills()) {
                     if (skill.id.equals(ID.Skill.Crusader.DIVINE_ARMOR)) {
@@ -291,19 +318,16 @@ public class ObjectManager {
                     }
                 }
 
-                value = (int)(factor * level);
-                caster.addBonusStat(Stat.ARM, value);
+                bonus[Stat.ARM.ordinal()] += (int)(factor * level);
             }
         });
 
-        addSkill(new Skill(ID.Skill.Warrior.WARRIOR_HEART, "Heart of a Warrior", Desc.Skill.Warrior.WARRIOR_HEART, false, 0.0f) {
+        addSkill(() -> new Skill(ID.Skill.Warrior.WARRIOR_HEART, "Heart of a Warrior", Desc.Skill.Warrior.WARRIOR_HEART, false, 0.0f) {
             /**
              *
              */
             private static final long serialVersionUID = -9161209014480342120L;
 
-            private int value = 0;
-
             @Override
             public int getManaCost() {
                 return 0;
@@ -311,7 +335,11 @@ public class ObjectManager {
 
             @Override
             protected void useImpl(GameCharacter caster, GameCharacter target) {
-                caster.addBonusStat(Stat.MAX_HP, -value);
+                // passive, bonus is added when caster's stats are recalculated
+            }
+
+            @Override
+            public void addStatBonus(GameCharacter caster, float[] bonus) {
                 float factor = 0.025f;
                 for (Skill skill : caster.getSkills()) {
                     if (skill.id.equals(ID.Skill.Crusader.FAITH)) {
@@ -320,15 +348,13 @@ public class ObjectManager {
                     }
                 }
 
-
-                value = Math.round(factor * level * caster.getBaseStat(Stat.MAX_HP));
-                caster.addBonusStat(Stat.MAX_HP, value);
+                bonus[Stat.MAX_HP.ordinal()] += Math.round(factor * level * caster.getBaseStat(Stat.MAX_HP));
             }
         });
 
         // MAGE SKILL SET
 
-        addSkill(new Skill(ID.Skill.Mage.AIR_SPEAR, "Air Spear", Desc.Skill.Mage.AIR_SPEAR, true, 9.0f) {
+        addSkill(() -> new Skill(ID.Skill.Mage.AIR_SPEAR, "Air Spear", Desc.Skill.Mage.AIR_SPEAR, true, 9.0f) {
             /**
              *
              */
@@ -348,7 +374,7 @@ public class ObjectManager {
             }
         });
 
-        addSkill(new Skill(ID.Skill.Wizard.AMPLIFY_MAGIC, "Amplify Magic", Desc.Skill.Wizard.AMPLIFY_MAGIC, true, 30.0f) {
+        addSkill(() -> new Skill(ID.Skill.Wizard.AMPLIFY_MAGIC, "Amplify Magic", Desc.Skill.Wizard.AMPLIFY_MAGIC, true, 30.0f) {
             /**
              *
              */
@@ -377,14 +403,12 @@ public class ObjectManager {
             }
         });
 
-        addSkill(new Skill(ID.Skill.Enchanter.ASTRAL_PROTECTION, "Astral Protection", Desc.Skill.Enchanter.ASTRAL_PROTECTION, false, 0.0f) {
+        addSkill(() -> new Skill(ID.Skill.Enchanter.ASTRAL_PROTECTION, "Astral Protection", Desc.Skill.Enchanter.ASTRAL_PROTECTION, false, 0.0f) {
             /**
              *
              */
             private static final long serialVersionUID = 8691650266711866295L;
 
-            private int value = 0;
-
             @Override
             public int getManaCost() {
                 return 0;
@@ -392,13 +416,16 @@ public class ObjectManager {
 
             @Override
             protected void useImpl(GameCharacter caster, GameCharacter target) {
-                caster.addBonusStat(Stat.MDEF, -value);
-                value = level * 2;
-                caster.addBonusStat(Stat.MDEF, value);
+                // passive, bonus is added when caster's stats are recalculated
+            }
+
+            @Override
+            public void addStatBonus(GameCharacter caster, float[] bonus) {
+                bonus[Stat.MDEF.ordinal()] += level * 2;
             }
         });
 
-        addSkill(new Skill(ID.Skill.Mage.EARTH_BOULDER, "Earth Boulder", Desc.Skill.Mage.EARTH_BOULDER, true, 15.0f) {
+        addSkill(() -> new Skill(ID.Skill.Mage.EARTH_BOULDER, "Earth Boulder", Desc.Skill.Mage.EARTH_BOULDER, true, 15.0f) {
             /**
              *
              */
@@ -418,7 +445,7 @@ public class ObjectManager {
             }
         });
 
-        addSkill(new Skill(ID.Skill.Mage.FIREBALL, "Fireball", Desc.Skill.Mage.FIREBALL, true, 9.0f) {
+        addSkill(() -> new Skill(ID.Skill.Mage.FIREBALL, "Fireball", Desc.Skill.Mage.FIREBALL, true, 9.0f) {
             /**
              *
              */
@@ -438,7 +465,7 @@ public class ObjectManager {
             }
         });
 
-        addSkill(new Skill(ID.Skill.Mage.ICE_SHARD, "Ice Shard", Desc.Skill.Mage.ICE_SHARD, true, 9.0f) {
+        addSkill(() -> new Skill(ID.Skill.Mage.ICE_SHARD, "Ice Shard", Desc.Skill.Mage.ICE_SHARD, true, 9.0f) {
             /**
              *
              */
@@ -458,14 +485,12 @@ public class ObjectManager {
             }
         });
 
-        addSkill(new Skill(ID.Skill.Wizard.MAGIC_MASTERY, "Magic Mastery", Desc.Skill.Wizard.MAGIC_MASTERY, false, 0.0f) {
+        addSkill(() -> new Skill(ID.Skill.Wizard.MAGIC_MASTERY, "Magic Mastery", Desc.Skill.Wizard.MAGIC_MASTERY, false, 0.0f) {
             /**
              *
              */
             private static final long serialVersionUID = 9020149732268399438L;
 
-            private int value = 0;
-
             @Override
             public int getManaCost() {
                 return 0;
@@ -473,15 +498,17 @@ public class ObjectManager {
 
             @Override
             protected void useImpl(GameCharacter caster, GameCharacter target) {
-                caster.addBonusAttribute(Attribute.INTELLECT, -value);
-                caster.addBonusAttribute(Attribute.WILLPOWER, -value);
-                value = level * 2;
-                caster.addBonusAttribute(Attribute.INTELLECT, value);
-                caster.addBonusAttribute(Attribute.WILLPOWER, value);
+                // passive, bonus is added when caster's stats are recalculated
+            }
+
+            @Override
+            public void addAttributeBonus(GameCharacter caster, int[] bonus) {
+                bonus[Attribute.INTELLECT.ordinal()] += level * 2;
+                bonus[Attribute.WILLPOWER.ordinal()] += level * 2;
             }
         });
 
-        addSkill(new Skill(ID.Skill.Enchanter.MAGIC_SHIELD, "Magic Shield", Desc.Skill.Enchanter.MAGIC_SHIELD, true, 60.0f) {
+        addSkill(() -> new Skill(ID.Skill.Enchanter.MAGIC_SHIELD, "Magic Shield", Desc.Skill.Enchanter.MAGIC_SHIELD, true, 60.0f) {
             /**
              *
              */
@@ -510,7 +537,7 @@ public class ObjectManager {
             }
         });
 
-        addSkill(new Skill(ID.Skill.Wizard.MENTAL_STRIKE, "Mental Strike", Desc.Skill.Wizard.MENTAL_STRIKE, true, 20.0f) {
+        addSkill(() -> new Skill(ID.Skill.Wizard.MENTAL_STRIKE, "Mental Strike", Desc.Skill.Wizard.MENTAL_STRIKE, true, 20.0f) {
 
             /**
              *
@@ -533,7 +560,7 @@ public class ObjectManager {
 
         // SCOUT SKILL SET
 
-        addSkill(new Skill(ID.Skill.Rogue.CRITICAL_STRIKE, "Critical Strike", Desc.Skill.Rogue.CRITICAL_STRIKE, true, 20.0f) {
+        addSkill(() -> new Skill(ID.Skill.Rogue.CRITICAL_STRIKE, "Critical Strike", Desc.Skill.Rogue.CRITICAL_STRIKE, true, 20.0f) {
             /**
              *
              */
@@ -555,7 +582,7 @@ public class ObjectManager {
             }
         });
 
-        addSkill(new Skill(ID.Skill.Ranger.PINPOINT_WEAKNESS, "Pinpoint Weakness", Desc.Skill.Ranger.PINPOINT_WEAKNESS, true, 15.0f) {
+        addSkill(() -> new Skill(ID.Skill.Ranger.PINPOINT_WEAKNESS, "Pinpoint Weakness", Desc.Skill.Ranger.PINPOINT_WEAKNESS, true, 15.0f) {
             /**
              *
              */
@@ -579,7 +606,7 @@ public class ObjectManager {
             }
         });
 
-        addSkill(new Skill(ID.Skill.Rogue.DOUBLE_STRIKE, "Double Strike", Desc.Skill.Rogue.DOUBLE_STRIKE, true, 8.0f) {
+        addSkill(() -> new Skill(ID.Skill.Rogue.DOUBLE_STRIKE, "Double Strike", Desc.Skill.Rogue.DOUBLE_STRIKE, true, 8.0f) {
             /**
              *
              */
@@ -605,14 +632,12 @@ public class ObjectManager {
             }
         });
 
-        addSkill(new Skill(ID.Skill.Scout.EXPERIENCED_FIGHTER, "Experienced Fighter", Desc.Skill.Scout.EXPERIENCED_FIGHTER, false, 0.0f) {
+        addSkill(() -> new Skill(ID.Skill.Scout.EXPERIENCED_FIGHTER, "Experienced Fighter", Desc.Skill.Scout.EXPERIENCED_FIGHTER, false, 0.0f) {
             /**
              *
              */
             private static final long serialVersionUID = 2024648263069876L;
 
-            private int value = 0;
-
             @Override
             public int getManaCost() {
                 return 0;
@@ -620,15 +645,17 @@ public class ObjectManager {
 
             @Override
             protected void useImpl(GameCharacter caster, GameCharacter target) {
-                caster.addBonusAttribute(Attribute.AGILITY, -value);
-                caster.addBonusAttribute(Attribute.DEXTERITY, -value);
-                value = level * 2;
-                caster.addBonusAttribute(Attribute.AGILITY, value);
-                caster.addBonusAttribute(Attribute.DEXTERITY, value);
+                // passive, bonus is added when caster's stats are recalculated
+            }
+
+            @Override
+            public void addAttributeBonus(GameCharacter caster, int[] bonus) {
+                bonus[Attribute.AGILITY.ordinal()] += level * 2;
+                bonus[Attribute.DEXTERITY.ordinal()] += level * 2;
             }
         });
 
-        addSkill(new Skill(ID.Skill.Rogue.SHAMELESS, "Shameless", Desc.Skill.Rogue.SHAMELESS, true, 0.0f) {
+        addSkill(() -> new Skill(ID.Skill.Rogue.SHAMELESS, "Shameless", Desc.Skill.Rogue.SHAMELESS, true, 0.0f) {
             /**
              *
              */
@@ -653,14 +680,12 @@ public class ObjectManager {
             }
         });
 
-        addSkill(new Skill(ID.Skill.Scout.WEAPON_MASTERY, "Weapon Mastery", Desc.Skill.Scout.WEAPON_MASTERY, false, 0.0f) {
+        addSkill(() -> new Skill(ID.Skill.Scout.WEAPON_MASTERY, "Weapon Mastery", Desc.Skill.Scout.WEAPON_MASTERY, false, 0.0f) {
             /**
              *
              */
             private static final long serialVersionUID = -6762381875332894326L;
 
-            private int value = 0;
-
             @Override
             public int getManaCost() {
                 return 0;
@@ -668,13 +693,16 @@ public class ObjectManager {
 
             @Override
             protected void useImpl(GameCharacter caster, GameCharacter target) {
-                caster.addBonusStat(Stat.ATK, -value);
-                value = level * 7;
-                caster.addBonusStat(Stat.ATK, value);
+                // passive, bonus is added when caster's stats are recalculated
+            }
+
+            @Override
+            public void addStatBonus(GameCharacter caster, float[] bonus) {
+                bonus[Stat.ATK.ordinal()] += level * 7;
             }
         });
 
-        addSkill(new Skill(ID.Skill.Scout.POISON_ATTACK, "Poison Attack", Desc.Skill.Scout.POISON_ATTACK, true, 30.0f) {
+        addSkill(() -> new Skill(ID.Skill.Scout.POISON_ATTACK, "Poison Attack", Desc.Skill.Scout.POISON_ATTACK, true, 30.0f) {
             /**
              *
              */
@@ -698,7 +726,7 @@ public class ObjectManager {
             }
         });
 
-        addSkill(new Skill(ID.Skill.Scout.TRICK_ATTACK, "Throw Dagger", Desc.Skill.Scout.TRICK_ATTACK, true, 20.0f) {
+        addSkill(() -> new Skill(ID.Skill.Scout.TRICK_ATTACK, "Throw Dagger", Desc.Skill.Scout.TRICK_ATTACK, true, 20.0f) {
             /**
              *
              */
@@ -723,7 +751,7 @@ public class ObjectManager {
             }
         });
 
-        addSkill(new Skill(ID.Skill.Rogue.TRIPLE_STRIKE, "Triple Strike", Desc.Skill.Rogue.TRIPLE_STRIKE, true, 40.0f) {
+        addSkill(() -> new Skill(ID.Skill.Rogue.TRIPLE_STRIKE, "Triple Strike", Desc.Skill.Rogue.TRIPLE_STRIKE, true, 40.0f) {
             /**
              *
              */
@@ -749,7 +777,7 @@ public class ObjectManager {
             }
         });
 
-        addSkill(new Skill(ID.Skill.Crusader.HOLY_LIGHT, "Holy Light", Desc.Skill.Crusader.HOLY_LIGHT, true, 20.0f) {
+        addSkill(() -> new Skill(ID.Skill.Crusader.HOLY_LIGHT, "Holy Light", Desc.Skill.Crusader.HOLY_LIGHT, true, 20.0f) {
             /**
              *
              */
@@ -772,7 +800,7 @@ public class ObjectManager {
             }
         });
 
-        addSkill(new Skill(ID.Skill.Crusader.PRECISION_STRIKE, "Precision Strike", Desc.Skill.Crusader.PRECISION_STRIKE, true, 20.0f) {
+        addSkill(() -> new Skill(ID.Skill.Crusader.PRECISION_STRIKE, "Precision Strike", Desc.Skill.Crusader.PRECISION_STRIKE, true, 20.0f) {
             /**
              *
              */
@@ -792,7 +820,7 @@ public class ObjectManager {
             }
         });
 
-        addSkill(new Skill(ID.Skill.Crusader.DIVINE_ARMOR, "Divine Armor", Desc.Skill.Crusader.DIVINE_ARMOR, false, 0.0f) {
+        addSkill(() -> new Skill(ID.Skill.Crusader.DIVINE_ARMOR, "Divine Armor", Desc.Skill.Crusader.DIVINE_ARMOR, false, 0.0f) {
             /**
              *
              */
@@ -809,7 +837,7 @@ public class ObjectManager {
             }
         });
 
-        addSkill(new Skill(ID.Skill.Crusader.FAITH, "Faith", Desc.Skill.Crusader.FAITH, false, 0.0f) {
+        addSkill(() -> new Skill(ID.Skill.Crusader.FAITH, "Faith", Desc.Skill.Crusader.FAITH, false, 0.0f) {
             /**
              *
              */
@@ -826,7 +854,7 @@ public class ObjectManager {
             }
         });
 
-        addSkill(new Skill(ID.Skill.Gladiator.ENDURANCE, "Endurance", Desc.Skill.Gladiator.ENDURANCE, true, 40.0f) {
+        addSkill(() -> new Skill(ID.Skill.Gladiator.ENDURANCE, "Endurance", Desc.Skill.Gladiator.ENDURANCE, true, 40.0f) {
             /**
              *
              */
@@ -854,7 +882,7 @@ public class ObjectManager {
             }
         });
 
-        addSkill(new Skill(ID.Skill.Wizard.THUNDERBOLT_FIRESTORM, "Thunderbolt Firestorm", Desc.Skill.Wizard.THUNDERBOLT_FIRESTORM, true, 40.0f) {
+        addSkill(() -> new Skill(ID.Skill.Wizard.THUNDERBOLT_FIRESTORM, "Thunderbolt Firestorm", Desc.Skill.Wizard.THUNDERBOLT_FIRESTORM, true, 40.0f) {
             /**
              *
              */
@@ -875,7 +903,7 @@ public class ObjectManager {
             }
         });
 
-        addSkill(new Skill(ID.Skill.Wizard.ICICLE_AVALANCHE, "Icicle Avalanche", Desc.Skill.Wizard.ICICLE_AVALANCHE, true, 40.0f) {
+        addSkill(() -> new Skill(ID.Skill.Wizard.ICICLE_AVALANCHE, "Icicle Avalanche", Desc.Skill.Wizard.ICICLE_AVALANCHE, true, 40.0f) {
             /**
              *
              */
@@ -896,7 +924,7 @@ public class ObjectManager {
             }
         });
 
-        addSkill(new Skill(ID.Skill.Enchanter.MANA_BURN, "Mana Burn", Desc.Skill.Enchanter.MANA_BURN, true, 20.0f) {
+        addSkill(() -> new Skill(ID.Skill.Enchanter.MANA_BURN, "Mana Burn", Desc.Skill.Enchanter.MANA_BURN, true, 20.0f) {
             /**
              *
              */
@@ -917,7 +945,7 @@ public class ObjectManager {
             }
         });
 
-        addSkill(new Skill(ID.Skill.Enchanter.CURSE_OF_WITCHCRAFT, "Curse of Witchcraft", Desc.Skill.Enchanter.CURSE_OF_WITCHCRAFT, true, 20.0f) {
+        addSkill(() -> new Skill(ID.Skill.Enchanter.CURSE_OF_WITCHCRAFT, "Curse of Witchcraft", Desc.Skill.Enchanter.CURSE_OF_WITCHCRAFT, true, 20.0f) {
             /**
              *
              */
@@ -936,7 +964,7 @@ public class ObjectManager {
             }
         });
 
-        addSkill(new Skill(ID.Skill.Enchanter.MIND_BLAST, "Mind Blast", Desc.Skill.Enchanter.MIND_BLAST, true, 20.0f) {
+        addSkill(() -> new Skill(ID.Skill.Enchanter.MIND_BLAST, "Mind Blast", Desc.Skill.Enchanter.MIND_BLAST, true, 20.0f) {
             /**
              *
              */
@@ -953,7 +981,7 @@ public class ObjectManager {
             }
         });
 
-        addSkill(new Skill(ID.Skill.Rogue.FIVE_FINGER_DEATH_PUNCH, "Five Finger Death Punch", Desc.Skill.Rogue.FIVE_FINGER_DEATH_PUNCH, true, 35.0f) {
+        addSkill(() -> new Skill(ID.Skill.Rogue.FIVE_FINGER_DEATH_PUNCH, "Five Finger Death Punch", Desc.Skill.Rogue.FIVE_FINGER_DEATH_PUNCH, true, 35.0f) {
             /**
              *
              */
@@ -973,7 +1001,7 @@ public class ObjectManager {
             }
         });
 
-        addSkill(new Skill(ID.Skill.Ranger.BULLSEYE, "Bullseye", Desc.Skill.Ranger.BULLSEYE, true, 60.0f) {
+        addSkill(() -> new Skill(ID.Skill.Ranger.BULLSEYE, "Bullseye", Desc.Skill.Ranger.BULLSEYE, true, 60.0f) {
             /**
              *
              */
@@ -993,14 +1021,12 @@ public class ObjectManager {
             }
         });
 
-        addSkill(new Skill(ID.Skill.Ranger.EAGLE_EYE, "Eagle Eye", Desc.Skill.Ranger.EAGLE_EYE, false, 0.0f) {
+        addSkill(() -> new Skill(ID.Skill.Ranger.EAGLE_EYE, "Eagle Eye", Desc.Skill.Ranger.EAGLE_EYE, false, 0.0f) {
             /**
              *
              */
             private static final long serialVersionUID = 7005439875094828368L;
 
-            private int value = 0;
-
             @Override
             public int getManaCost() {
                 return 0;
@@ -1008,13 +1034,16 @@ public class ObjectManager {
 
             @Override
             protected void useImpl(GameCharacter caster, GameCharacter target) {
-                caster.addBonusStat(Stat.ATK, -value);
-                value = (int)(caster.getTotalAttribute(Attribute.DEXTERITY) * level * 0.1f);
-                caster.addBonusStat(Stat.ATK, value);
+                // passive, bonus is added when caster's stats are recalculated
+            }
+
+            @Override
+            public void addStatBonus(GameCharacter caster, float[] bonus) {
+                bonus[Stat.ATK.ordinal()] += (int)(caster.getTotalAttribute(Attribute.DEXTERITY) * level * 0.1f);
             }
         });
 
-        addSkill(new Skill(ID.Skill.Ranger.ENCHANTED_ARROW, "Enchanted Arrows", Desc.Skill.Ranger.ENCHANTED_ARROW, true, 35.0f) {
+        addSkill(() -> new Skill(ID.Skill.Ranger.ENCHANTED_ARROW, "Enchanted Arrows", Desc.Skill.Ranger.ENCHANTED_ARROW, true, 35.0f) {
             /**
              *
              */
@@ -1034,7 +1063,7 @@ public class ObjectManager {
             }
         });
 
-        addSkill(new Skill(ID.Skill.Ranger.FAST_REFLEXES, "Fast Reflexes", Desc.Skill.Ranger.FAST_REFLEXES, true, 35.0f) {
+        addSkill(() -> new Skill(ID.Skill.Ranger.FAST_REFLEXES, "Fast Reflexes", Desc.Skill.Ranger.FAST_REFLEXES, true, 35.0f) {
             /**
              *
              */
@@ -1089,20 +1118,57 @@ public class ObjectManager {
                 new SpawnInfo(ID.Enemy.MINOR_WATER_SPIRIT, 5)));
     }
 
-    private static void addArmor(Armor armor) {
-        defaultArmor.put(armor.id, armor);
+    /**
+     *
+     * @param id
+     *              authored template ID
+     * @return
+     *          template ID assigned to it, same one if called again
+     */
+    private static int register(String id) {
+        Integer templateID = templateIDs.get(id);
+        if (templateID != null)
+            return templateID;
+
+        if (templateIDs.size() == MAX_TEMPLATES)
+            throw new IllegalStateException("Too many templates, max " + MAX_TEMPLATES);
+
+        templateIDs.put(id, templateIDs.size());
+        return templateIDs.size() - 1;
     }
 
-    private static void addWeapon(Weapon weapon) {
-        defaultWeapons.put(weapon.id, weapon);
+    /**
+     * Items of one template share it, new items only
+     * carry per item state, e.g. refine level
+     *
+     * @param template
+     */
+    private static void addArmor(ArmorTemplate template) {
+        template.setTemplateID(register(template.id));
+        itemTemplates.put(template.getTemplateID(), template);
+        armorFactories.put(template.getTemplateID(), () -> new Armor(template));
     }
 
-    private static void addSkill(Skill skill) {
-        defaultSkills.put(skill.id, skill);
+    private static void addWeapon(WeaponTemplate template) {
+        template.setTemplateID(register(template.id));
+        itemTemplates.put(template.getTemplateID(), template);
+        weaponFactories.put(template.getTemplateID(), () -> new Weapon(template));
+    }
+
+    /**
+     * Skills are subclassed per skill, so the factory creates
+     * the skill itself rather than copying a prototype
+     *
+     * @param factory
+     */
+    private static void addSkill(Supplier<Skill> factory) {
+        skillFactories.put(register(factory.get().id), factory);
     }
 
     private static void addEnemy(Enemy enemy) {
-        defaultEnemies.put(enemy.id, enemy);
+        enemy.setTemplateID(register(enemy.id));
+        enemyFactories.put(enemy.getTemplateID(), () -> new Enemy(enemy));
+        enemyNames.put(enemy.getTemplateID(), enemy.name);
     }
 
     private static void addEssence(Essence e) {
@@ -1113,43 +1179,75 @@ public class ObjectManager {
         defaultMaps.put(m.name, m);
     }
 
+    /**
+     *
+     * @param id
+     *              authored template ID, e.g. from {@link ID}
+     * @return
+     *          dense template ID or -1 if there is no such template
+     */
+    public static int getTemplateID(String id) {
+        Integer templateID = templateIDs.get(id);
+        return templateID != null ? templateID : -1;
+    }
+
     public static Skill getSkillByID(String id) {
-        if (defaultSkills.containsKey(id)) {
-            Skill sk = defaultSkills.get(id);
-            Constructor<? extends Skill> c;
-            try {
-                c = sk.getClass().getDeclaredConstructor(String.class, String.class, String.class, Boolean.class, Float.class);
-                return c.newInstance(sk.id, sk.name, sk.description, sk.active, sk.skillCooldown);
-            }
-            catch (NoSuchMethodException | SecurityException | InstantiationException
-                    | IllegalAccessException | IllegalArgumentException
-                    | InvocationTargetException e) {
-                e.printStackTrace();
-            }
-        }
+        return getSkillByID(getTemplateID(id));
+    }
 
-        return null;
+    public static Skill getSkillByID(int templateID) {
+        return create(skillFactories, templateID);
     }
 
     public static Armor getArmorByID(String id) {
-        return defaultArmor.containsKey(id) ? new Armor(defaultArmor.get(id)) : null;
+        return create(armorFactories, getTemplateID(id));
     }
 
     public static Weapon getWeaponByID(String id) {
-        return defaultWeapons.containsKey(id) ? new Weapon(defaultWeapons.get(id)) : null;
+        return create(weaponFactories, getTemplateID(id));
     }
 
     public static Enemy getEnemyByID(String id) {
-        return defaultEnemies.containsKey(id) ? new Enemy(defaultEnemies.get(id)) : null;
+        return getEnemyByID(getTemplateID(id));
+    }
+
+    public static Enemy getEnemyByID(int templateID) {
+        return create(enemyFactories, templateID);
+    }
+
+    /**
+     *
+     * @param templateID
+     * @return
+     *          name of the enemy template without creating an enemy,
+     *          or null if template ID isn't an enemy
+     */
+    public static String getEnemyName(int templateID) {
+        return enemyNames.get(templateID);
+    }
+
+    private static <T> T create(IntMap<Supplier<T>> factories, int templateID) {
+        Supplier<T> factory = factories.get(templateID);
+        return factory != null ? factory.get() : null;
     }
 
     public static GameItem getItemByID(String id) {
-        if (id.startsWith("5"))
-            return getArmorByID(id);
-        if (id.startsWith("4"))
-            return getWeaponByID(id);
+        return getItemByID(getTemplateID(id));
+    }
+
+    /**
+     *
+     * @param templateID
+     * @return
+     *          shared data of the item template or null if there is none
+     */
+    public static ItemTemplate getItemTemplate(int templateID) {
+        return itemTemplates.get(templateID);
+    }
 
-        return null;
+    public static GameItem getItemByID(int templateID) {
+        Weapon weapon = create(weaponFactories, templateID);
+        return weapon != null ? weapon : create(armorFactories, templateID);
     }
 
     public static Essence getEssenceByID(String id) {
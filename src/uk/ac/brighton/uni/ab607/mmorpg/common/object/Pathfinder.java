@@ -0,0 +1,68 @@
+package uk.ac.brighton.uni.ab607.mmorpg.common.object;
+
+/**
+ * Finds paths between cells of a map, 4 directions.
+ * Each map picks the implementation that suits its size
+ */
+public interface Pathfinder {
+
+    /**
+     * Remaining cells of a path, next cell first.
+     * Does not include the start cell, the last cell is the target
+     */
+    public static class Path {
+        private final int[] cells;
+        private final int width;
+        private int index = 0;
+
+        public final int targetX, targetY;
+
+        /*package-private*/ Path(int[] cells, int width, int targetX, int targetY) {
+            this.cells = cells;
+            this.width = width;
+            this.targetX = targetX;
+            this.targetY = targetY;
+        }
+
+        public boolean isEmpty() {
+            return index >= cells.length;
+        }
+
+        /**
+         *
+         * @return
+         *          number of cells left
+         */
+        public int length() {
+            return cells.length - index;
+        }
+
+        public int getNextX() {
+            return cells[index] % width;
+        }
+
+        public int getNextY() {
+            return cells[index] / width;
+        }
+
+        /**
+         * Drops the next cell, call when it has been reached
+         */
+        public void advance() {
+            index++;
+        }
+    }
+
+    public boolean isWalkable(int x, int y);
+
+    /**
+     *
+     * @param startX
+     * @param startY
+     * @param targetX
+     * @param targetY
+     * @return
+     *          path, empty if target is blocked or can't be reached
+     */
+    public Path findPath(int startX, int startY, int targetX, int targetY);
+}
@@ -64,6 +64,37 @@ public abstract class Skill implements java.io.Serializable {
      */
     protected abstract void useImpl(GameCharacter caster, GameCharacter target);
 
+    /**
+     * Passive skills add their attribute bonuses here instead of being used.
+     * Called when caster's stats are recalculated
+     *
+     * @param caster
+     * @param bonus
+     *              attribute bonuses of caster's passive skills
+     */
+    public void addAttributeBonus(GameCharacter caster, int[] bonus) {
+    }
+
+    /**
+     * Passive skills add their stat bonuses here, called after
+     * caster's stats and attributes are recalculated
+     *
+     * @param caster
+     * @param bonus
+     *              stat bonuses of caster's passive skills
+     */
+    public void addStatBonus(GameCharacter caster, float[] bonus) {
+    }
+
+    /**
+     *
+     * @return
+     *          true if bonus of passive skill changes with caster's HP
+     */
+    public boolean dependsOnHP() {
+        return false;
+    }
+
     public boolean levelUp() {
         if (level < MAX_LEVEL) {
             level++;
@@ -84,8 +115,12 @@ public abstract class Skill implements java.io.Serializable {
         return currentCooldown;
     }
 
-    public void reduceCurrentCooldown(float value) {
-        currentCooldown = Math.max(currentCooldown - value, 0);
+    /**
+     * Called by caster's cooldown timer, cooldown stays
+     * at its full value until then
+     */
+    public void endCooldown() {
+        currentCooldown = 0;
     }
 
     public void putOnCooldown() {
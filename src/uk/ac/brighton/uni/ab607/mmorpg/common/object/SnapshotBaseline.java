@@ -0,0 +1,192 @@
+package uk.ac.brighton.uni.ab607.mmorpg.common.object;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import uk.ac.brighton.uni.ab607.mmorpg.common.GameCharacter;
+import uk.ac.brighton.uni.ab607.mmorpg.common.request.EntityDelta;
+
+/**
+ * What one client is known to have received about the entities
+ * in its vision, so that only changes need to be sent
+ *
+ * Since packets may be lost, the server periodically sends a full
+ * frame and then resets the baseline to what that frame contained
+ *
+ * Usage: {@link #begin()}, {@link #add(GameCharacter, ByteBuffer)}
+ * for every visible entity, {@link #end(ByteBuffer)}
+ *
+ * Entries are kept in an open addressing table of primitive arrays
+ * keyed by packed IDs, so steady state frames allocate nothing
+ */
+public class SnapshotBaseline {
+
+    private static final int EMPTY = 0;
+
+    private int[] keys = new int[64];
+    private int[] xys = new int[64];
+    private int[] spriteIDs = new int[64];
+    private byte[] placeDirs = new byte[64];
+    private long[] frames = new long[64];
+
+    private int size = 0;
+    private long frame = 0;
+
+    public void begin() {
+        frame++;
+    }
+
+    /**
+     * Records visible entity and writes what changed
+     * since last frame
+     *
+     * @param ch
+     *              entity in vision
+     * @param out
+     *              where to write the delta entry, null to only record
+     */
+    public void add(GameCharacter ch, ByteBuffer out) {
+        int ids = ch.getPackedIDs();
+        int xy = ch.getPackedXY();
+        int spriteID = ch.getSpriteID();
+        byte placeDir = ch.getPackedPlaceDir();
+
+        int i = indexOf(ids);
+        int flags = 0;
+
+        if (keys[i] == EMPTY) {
+            if ((size + 1) * 2 > keys.length) {
+                grow();
+                i = indexOf(ids);
+            }
+
+            keys[i] = ids;
+            size++;
+            flags = EntityDelta.ENTER | EntityDelta.ALL_FIELDS;
+        }
+        else {
+            if (xys[i] != xy)
+                flags |= EntityDelta.XY;
+            if (placeDirs[i] != placeDir)
+                flags |= EntityDelta.PLACE_DIR;
+            if (spriteIDs[i] != spriteID)
+                flags |= EntityDelta.SPRITE;
+        }
+
+        xys[i] = xy;
+        spriteIDs[i] = spriteID;
+        placeDirs[i] = placeDir;
+        frames[i] = frame;
+
+        if (flags != 0 && out != null)
+            EntityDelta.write(out, flags, ids, xy, placeDir, spriteID);
+    }
+
+    /**
+     * Drops entities that were not added this frame
+     * and writes leave entries for them
+     *
+     * @param out
+     *              where to write leave entries, null to only drop
+     */
+    public void end(ByteBuffer out) {
+        int i = 0;
+        while (i < keys.length) {
+            if (keys[i] != EMPTY && frames[i] != frame) {
+                if (out != null)
+                    EntityDelta.write(out, EntityDelta.LEAVE, keys[i], 0, (byte)0, 0);
+
+                // removal shifts a later entry into i, so check i again
+                remove(i);
+            }
+            else {
+                i++;
+            }
+        }
+    }
+
+    /**
+     *
+     * @return
+     *          number of entities client is known to have
+     */
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    /**
+     * Packed IDs are never 0 since runtime IDs start from 1
+     *
+     * @return
+     *          slot of ids or empty slot where it should go
+     */
+    private int indexOf(int ids) {
+        int mask = keys.length - 1;
+        int i = hash(ids) & mask;
+        while (keys[i] != EMPTY && keys[i] != ids)
+            i = (i + 1) & mask;
+
+        return i;
+    }
+
+    private static int hash(int ids) {
+        int h = ids * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Backward shift deletion, keeps probe chains intact without tombstones
+     */
+    private void remove(int i) {
+        int mask = keys.length - 1;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (keys[j] == EMPTY)
+                break;
+
+            int home = hash(keys[j]) & mask;
+            // move j into i if its home slot is not in (i, j]
+            if (i <= j ? (home <= i || home > j) : (home <= i && home > j)) {
+                keys[i] = keys[j];
+                xys[i] = xys[j];
+                spriteIDs[i] = spriteIDs[j];
+                placeDirs[i] = placeDirs[j];
+                frames[i] = frames[j];
+                i = j;
+            }
+        }
+
+        keys[i] = EMPTY;
+        size--;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys, oldXYs = xys, oldSpriteIDs = spriteIDs;
+        byte[] oldPlaceDirs = placeDirs;
+        long[] oldFrames = frames;
+
+        int capacity = oldKeys.length * 2;
+        keys = new int[capacity];
+        xys = new int[capacity];
+        spriteIDs = new int[capacity];
+        placeDirs = new byte[capacity];
+        frames = new long[capacity];
+
+        for (int k = 0; k < oldKeys.length; k++) {
+            if (oldKeys[k] != EMPTY) {
+                int i = indexOf(oldKeys[k]);
+                keys[i] = oldKeys[k];
+                xys[i] = oldXYs[k];
+                spriteIDs[i] = oldSpriteIDs[k];
+                placeDirs[i] = oldPlaceDirs[k];
+                frames[i] = oldFrames[k];
+            }
+        }
+    }
+}
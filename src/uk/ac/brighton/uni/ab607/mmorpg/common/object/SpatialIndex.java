@@ -0,0 +1,166 @@
+package uk.ac.brighton.uni.ab607.mmorpg.common.object;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * Uniform grid of buckets which keeps objects by their position
+ * on the map, so that a rectangle query only visits the cells
+ * it overlaps rather than every object on the map
+ *
+ * Coordinates are in pixels, same as {@link uk.ac.brighton.uni.ab607.mmorpg.common.GameCharacter#getX()}
+ *
+ * @param <T>
+ *              type of objects held by the index
+ */
+public class SpatialIndex<T> {
+
+    /**
+     * Size of one bucket in pixels, 8x8 map cells.
+     * With 1280x720 vision a query visits at most 6x4 buckets
+     */
+    public static final int CELL_SIZE = 320;
+
+    private final int cols, rows;
+    private final ArrayList<ArrayList<T>> cells;
+    private final ToIntFunction<T> xFunc, yFunc;
+
+    private int size = 0;
+
+    /**
+     *
+     * @param width
+     *              width of the indexed area in pixels
+     * @param height
+     *              height of the indexed area in pixels
+     * @param xFunc
+     *              returns x of an object
+     * @param yFunc
+     *              returns y of an object
+     */
+    public SpatialIndex(int width, int height, ToIntFunction<T> xFunc, ToIntFunction<T> yFunc) {
+        this.cols = Math.max(width / CELL_SIZE + 1, 1);
+        this.rows = Math.max(height / CELL_SIZE + 1, 1);
+        this.xFunc = xFunc;
+        this.yFunc = yFunc;
+
+        cells = new ArrayList<ArrayList<T>>(cols * rows);
+        for (int i = 0; i < cols * rows; i++)
+            cells.add(new ArrayList<T>());
+    }
+
+    private int col(int x) {
+        return Math.min(Math.max(x / CELL_SIZE, 0), cols - 1);
+    }
+
+    private int row(int y) {
+        return Math.min(Math.max(y / CELL_SIZE, 0), rows - 1);
+    }
+
+    private int cellOf(int x, int y) {
+        return row(y) * cols + col(x);
+    }
+
+    public void add(T obj) {
+        cells.get(cellOf(xFunc.applyAsInt(obj), yFunc.applyAsInt(obj))).add(obj);
+        size++;
+    }
+
+    public boolean remove(T obj) {
+        return remove(obj, xFunc.applyAsInt(obj), yFunc.applyAsInt(obj));
+    }
+
+    private boolean remove(T obj, int x, int y) {
+        if (cells.get(cellOf(x, y)).remove(obj)) {
+            size--;
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Must be called after an object has changed its position.
+     * Only touches the buckets if the object crossed a bucket border
+     *
+     * @param obj
+     *              the object that moved
+     * @param oldX
+     *              x before the move
+     * @param oldY
+     *              y before the move
+     */
+    public void update(T obj, int oldX, int oldY) {
+        int oldCell = cellOf(oldX, oldY);
+        int newCell = cellOf(xFunc.applyAsInt(obj), yFunc.applyAsInt(obj));
+
+        if (oldCell != newCell && cells.get(oldCell).remove(obj)) {
+            cells.get(newCell).add(obj);
+        }
+    }
+
+    /**
+     * Collects all objects within given rectangle (inclusive)
+     * into result. The result list is not cleared
+     *
+     * @param x
+     * @param y
+     * @param width
+     * @param height
+     * @param result
+     *              list to add objects to
+     */
+    public void query(int x, int y, int width, int height, List<? super T> result) {
+        int right = x + width, bottom = y + height;
+
+        int minCol = col(x), maxCol = col(right);
+        int minRow = row(y), maxRow = row(bottom);
+
+        for (int r = minRow; r <= maxRow; r++) {
+            for (int c = minCol; c <= maxCol; c++) {
+                ArrayList<T> cell = cells.get(r * cols + c);
+                for (int i = 0; i < cell.size(); i++) {
+                    T obj = cell.get(i);
+                    int objX = xFunc.applyAsInt(obj), objY = yFunc.applyAsInt(obj);
+                    if (objX >= x && objX <= right && objY >= y && objY <= bottom)
+                        result.add(obj);
+                }
+            }
+        }
+    }
+
+    /**
+     * Only the bucket containing x, y is visited
+     *
+     * @param x
+     * @param y
+     * @return
+     *          an object at exactly x, y or null if there is none
+     */
+    public T get(int x, int y) {
+        ArrayList<T> cell = cells.get(cellOf(x, y));
+        for (int i = 0; i < cell.size(); i++) {
+            T obj = cell.get(i);
+            if (xFunc.applyAsInt(obj) == x && yFunc.applyAsInt(obj) == y)
+                return obj;
+        }
+
+        return null;
+    }
+
+    public void clear() {
+        for (int i = 0; i < cells.size(); i++)
+            cells.get(i).clear();
+        size = 0;
+    }
+
+    /**
+     *
+     * @return
+     *          number of objects in the index
+     */
+    public int size() {
+        return size;
+    }
+}
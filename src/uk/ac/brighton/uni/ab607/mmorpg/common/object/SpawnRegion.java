@@ -0,0 +1,74 @@
+package uk.ac.brighton.uni.ab607.mmorpg.common.object;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Part of a map where enemies of a spawn can appear, made
+ * of weighted rectangles of cells. Enemies are more likely to
+ * appear in rectangles with higher weight. A rectangle
+ * of 1x1 is a single cell
+ *
+ * Usage: {@code new SpawnRegion().rect(2, 2, 10, 5).rect(20, 3, 1, 1, 3)}
+ */
+public class SpawnRegion {
+
+    /**
+     * x, y, width, height, weight of each rectangle
+     */
+    private final ArrayList<int[]> rects = new ArrayList<int[]>();
+
+    /**
+     * Adds rectangle with weight 1
+     *
+     * @param x
+     *              cell x
+     * @param y
+     *              cell y
+     * @param width
+     *              in cells
+     * @param height
+     *              in cells
+     * @return
+     *          this region
+     */
+    public SpawnRegion rect(int x, int y, int width, int height) {
+        return rect(x, y, width, height, 1);
+    }
+
+    public SpawnRegion rect(int x, int y, int width, int height, int weight) {
+        if (width <= 0 || height <= 0 || weight <= 0)
+            throw new IllegalArgumentException("Bad spawn rectangle: " + width + "x" + height + ", weight " + weight);
+
+        rects.add(new int[] { x, y, width, height, weight });
+        return this;
+    }
+
+    /**
+     *
+     * @param map
+     * @return
+     *          walkable cells of this region on map
+     */
+    /*package-private*/ CellTable toCells(GameMap map) {
+        ArrayList<int[]> areas = new ArrayList<int[]>();
+        ArrayList<Integer> weights = new ArrayList<Integer>();
+
+        for (int[] rect : rects) {
+            int minX = Math.max(rect[0], 0), maxX = Math.min(rect[0] + rect[2], map.width);
+            int minY = Math.max(rect[1], 0), maxY = Math.min(rect[1] + rect[3], map.height);
+
+            int count = 0;
+            int[] cells = new int[Math.max(maxX - minX, 0) * Math.max(maxY - minY, 0)];
+            for (int y = minY; y < maxY; y++)
+                for (int x = minX; x < maxX; x++)
+                    if (map.isFree(x, y))
+                        cells[count++] = y * map.width + x;
+
+            areas.add(Arrays.copyOf(cells, count));
+            weights.add(rect[4]);
+        }
+
+        return new CellTable(areas, weights);
+    }
+}
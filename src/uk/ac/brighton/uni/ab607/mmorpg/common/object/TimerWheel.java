@@ -0,0 +1,216 @@
+package uk.ac.brighton.uni.ab607.mmorpg.common.object;
+
+/**
+ * Hierarchical timing wheel keyed by tick number, so that a tick
+ * only visits timers that fire on it rather than every pending timer
+ *
+ * Level 0 has a slot per tick for the next 64 ticks, each higher level
+ * has slots 64 times as wide. When a higher level slot comes due its timers
+ * cascade down to lower levels. 4 levels cover 2^24 ticks, about 3.8 days
+ */
+public class TimerWheel {
+
+    /**
+     * Length of one tick in seconds, same as server update rate
+     */
+    public static final float TICK_SECONDS = 0.02f;
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    /**
+     * Heads of timer lists, by level and slot
+     */
+    private final Timer[][] slots = new Timer[LEVELS][SLOTS];
+
+    private long tick = 0;
+    private int size = 0;
+    private long fired = 0;
+
+    /**
+     * Timer that can be scheduled on one wheel at a time.
+     * When cancelled it keeps its ticks left so it can be scheduled again later
+     */
+    public static abstract class Timer {
+        private TimerWheel wheel;
+        private Timer prev, next;
+        private int level, slot;
+        private long deadline;
+        private int ticksLeft;
+
+        /**
+         *
+         * @param ticks
+         *              number of ticks until timer fires once scheduled
+         */
+        protected Timer(int ticks) {
+            ticksLeft = ticks;
+        }
+
+        /**
+         * Called on the tick the timer is due, timer is no longer
+         * scheduled at this point and may be scheduled again
+         */
+        protected abstract void onFire();
+
+        public final boolean isScheduled() {
+            return wheel != null;
+        }
+
+        public final int getTicksLeft() {
+            return wheel != null ? (int) (deadline - wheel.tick) : ticksLeft;
+        }
+
+        public final void setTicksLeft(int ticks) {
+            if (wheel != null)
+                throw new IllegalStateException("Timer is scheduled");
+
+            ticksLeft = ticks;
+        }
+    }
+
+    /**
+     *
+     * @param seconds
+     * @return
+     *          number of ticks in given time, at least 1
+     */
+    public static int toTicks(float seconds) {
+        return Math.max(Math.round(seconds / TICK_SECONDS), 1);
+    }
+
+    /**
+     * Schedules timer to fire after its ticks left, at least 1 tick from now
+     *
+     * @param timer
+     */
+    public void schedule(Timer timer) {
+        if (timer.wheel != null)
+            throw new IllegalStateException("Timer is already scheduled");
+
+        timer.wheel = this;
+        timer.deadline = tick + Math.max(timer.ticksLeft, 1);
+        add(timer);
+        size++;
+    }
+
+    /**
+     * Removes timer from this wheel, keeping its ticks left
+     *
+     * @param timer
+     * @return
+     *          true if timer was scheduled on this wheel
+     */
+    public boolean cancel(Timer timer) {
+        if (timer.wheel != this)
+            return false;
+
+        timer.ticksLeft = (int) (timer.deadline - tick);
+        unlink(timer);
+        timer.wheel = null;
+        size--;
+        return true;
+    }
+
+    /**
+     * Moves to next tick and fires timers due on it
+     */
+    public void advance() {
+        tick++;
+
+        // when a level wraps, next slot of the level above comes due
+        for (int level = 1; level < LEVELS; level++) {
+            if ((tick & ((1L << (SLOT_BITS * level)) - 1)) != 0)
+                break;
+
+            int slot = (int) (tick >>> (SLOT_BITS * level)) & SLOT_MASK;
+            Timer timer = slots[level][slot];
+            slots[level][slot] = null;
+
+            while (timer != null) {
+                Timer next = timer.next;
+                timer.prev = timer.next = null;
+                add(timer);
+                timer = next;
+            }
+        }
+
+        Timer[] due = slots[0];
+        int slot = (int) tick & SLOT_MASK;
+
+        // fired timers may schedule and cancel others, so unlink one at a time
+        Timer timer;
+        while ((timer = due[slot]) != null) {
+            unlink(timer);
+            timer.wheel = null;
+            timer.ticksLeft = 0;
+            size--;
+            fired++;
+            timer.onFire();
+        }
+    }
+
+    private void add(Timer timer) {
+        long delay = timer.deadline - tick;
+        long due = timer.deadline;
+
+        int level = 0;
+        while (level < LEVELS - 1 && delay >= 1L << (SLOT_BITS * (level + 1)))
+            level++;
+
+        // beyond the last level, wait in its furthest slot and cascade again from there
+        if (delay >= 1L << (SLOT_BITS * LEVELS))
+            due = tick + (1L << (SLOT_BITS * LEVELS)) - 1;
+
+        timer.level = level;
+        timer.slot = (int) (due >>> (SLOT_BITS * level)) & SLOT_MASK;
+
+        Timer head = slots[level][timer.slot];
+        timer.prev = null;
+        timer.next = head;
+        if (head != null)
+            head.prev = timer;
+        slots[level][timer.slot] = timer;
+    }
+
+    private void unlink(Timer timer) {
+        if (timer.prev != null)
+            timer.prev.next = timer.next;
+        else
+            slots[timer.level][timer.slot] = timer.next;
+
+        if (timer.next != null)
+            timer.next.prev = timer.prev;
+
+        timer.prev = timer.next = null;
+    }
+
+    /**
+     *
+     * @return
+     *          number of ticks since wheel was created
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     *
+     * @return
+     *          number of scheduled timers
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     *
+     * @return
+     *          number of timers fired since wheel was created
+     */
+    public long getFired() {
+        return fired;
+    }
+}
@@ -1,11 +1,8 @@
 package uk.ac.brighton.uni.ab607.mmorpg.common.object;
 
-import java.util.Arrays;
-
 import com.almasb.common.parsing.PseudoHTML;
 
 import uk.ac.brighton.uni.ab607.mmorpg.common.Player;
-import uk.ac.brighton.uni.ab607.mmorpg.common.Rune;
 import uk.ac.brighton.uni.ab607.mmorpg.common.GameCharacter.Stat;
 import uk.ac.brighton.uni.ab607.mmorpg.common.item.EquippableItem;
 
@@ -29,27 +26,13 @@ public class Weapon extends EquippableItem implements PseudoHTML {
         }
     }
 
-    public final WeaponType type;
-    public final int range;
-    public final int pureDamage;
-
-    /*package-private*/ Weapon(String id, String name, String description, int ssX, int ssY, String author,
-            ItemLevel level, WeaponType type, int pureDamage, Element element, int runesMax, Rune... defaultRunes) {
-        super(id, name, description, ssX, ssY, author, level, element, runesMax, defaultRunes);
-        this.type = type;
-        this.range = type.range;
-        this.pureDamage = pureDamage;
+    /*package-private*/ Weapon(WeaponTemplate template) {
+        super(template);
     }
 
-    /*package-private*/ Weapon(Weapon copy) {
-        this(copy.id, copy.name, copy.description, copy.ssX, copy.ssY, copy.author, copy.level, copy.type, copy.pureDamage, copy.element, copy.runesMax, copy.defaultRunes);
-    }
-
-    /*package-private*/ Weapon(String id, String name, String description, int ssX, int ssY, WeaponType type, int pureDamage) {
-        super(id, name, description, ssX, ssY);
-        this.type = type;
-        this.range = type.range;
-        this.pureDamage = pureDamage;
+    @Override
+    public WeaponTemplate getTemplate() {
+        return (WeaponTemplate) template;
     }
 
     @Override
@@ -65,64 +48,69 @@ public class Weapon extends EquippableItem implements PseudoHTML {
     }
 
     public int getDamage() {
-        return pureDamage + refineLevel * (refineLevel > 2 ? level.bonus + 5 : level.bonus);
+        WeaponTemplate t = getTemplate();
+        return t.pureDamage + refineLevel * (refineLevel > 2 ? t.level.bonus + 5 : t.level.bonus);
     }
 
     @Override
     public String toString() {
-        return "ID: " + id + "\n"
-                + (refineLevel == 0 ? "" : "+" + refineLevel + " ") + name + "(" + runesMax + ")" + "\n"
-                + description + "\n"
-                + "Author: " + author + "\n"
+        WeaponTemplate t = getTemplate();
+        return "ID: " + t.id + "\n"
+                + (refineLevel == 0 ? "" : "+" + refineLevel + " ") + t.name + "(" + t.runesMax + ")" + "\n"
+                + t.description + "\n"
+                + "Author: " + t.author + "\n"
                 + "Stats:" + "\n"
-                + "Type: " + type + "\n"
-                + "Damage: " + pureDamage + " + " + refineLevel * level.bonus + "\n"
-                + "Element: " + element + "\n"
-                + Arrays.toString(defaultRunes) + "\n"
-                + "Runes installed: " + runes.toString() + "\n"
+                + "Type: " + t.type + "\n"
+                + "Damage: " + t.pureDamage + " + " + refineLevel * t.level.bonus + "\n"
+                + "Element: " + t.element + "\n"
+                + t.defaultRunes + "\n"
+                + "Runes installed: " + getRunes().toString() + "\n"
                 + "Essence installed: " + (essence == null ? "NONE" : essence);
     }
 
     public String toStringShort() {
-        return "ID: " + id + "\n"
-                + (refineLevel == 0 ? "" : "+" + refineLevel + " ") + name + "(" + runesMax + ")" + "\n"
-                //+ description + "\n"
-                + "Author: " + author + "\n"
+        WeaponTemplate t = getTemplate();
+        return "ID: " + t.id + "\n"
+                + (refineLevel == 0 ? "" : "+" + refineLevel + " ") + t.name + "(" + t.runesMax + ")" + "\n"
+                //+ t.description + "\n"
+                + "Author: " + t.author + "\n"
                 + "Stats:" + "\n"
-                + "Type: " + type + "\n"
-                + "Damage: " + pureDamage + " + " + refineLevel * level.bonus + "\n"
-                + "Element: " + element + "\n"
-                + Arrays.toString(defaultRunes) + "\n"
-                + runes.toString() + "\n"
+                + "Type: " + t.type + "\n"
+                + "Damage: " + t.pureDamage + " + " + refineLevel * t.level.bonus + "\n"
+                + "Element: " + t.element + "\n"
+                + t.defaultRunes + "\n"
+                + getRunes().toString() + "\n"
                 + (essence == null ? "" : essence.name);
     }
 
     @Override
     public String toPseudoHTML() {
+        WeaponTemplate t = getTemplate();
         return HTML_START
-                + "<center>" + BLUE + (refineLevel == 0 ? "" : "+" + refineLevel + " ") + name + FONT_END + " (" + runesMax + ")" + "</center>"
-                + description + BR
-                + "Author: " + RED + author + FONT_END + BR
-                + "Type: " + BLUE + type + FONT_END + BR
-                + "Damage: " + BLUE + pureDamage + " + " + refineLevel * (refineLevel > 2 ? level.bonus + 5 : level.bonus) + FONT_END + BR
-                + "Element: " + BLUE + element + FONT_END + BR
-                + GREEN + Arrays.toString(defaultRunes) + FONT_END + BR
+                + "<center>" + BLUE + (refineLevel == 0 ? "" : "+" + refineLevel + " ") + t.name + FONT_END + " (" + t.runesMax + ")" + "</center>"
+                + t.description + BR
+                + "Author: " + RED + t.author + FONT_END + BR
+                + "Type: " + BLUE + t.type + FONT_END + BR
+                + "Damage: " + BLUE + t.pureDamage + " + " + refineLevel * (refineLevel > 2 ? t.level.bonus + 5 : t.level.bonus) + FONT_END + BR
+                + "Element: " + BLUE + t.element + FONT_END + BR
+                + GREEN + t.defaultRunes + FONT_END + BR
                 + "Runes: " + BR
-                + GREEN + runes.toString() + FONT_END + BR
+                + GREEN + getRunes().toString() + FONT_END + BR
                 + "Essence: " + BR
                 + (essence == null ? "NONE" : essence.toStringHTML());
     }
 
     @Override
     public String toPseudoHTMLShort() {
+        WeaponTemplate t = getTemplate();
         return HTML_START
-                + "<center>" + BLUE + (refineLevel == 0 ? "" : "+" + refineLevel + " ") + name + FONT_END + " (" + runesMax + ")" + "</center>"
-                + "Type: " + BLUE + type + FONT_END + BR
-                + "Damage: " + BLUE + pureDamage + " + " + refineLevel * (refineLevel > 2 ? level.bonus + 5 : level.bonus) + FONT_END + BR
-                + "Element: " + BLUE + element + FONT_END + BR
-                + GREEN + Arrays.toString(defaultRunes) + FONT_END + BR
+                + "<center>" + BLUE + (refineLevel == 0 ? "" : "+" + refineLevel + " ") + t.name + FONT_END + " (" + t.runesMax + ")" + "</center>"
+                + "Type: " + BLUE + t.type + FONT_END + BR
+                + "Damage: " + BLUE + t.pureDamage + " + " + refineLevel * (refineLevel > 2 ? t.level.bonus + 5 : t.level.bonus) + FONT_END + BR
+                + "Element: " + BLUE + t.element + FONT_END + BR
+                + GREEN + t.defaultRunes + FONT_END + BR
                 + "Runes: " + BR
-                + GREEN + runes.toString() + FONT_END + BR
+                + GREEN + getRunes().toString() + FONT_END + BR
                 + "Essence: " + BR
                 + (essence == null ? "NONE" : essence.toStringHTML());
     }
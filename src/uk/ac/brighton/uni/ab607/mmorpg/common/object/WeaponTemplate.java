@@ -0,0 +1,36 @@
+package uk.ac.brighton.uni.ab607.mmorpg.common.object;
+
+import uk.ac.brighton.uni.ab607.mmorpg.common.Rune;
+import uk.ac.brighton.uni.ab607.mmorpg.common.item.EquippableItem.Element;
+import uk.ac.brighton.uni.ab607.mmorpg.common.item.EquippableItem.ItemLevel;
+import uk.ac.brighton.uni.ab607.mmorpg.common.item.ItemTemplate;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.Weapon.WeaponType;
+
+/**
+ * Shared data of a weapon, see {@link ItemTemplate}
+ */
+public class WeaponTemplate extends ItemTemplate {
+
+    public final WeaponType type;
+    public final int range;
+    public final int pureDamage;
+
+    /*package-private*/ WeaponTemplate(String id, String name, String description, int ssX, int ssY, String author,
+            ItemLevel level, WeaponType type, int pureDamage, Element element, int runesMax, Rune... defaultRunes) {
+        super(id, name, description, ssX, ssY, author, level, element, runesMax, defaultRunes);
+        this.type = type;
+        this.range = type.range;
+        this.pureDamage = pureDamage;
+    }
+
+    /*package-private*/ WeaponTemplate(String id, String name, String description, int ssX, int ssY, WeaponType type, int pureDamage) {
+        super(id, name, description, ssX, ssY);
+        this.type = type;
+        this.range = type.range;
+        this.pureDamage = pureDamage;
+    }
+
+    /*package-private*/ void setTemplateID(int templateID) {
+        this.templateID = templateID;
+    }
+}
@@ -1,8 +1,6 @@
 package uk.ac.brighton.uni.ab607.mmorpg.common.request;
 
-import com.almasb.java.util.ByteStream;
-
-public abstract class AnimationMessage implements ByteStream {
+public abstract class AnimationMessage implements BufferStream {
 
     protected int x, y;
     private boolean sent = false;
@@ -0,0 +1,34 @@
+package uk.ac.brighton.uni.ab607.mmorpg.common.request;
+
+import java.nio.ByteBuffer;
+
+import com.almasb.java.util.ByteStream;
+
+/**
+ * {@link ByteStream} that can also write itself into
+ * a caller supplied buffer, so that no array is allocated per object
+ */
+public interface BufferStream extends ByteStream {
+
+    /**
+     *
+     * @return
+     *          number of bytes written by {@link #writeTo(ByteBuffer)}
+     */
+    public int getByteStreamSize();
+
+    /**
+     * Writes same bytes as {@link #toByteArray()} at
+     * buffer's current position and advances it
+     *
+     * @param buf
+     */
+    public void writeTo(ByteBuffer buf);
+
+    @Override
+    public default byte[] toByteArray() {
+        ByteBuffer buf = ByteBuffer.allocate(getByteStreamSize());
+        writeTo(buf);
+        return buf.array();
+    }
+}
@@ -0,0 +1,99 @@
+package uk.ac.brighton.uni.ab607.mmorpg.common.request;
+
+import java.nio.ByteBuffer;
+
+import com.almasb.java.util.ByteStream;
+
+/**
+ * Wire format of {@link MessageType#UPDATE_GAME_CHAR_DELTA}
+ *
+ * After the message type byte the message contains a list of entries
+ * [flags (1)][ids (4)][xy (4)]?[place/dir (1)]?[spriteID (4)]?
+ *
+ * Each optional field is only present if its flag is set.
+ * An entry with {@link #ENTER} carries all fields, an entry with
+ * {@link #LEAVE} carries none
+ */
+public final class EntityDelta {
+
+    /**
+     * Flags of a single entry
+     */
+    public static final int XY = 0b1,
+            PLACE_DIR = 0b10,
+            SPRITE = 0b100,
+            ENTER = 0b1000,
+            LEAVE = 0b10000;
+
+    public static final int ALL_FIELDS = XY | PLACE_DIR | SPRITE;
+
+    /**
+     * Max bytes a single entry takes
+     */
+    public static final int MAX_ENTRY_SIZE = 14;
+
+    /**
+     * Receives entries of a delta message
+     */
+    public interface Listener {
+        /**
+         * Fields whose flag is not set have undefined values
+         *
+         * @param flags
+         * @param ids
+         *              packed object and runtime IDs of the entity
+         * @param xy
+         * @param placeDir
+         * @param spriteID
+         */
+        public void onEntry(int flags, int ids, int xy, byte placeDir, int spriteID);
+    }
+
+    private EntityDelta() {}
+
+    public static void write(ByteBuffer out, int flags, int ids, int xy, byte placeDir, int spriteID) {
+        out.put((byte)flags);
+        out.putInt(ids);
+
+        if ((flags & XY) != 0)
+            out.putInt(xy);
+        if ((flags & PLACE_DIR) != 0)
+            out.put(placeDir);
+        if ((flags & SPRITE) != 0)
+            out.putInt(spriteID);
+    }
+
+    /**
+     *
+     * @param data
+     *              the whole message, including message type byte
+     * @param listener
+     *              called for every entry in the message
+     */
+    public static void read(byte[] data, Listener listener) {
+        int i = 1;  // skip message type
+
+        while (i < data.length) {
+            int flags = data[i++];
+            int ids = ByteStream.byteArrayToInt(data, i);
+            i += 4;
+
+            int xy = 0, spriteID = 0;
+            byte placeDir = 0;
+
+            if ((flags & XY) != 0) {
+                xy = ByteStream.byteArrayToInt(data, i);
+                i += 4;
+            }
+            if ((flags & PLACE_DIR) != 0) {
+                placeDir = data[i++];
+            }
+            if ((flags & SPRITE) != 0) {
+                spriteID = ByteStream.byteArrayToInt(data, i);
+                i += 4;
+            }
+
+            listener.onEntry(flags, ids, xy, placeDir, spriteID);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package uk.ac.brighton.uni.ab607.mmorpg.common.request;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Per thread buffer in which outgoing frames are built
+ *
+ * The buffer is heap allocated because UDPServer.sendRawBytes()
+ * takes a byte[], so only the final copy of exact length is allocated per frame.
+ * The connection compresses each frame into a new array before it reaches
+ * the socket, so a direct buffer could not be sent without copying either
+ */
+public final class FrameBuffer {
+
+    private static final int INITIAL_CAPACITY = 8192;
+
+    private static final ThreadLocal<ByteBuffer> BUFFER = ThreadLocal.withInitial(() -> ByteBuffer.allocate(INITIAL_CAPACITY));
+
+    private FrameBuffer() {}
+
+    /**
+     * Returns this thread's buffer, cleared and with
+     * at least given capacity. The buffer is only valid until next call
+     *
+     * @param capacity
+     *                  max number of bytes that will be written
+     * @return
+     *          frame buffer
+     */
+    public static ByteBuffer get(int capacity) {
+        ByteBuffer buf = BUFFER.get();
+        if (buf.capacity() < capacity) {
+            buf = ByteBuffer.allocate(Math.max(capacity, buf.capacity() * 2));
+            BUFFER.set(buf);
+        }
+
+        buf.clear();
+        return buf;
+    }
+
+    /**
+     *
+     * @param buf
+     * @return
+     *          bytes written to buffer so far
+     */
+    public static byte[] toByteArray(ByteBuffer buf) {
+        return Arrays.copyOf(buf.array(), buf.position());
+    }
+}
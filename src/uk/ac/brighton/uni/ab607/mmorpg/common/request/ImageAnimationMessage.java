@@ -1,5 +1,7 @@
 package uk.ac.brighton.uni.ab607.mmorpg.common.request;
 
+import java.nio.ByteBuffer;
+
 import com.almasb.java.util.ByteStream;
 
 public class ImageAnimationMessage extends AnimationMessage {
@@ -32,17 +34,15 @@ public class ImageAnimationMessage extends AnimationMessage {
     }
 
     @Override
-    public byte[] toByteArray() {
-        byte[] data = new byte[12];
-
-        int xy = x << 16 | y;
-        ByteStream.intToByteArray(data, 0, xy);
-
-        int endXY = endX << 16 | endY;
-        ByteStream.intToByteArray(data, 4, endXY);
-        ByteStream.intToByteArray(data, 8, spriteID);
+    public int getByteStreamSize() {
+        return BYTE_STREAM_SIZE;
+    }
 
-        return data;
+    @Override
+    public void writeTo(ByteBuffer buf) {
+        buf.putInt(x << 16 | y);
+        buf.putInt(endX << 16 | endY);
+        buf.putInt(spriteID);
     }
 
     public int getEndX() {
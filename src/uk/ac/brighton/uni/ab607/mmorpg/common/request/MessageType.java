@@ -1,5 +1,5 @@
 package uk.ac.brighton.uni.ab607.mmorpg.common.request;
 
 public enum MessageType {
-    UPDATE_GAME_CHAR, ANIMATION_TEXT, ANIMATION_IMAGE
+    UPDATE_GAME_CHAR, ANIMATION_TEXT, ANIMATION_IMAGE, UPDATE_GAME_CHAR_DELTA
 }
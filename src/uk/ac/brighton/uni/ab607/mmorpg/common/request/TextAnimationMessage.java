@@ -1,5 +1,6 @@
 package uk.ac.brighton.uni.ab607.mmorpg.common.request;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 import com.almasb.java.util.ByteStream;
@@ -11,6 +12,11 @@ public class TextAnimationMessage extends AnimationMessage {
     private AnimationMessageType type;
     private String text;
 
+    /**
+     * Encoded text, same message is sent to every player who can see it
+     */
+    private transient byte[] textBytes;
+
     public enum AnimationMessageType {
         DAMAGE_TO_PLAYER, BASIC_DAMAGE_TO_ENEMY, SKILL_DAMAGE_TO_ENEMY, TEXT, BUFF
     }
@@ -35,23 +41,26 @@ public class TextAnimationMessage extends AnimationMessage {
         type = AnimationMessageType.values()[data[4]];
 
         text = new String(Arrays.copyOfRange(data, 5, 64)).replace(new String(new byte[] {0}), "");
+        textBytes = null;
     }
 
     @Override
-    public byte[] toByteArray() {
-        byte[] data = new byte[64];
-
-        int xy = x << 16 | y;
-        ByteStream.intToByteArray(data, 0, xy);
+    public int getByteStreamSize() {
+        return BYTE_STREAM_SIZE;
+    }
 
-        data[4] = (byte)type.ordinal();
+    @Override
+    public void writeTo(ByteBuffer buf) {
+        if (textBytes == null)
+            textBytes = text.getBytes();
 
-        byte[] tmp = text.getBytes();
-        for (int i = 0; i < Math.min(tmp.length, 59); i++) {
-            data[5 + i] = tmp[i];
-        }
+        buf.putInt(x << 16 | y);
+        buf.put((byte)type.ordinal());
 
-        return data;
+        int length = Math.min(textBytes.length, 59);
+        buf.put(textBytes, 0, length);
+        for (int i = length; i < 59; i++)
+            buf.put((byte)0);
     }
 
     public String getText() {
@@ -73,5 +82,6 @@ public class TextAnimationMessage extends AnimationMessage {
 
     public void setText(String text) {
         this.text = text;
+        textBytes = null;
     }
 }
@@ -0,0 +1,284 @@
+package uk.ac.brighton.uni.ab607.mmorpg.server;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.function.Predicate;
+
+/**
+ * Accounts kept in memory
+ *
+ * Accounts of online players are pinned. Pins are counted, so an unpin from
+ * a logoff that runs after the same player logged in again keeps the account
+ * pinned. Other accounts that were looked up
+ * are cold and kept in least recently used order, up to capacity.
+ * A cold account is only evicted once all of its saves are written,
+ * so loading it again gives the latest state
+ */
+/*package-private*/ class AccountCache {
+
+    /**
+     * Loads an account from DB, called without holding the cache
+     */
+    /*package-private*/ interface Loader {
+        public GameAccount load(String username) throws IOException;
+    }
+
+    private final HashMap<String, GameAccount> accounts = new HashMap<String, GameAccount>();
+    /**
+     * Number of pins by username, only pinned accounts are present
+     */
+    private final HashMap<String, Integer> pinned = new HashMap<String, Integer>();
+
+    /**
+     * Usernames of cold accounts, least recently used first
+     */
+    private final LinkedHashSet<String> cold = new LinkedHashSet<String>();
+
+    /**
+     * Number of records queued but not yet written, by username
+     */
+    private final HashMap<String, Integer> pendingSaves = new HashMap<String, Integer>();
+
+    /**
+     * Accounts with changes not queued for writing, i.e. new
+     * or last save was rejected
+     */
+    private final HashSet<String> unsaved = new HashSet<String>();
+
+    /**
+     * Last record queued for each account in memory, an account
+     * whose new capture is the same has not changed and is not saved again
+     */
+    private final HashMap<String, AccountRecord> lastQueued = new HashMap<String, AccountRecord>();
+
+    private final int capacity;
+    private final Loader loader;
+
+    private long hits = 0, misses = 0, evictions = 0, unchanged = 0;
+
+    /**
+     *
+     * @param capacity
+     *                  max number of cold accounts that can be evicted
+     * @param loader
+     */
+    /*package-private*/ AccountCache(int capacity, Loader loader) {
+        this.capacity = capacity;
+        this.loader = loader;
+    }
+
+    /**
+     *
+     * @param username
+     * @return
+     *          account, loaded if needed, or null if there is no such account
+     * @throws IOException
+     */
+    /*package-private*/ GameAccount get(String username) throws IOException {
+        synchronized (this) {
+            GameAccount account = accounts.get(username);
+            if (account != null) {
+                if (cold.remove(username))
+                    cold.add(username);
+                hits++;
+                return account;
+            }
+
+            misses++;
+        }
+
+        GameAccount account = loader.load(username);
+        if (account == null)
+            return null;
+
+        synchronized (this) {
+            // loaded by another thread in the meantime
+            GameAccount loaded = accounts.get(username);
+            if (loaded != null)
+                return loaded;
+
+            accounts.put(username, account);
+            cold.add(username);
+            trim();
+        }
+
+        return account;
+    }
+
+    /**
+     * Keeps account in memory until unpinned as many times as pinned
+     *
+     * @param username
+     * @return
+     *          account or null if there is no such account
+     * @throws IOException
+     */
+    /*package-private*/ GameAccount pin(String username) throws IOException {
+        GameAccount account = get(username);
+        if (account == null)
+            return null;
+
+        synchronized (this) {
+            // may have been evicted before it was pinned
+            accounts.putIfAbsent(username, account);
+            account = accounts.get(username);
+
+            cold.remove(username);
+            pinned.merge(username, 1, Integer::sum);
+        }
+
+        return account;
+    }
+
+    /*package-private*/ synchronized void unpin(String username) {
+        Integer pins = pinned.get(username);
+        if (pins == null)
+            return;
+
+        if (pins > 1) {
+            pinned.put(username, pins - 1);
+            return;
+        }
+
+        pinned.remove(username);
+        cold.add(username);
+        trim();
+    }
+
+    /**
+     * Adds a new account, it can't be evicted before it is saved
+     *
+     * @param account
+     */
+    /*package-private*/ synchronized void add(GameAccount account) {
+        accounts.put(account.getUserName(), account);
+        unsaved.add(account.getUserName());
+        cold.add(account.getUserName());
+        trim();
+    }
+
+    /**
+     *
+     * @param username
+     * @return
+     *          account if it is in memory, without touching it, or null
+     */
+    /*package-private*/ synchronized GameAccount peek(String username) {
+        return accounts.get(username);
+    }
+
+    /**
+     * Called before record is queued
+     *
+     * @param record
+     * @return
+     *          false if account has not changed since its last queued record,
+     *          record must then not be queued
+     */
+    /*package-private*/ synchronized boolean onSaveQueued(AccountRecord record) {
+        String username = record.username;
+
+        AccountRecord last = lastQueued.get(username);
+        if (last != null && !unsaved.contains(username) && last.sameState(record)) {
+            unchanged++;
+            return false;
+        }
+
+        pendingSaves.merge(username, 1, Integer::sum);
+        unsaved.remove(username);
+        lastQueued.put(username, record);
+        return true;
+    }
+
+    /*package-private*/ synchronized void onSaveRejected(String username) {
+        onSaveWritten(username);
+        unsaved.add(username);
+        lastQueued.remove(username);
+    }
+
+    /**
+     * Called once a queued record is on disk
+     *
+     * @param username
+     */
+    /*package-private*/ synchronized void onSaveWritten(String username) {
+        pendingSaves.computeIfPresent(username, (name, count) -> count > 1 ? count - 1 : null);
+        trim();
+    }
+
+    /**
+     * Saves cold accounts with unsaved changes. Cold accounts have no owner
+     * thread, the cache is held so they can't be pinned meanwhile
+     *
+     * @param save
+     *              queues a record, returns false if rejected
+     */
+    /*package-private*/ synchronized void saveUnsaved(Predicate<AccountRecord> save) {
+        for (String username : new ArrayList<String>(unsaved)) {
+            if (pinned.containsKey(username))
+                continue;
+
+            GameAccount account = accounts.get(username);
+            if (account == null) {
+                unsaved.remove(username);
+                continue;
+            }
+
+            AccountRecord record = AccountRecord.capture(account);
+            onSaveQueued(record);
+            if (!save.test(record)) {
+                onSaveRejected(username);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Evicts least recently used cold accounts that have nothing left to write
+     */
+    private void trim() {
+        Iterator<String> it = cold.iterator();
+        while (cold.size() > capacity && it.hasNext()) {
+            String username = it.next();
+            if (!pendingSaves.containsKey(username) && !unsaved.contains(username)) {
+                it.remove();
+                accounts.remove(username);
+                lastQueued.remove(username);
+                evictions++;
+            }
+        }
+    }
+
+    /*package-private*/ synchronized long getHits() {
+        return hits;
+    }
+
+    /*package-private*/ synchronized long getMisses() {
+        return misses;
+    }
+
+    /*package-private*/ synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     *
+     * @return
+     *          number of saves skipped because account had not changed
+     */
+    /*package-private*/ synchronized long getUnchanged() {
+        return unchanged;
+    }
+
+    /*package-private*/ synchronized int getPinned() {
+        return pinned.size();
+    }
+
+    /*package-private*/ synchronized int getCold() {
+        return cold.size();
+    }
+}
@@ -0,0 +1,197 @@
+package uk.ac.brighton.uni.ab607.mmorpg.server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.TreeMap;
+
+import com.almasb.common.encryption.Account;
+
+/**
+ * Binary format of accounts in DB
+ *
+ * Account record: [version (1)][username][password][key][map name][player state],
+ * strings are modified UTF-8 as written by DataOutput, player state is written by
+ * Player.writeState(). Version is bumped whenever the layout changes and readers
+ * branch on it, so records written by older versions can still be read.
+ *
+ * Snapshot file: [magic (4)][count (4)] followed by count entries [length (4)][account record]
+ *
+ * Accounts written by Java serialization before this format existed are
+ * recognized by their stream header and read the old way
+ */
+public final class AccountCodec {
+
+    public static final int VERSION = 1;
+
+    private static final int SNAPSHOT_MAGIC = 0x4F524442;   // "ORDB"
+
+    /**
+     * First bytes of any Java serialization stream
+     */
+    private static final int JAVA_STREAM_MAGIC = 0xACED;
+
+    private AccountCodec() {}
+
+    public static byte[] encode(GameAccount account) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(VERSION);
+        account.writeState(out);
+        out.flush();
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     *
+     * @param data
+     *              account record, new or legacy format
+     * @return
+     *          account
+     * @throws IOException
+     */
+    public static GameAccount decode(byte[] data) throws IOException {
+        if (isLegacy(data)) {
+            try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data))) {
+                return (GameAccount) in.readObject();
+            }
+            catch (ClassNotFoundException e) {
+                throw new IOException(e);
+            }
+        }
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        int version = in.readUnsignedByte();
+        if (version > VERSION)
+            throw new IOException("Account record version " + version + " is newer than " + VERSION);
+
+        return GameAccount.readState(in, version);
+    }
+
+    /**
+     * Reads username, password and key only, which is much
+     * cheaper than decoding the whole account
+     *
+     * @param data
+     *              account record, new or legacy format
+     * @return
+     *          account credentials
+     * @throws IOException
+     */
+    public static Account decodeCredentials(byte[] data) throws IOException {
+        if (isLegacy(data))
+            return decode(data);
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        int version = in.readUnsignedByte();
+        if (version > VERSION)
+            throw new IOException("Account record version " + version + " is newer than " + VERSION);
+
+        return new Credentials(in.readUTF(), in.readUTF(), in.readUTF());
+    }
+
+    /**
+     *
+     * @param data
+     * @return
+     *          true if data was written by Java serialization
+     */
+    public static boolean isLegacy(byte[] data) {
+        return data.length >= 2 && ((data[0] & 0xFF) << 8 | (data[1] & 0xFF)) == JAVA_STREAM_MAGIC;
+    }
+
+    public static void writeSnapshot(Path file, Collection<GameAccount> accounts) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null)
+            Files.createDirectories(parent);
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 65536))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(accounts.size());
+
+            for (GameAccount account : accounts) {
+                byte[] record = encode(account);
+                out.writeInt(record.length);
+                out.write(record);
+            }
+        }
+    }
+
+    /**
+     *
+     * @param file
+     *              snapshot file, new or legacy format
+     * @return
+     *          accounts in snapshot by username
+     * @throws IOException
+     */
+    @SuppressWarnings("unchecked")
+    public static TreeMap<String, GameAccount> readSnapshot(Path file) throws IOException {
+        try (InputStream stream = new BufferedInputStream(Files.newInputStream(file), 65536)) {
+            if (isLegacy(stream)) {
+                try (ObjectInputStream in = new ObjectInputStream(stream)) {
+                    return (TreeMap<String, GameAccount>) in.readObject();
+                }
+                catch (ClassNotFoundException e) {
+                    throw new IOException(e);
+                }
+            }
+
+            DataInputStream in = new DataInputStream(stream);
+            if (in.readInt() != SNAPSHOT_MAGIC)
+                throw new IOException("Not an account snapshot: " + file);
+
+            TreeMap<String, GameAccount> accounts = new TreeMap<String, GameAccount>();
+
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                byte[] record = new byte[in.readInt()];
+                in.readFully(record);
+
+                GameAccount account = decode(record);
+                accounts.put(account.getUserName(), account);
+            }
+
+            return accounts;
+        }
+    }
+
+    /**
+     *
+     * @param file
+     * @return
+     *          true if snapshot file was written by Java serialization
+     * @throws IOException
+     */
+    public static boolean isLegacySnapshot(Path file) throws IOException {
+        try (InputStream stream = new BufferedInputStream(Files.newInputStream(file))) {
+            return isLegacy(stream);
+        }
+    }
+
+    private static boolean isLegacy(InputStream stream) throws IOException {
+        stream.mark(2);
+        int magic = stream.read() << 8 | stream.read();
+        stream.reset();
+
+        return magic == JAVA_STREAM_MAGIC;
+    }
+
+    private static final class Credentials extends Account {
+        private static final long serialVersionUID = -4205873561927613306L;
+
+        private Credentials(String username, String password, String key) {
+            super(username, password, key);
+        }
+    }
+}
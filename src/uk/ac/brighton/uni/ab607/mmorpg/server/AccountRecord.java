@@ -0,0 +1,65 @@
+package uk.ac.brighton.uni.ab607.mmorpg.server;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Serialized state of an account at one point in time
+ *
+ * Captured by the thread that owns the account's player,
+ * after that it can be written from any thread
+ */
+/*package-private*/ final class AccountRecord {
+
+    /*package-private*/ final String username;
+    private final byte[] data;
+    /*package-private*/ final int crc;
+
+    private AccountRecord(String username, byte[] data) {
+        this.username = username;
+        this.data = data;
+        this.crc = checksum(data);
+    }
+
+    /**
+     *
+     * @param account
+     * @return
+     *          record of account as it is now
+     */
+    /*package-private*/ static AccountRecord capture(GameAccount account) {
+        try {
+            return new AccountRecord(account.getUserName(), AccountCodec.encode(account));
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     *
+     * @param other
+     * @return
+     *          true if both records hold the same account state
+     */
+    /*package-private*/ boolean sameState(AccountRecord other) {
+        return crc == other.crc && Arrays.equals(data, other.data);
+    }
+
+    /*package-private*/ int length() {
+        return data.length;
+    }
+
+    /*package-private*/ void writeTo(ByteBuffer out) {
+        out.put(data);
+    }
+
+    /*package-private*/ static int checksum(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return (int) crc.getValue();
+    }
+}
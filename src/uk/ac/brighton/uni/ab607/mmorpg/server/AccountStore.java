@@ -0,0 +1,535 @@
+package uk.ac.brighton.uni.ab607.mmorpg.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.almasb.common.util.Out;
+
+/**
+ * Accounts on disk, looked up by username without reading the whole DB
+ *
+ * Data file: [magic (4)][generation (8)][unused (4)] followed by records
+ * [length (4)][crc32 (4)][account record of {@link AccountCodec}].
+ * Saving an account appends a record, only the latest record of an account is live
+ *
+ * Index file: [magic (4)][capacity (4)][count (4)][unused (4)][generation (8)][data end (8)][live bytes (8)]
+ * followed by capacity slots [username hash (4)][record offset (8)].
+ * Slots are a hash table with linear probing, offset 0 marks an empty slot
+ *
+ * Both files are memory-mapped, opening the store only reads the headers.
+ * Records are on disk before the index points at them, so after a crash
+ * complete records past the data end are added to the index on open.
+ * An index that is missing or belongs to another generation of the data file
+ * is rebuilt from the data file
+ *
+ * Once less than half of the data file is live, it is rewritten with live records
+ * only under the next generation
+ *
+ * Writes are serialized on the store's monitor. Lookups only take the read lock,
+ * the write lock is held while index slots are updated and files are swapped,
+ * never while records are forced to disk or copied by compaction
+ */
+/*package-private*/ class AccountStore {
+
+    private static final int DATA_MAGIC = 0x4F524453;   // "ORDS"
+    private static final int INDEX_MAGIC = 0x4F524458;  // "ORDX"
+
+    private static final int DATA_HEADER_SIZE = 16;
+    private static final int INDEX_HEADER_SIZE = 40;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int SLOT_SIZE = 12;
+
+    private static final int MIN_DATA_CAPACITY = 1 << 20;
+    private static final int MIN_INDEX_CAPACITY = 1024;
+
+    /**
+     * Data file is never compacted before it is this large
+     */
+    private static final long MIN_COMPACT_BYTES = 4 << 20;
+
+    private final Path dataFile, indexFile;
+
+    /**
+     * Guards fields below against lookups, the writer holding
+     * the monitor reads them without it
+     */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private FileChannel dataChannel, indexChannel;
+    private MappedByteBuffer data, index;
+
+    private long generation;
+    private int capacity, count;
+
+    /**
+     * End of last indexed record in data file
+     */
+    private long end;
+
+    /**
+     * Size of latest records of all accounts
+     */
+    private long liveBytes;
+
+    /*package-private*/ AccountStore(Path dataFile, Path indexFile) {
+        this.dataFile = dataFile;
+        this.indexFile = indexFile;
+    }
+
+    /**
+     * Opens the store, creating it if needed
+     *
+     * @throws IOException
+     */
+    /*package-private*/ synchronized void open() throws IOException {
+        lock.writeLock().lock();
+        try {
+            openFiles();
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void openFiles() throws IOException {
+        Files.createDirectories(dataFile.toAbsolutePath().getParent());
+        dataChannel = FileChannel.open(dataFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        boolean created = dataChannel.size() == 0;
+        if (created) {
+            generation = 1;
+            data = dataChannel.map(MapMode.READ_WRITE, 0, MIN_DATA_CAPACITY);
+            data.putInt(0, DATA_MAGIC);
+            data.putLong(4, generation);
+            data.force();
+
+            Files.deleteIfExists(indexFile);
+        }
+        else {
+            data = dataChannel.map(MapMode.READ_WRITE, 0, dataChannel.size());
+            if (data.capacity() < DATA_HEADER_SIZE || data.getInt(0) != DATA_MAGIC)
+                throw new IOException("Not an account data file: " + dataFile);
+
+            generation = data.getLong(4);
+        }
+
+        if (!openIndex()) {
+            if (!created)
+                Out.i("Rebuilding account index");
+            count = 0;
+            liveBytes = 0;
+            end = DATA_HEADER_SIZE;
+            resizeIndex(MIN_INDEX_CAPACITY);
+        }
+
+        replayTail();
+    }
+
+    /**
+     *
+     * @return
+     *          true if index file matches data file
+     * @throws IOException
+     */
+    private boolean openIndex() throws IOException {
+        if (!Files.exists(indexFile))
+            return false;
+
+        indexChannel = FileChannel.open(indexFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = indexChannel.size();
+
+        if (size >= INDEX_HEADER_SIZE) {
+            index = indexChannel.map(MapMode.READ_WRITE, 0, size);
+            capacity = index.getInt(4);
+            count = index.getInt(8);
+            end = index.getLong(24);
+            liveBytes = index.getLong(32);
+
+            if (index.getInt(0) == INDEX_MAGIC && index.getLong(16) == generation
+                    && size == INDEX_HEADER_SIZE + (long) capacity * SLOT_SIZE
+                    && end >= DATA_HEADER_SIZE && end <= data.capacity())
+                return true;
+        }
+
+        indexChannel.close();
+        indexChannel = null;
+        index = null;
+        return false;
+    }
+
+    /**
+     * Indexes complete records after data end, i.e. written before a crash
+     * but not yet indexed
+     *
+     * @throws IOException
+     */
+    private void replayTail() throws IOException {
+        int replayed = 0;
+        byte[] record;
+
+        while ((record = readFrame(end)) != null) {
+            put(AccountCodec.decodeCredentials(record).getUserName(), end, record.length);
+            end += RECORD_HEADER_SIZE + record.length;
+            replayed++;
+        }
+
+        // later appends must not be followed by what is left of an incomplete record
+        if (end + RECORD_HEADER_SIZE <= data.capacity() && data.getLong((int) end) != 0) {
+            Out.i("Discarding incomplete account record");
+            byte[] zeros = new byte[(int) Math.min(65536, data.capacity() - end)];
+            ByteBuffer buffer = data.duplicate();
+            buffer.position((int) end);
+            while (buffer.hasRemaining())
+                buffer.put(zeros, 0, Math.min(zeros.length, buffer.remaining()));
+            data.force();
+        }
+
+        if (replayed > 0) {
+            Out.i("Indexed " + replayed + " account records");
+            writeIndexHeader();
+            index.force();
+        }
+    }
+
+    /**
+     *
+     * @param username
+     * @return
+     *          true if store has account with username
+     * @throws IOException
+     */
+    /*package-private*/ boolean contains(String username) throws IOException {
+        lock.readLock().lock();
+        try {
+            return offsetAt(index, findSlot(username, hash(username))) != 0;
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     *
+     * @param username
+     * @return
+     *          latest account record of username or null if there is no such account
+     * @throws IOException
+     */
+    /*package-private*/ byte[] read(String username) throws IOException {
+        lock.readLock().lock();
+        try {
+            long offset = offsetAt(index, findSlot(username, hash(username)));
+            if (offset == 0)
+                return null;
+
+            byte[] record = readFrame(offset);
+            if (record == null)
+                throw new IOException("Corrupt account record of " + username);
+
+            return record;
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Appends records and waits until they are on disk
+     *
+     * @param batch
+     * @throws IOException
+     */
+    /*package-private*/ synchronized void write(List<AccountRecord> batch) throws IOException {
+        long size = 0;
+        for (AccountRecord record : batch)
+            size += RECORD_HEADER_SIZE + record.length();
+
+        ensureDataCapacity(end + size);
+
+        // past data end, so lookups never see these bytes until indexed
+        ByteBuffer out = data.duplicate();
+        out.position((int) end);
+        for (AccountRecord record : batch) {
+            out.putInt(record.length()).putInt(record.crc);
+            record.writeTo(out);
+        }
+
+        data.force();
+
+        for (AccountRecord record : batch) {
+            put(record.username, end, record.length());
+            end += RECORD_HEADER_SIZE + record.length();
+        }
+
+        lock.writeLock().lock();
+        try {
+            writeIndexHeader();
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+
+        index.force();
+
+        if (end > MIN_COMPACT_BYTES && end - DATA_HEADER_SIZE > 2 * liveBytes)
+            compact();
+    }
+
+    /**
+     *
+     * @return
+     *          number of accounts
+     */
+    /*package-private*/ int size() {
+        lock.readLock().lock();
+        try {
+            return count;
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Must be called by the writer, probing reads records so
+     * the slot is found before the write lock is taken
+     */
+    private void put(String username, long offset, int length) throws IOException {
+        int hash = hash(username);
+        int slot = findSlot(username, hash);
+
+        lock.writeLock().lock();
+        try {
+            if ((count + 1) * 2 > capacity) {
+                resizeIndex(capacity * 2);
+                slot = findSlot(username, hash);
+            }
+
+            long oldOffset = offsetAt(index, slot);
+            if (oldOffset == 0)
+                count++;
+            else
+                liveBytes -= RECORD_HEADER_SIZE + data.getInt((int) oldOffset);
+
+            liveBytes += RECORD_HEADER_SIZE + length;
+
+            index.putInt(slotPosition(slot), hash);
+            index.putLong(slotPosition(slot) + 4, offset);
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     *
+     * @param username
+     * @param hash
+     * @return
+     *          slot of username or empty slot where it would be
+     * @throws IOException
+     */
+    private int findSlot(String username, int hash) throws IOException {
+        int mask = capacity - 1;
+
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            long offset = offsetAt(index, slot);
+            if (offset == 0)
+                return slot;
+
+            if (index.getInt(slotPosition(slot)) == hash) {
+                byte[] record = readFrame(offset);
+                if (record != null && username.equals(AccountCodec.decodeCredentials(record).getUserName()))
+                    return slot;
+            }
+        }
+    }
+
+    /**
+     *
+     * @param position
+     * @return
+     *          account record at position or null if there is no complete record
+     */
+    private byte[] readFrame(long position) {
+        if (position + RECORD_HEADER_SIZE > data.capacity())
+            return null;
+
+        int length = data.getInt((int) position);
+        int crc = data.getInt((int) position + 4);
+        if (length <= 0 || position + RECORD_HEADER_SIZE + length > data.capacity())
+            return null;
+
+        byte[] record = new byte[length];
+        ByteBuffer buffer = data.duplicate();
+        buffer.position((int) position + RECORD_HEADER_SIZE);
+        buffer.get(record);
+
+        return crc == AccountRecord.checksum(record) ? record : null;
+    }
+
+    private void ensureDataCapacity(long size) throws IOException {
+        if (size <= data.capacity())
+            return;
+
+        if (size > Integer.MAX_VALUE)
+            throw new IOException("Account data file is full");
+
+        long newCapacity = Math.min(Math.max(size, 2L * data.capacity()), Integer.MAX_VALUE);
+        MappedByteBuffer newData = dataChannel.map(MapMode.READ_WRITE, 0, newCapacity);
+
+        lock.writeLock().lock();
+        data = newData;
+        lock.writeLock().unlock();
+    }
+
+    /**
+     * Moves all slots to a new index file with given capacity.
+     * Must be called with write lock held
+     *
+     * @param newCapacity
+     * @throws IOException
+     */
+    private void resizeIndex(int newCapacity) throws IOException {
+        Path tmpFile = tmpPath(indexFile);
+        FileChannel newChannel = FileChannel.open(tmpFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer newIndex = newChannel.map(MapMode.READ_WRITE, 0, INDEX_HEADER_SIZE + (long) newCapacity * SLOT_SIZE);
+
+        int mask = newCapacity - 1;
+        for (int slot = 0; index != null && slot < capacity; slot++) {
+            long offset = offsetAt(index, slot);
+            if (offset == 0)
+                continue;
+
+            int hash = index.getInt(slotPosition(slot));
+            int newSlot = hash & mask;
+            while (offsetAt(newIndex, newSlot) != 0)
+                newSlot = (newSlot + 1) & mask;
+
+            newIndex.putInt(slotPosition(newSlot), hash);
+            newIndex.putLong(slotPosition(newSlot) + 4, offset);
+        }
+
+        if (indexChannel != null)
+            indexChannel.close();
+
+        indexChannel = newChannel;
+        index = newIndex;
+        capacity = newCapacity;
+        writeIndexHeader();
+        index.force();
+
+        Files.move(tmpFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Copies live records to a new data file of next generation, with a new index to match,
+     * each replaces the old file in a single move.
+     * If only the data file is replaced, its index is rebuilt on next open.
+     * Live records are copied without the write lock, only the swap takes it
+     *
+     * @throws IOException
+     */
+    private void compact() throws IOException {
+        long start = System.nanoTime();
+        long oldEnd = end;
+
+        Path tmpData = tmpPath(dataFile), tmpIndex = tmpPath(indexFile);
+        FileChannel newDataChannel = FileChannel.open(tmpData, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileChannel newIndexChannel = FileChannel.open(tmpIndex, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        MappedByteBuffer newData = newDataChannel.map(MapMode.READ_WRITE, 0,
+                Math.min(Math.max(MIN_DATA_CAPACITY, DATA_HEADER_SIZE + 2 * liveBytes), Integer.MAX_VALUE));
+        MappedByteBuffer newIndex = newIndexChannel.map(MapMode.READ_WRITE, 0, index.capacity());
+
+        newData.putInt(0, DATA_MAGIC);
+        newData.putLong(4, generation + 1);
+
+        ByteBuffer out = newData.duplicate();
+        out.position(DATA_HEADER_SIZE);
+
+        for (int slot = 0; slot < capacity; slot++) {
+            long offset = offsetAt(index, slot);
+            if (offset == 0)
+                continue;
+
+            ByteBuffer frame = data.duplicate();
+            frame.position((int) offset);
+            frame.limit((int) offset + RECORD_HEADER_SIZE + data.getInt((int) offset));
+
+            newIndex.putInt(slotPosition(slot), index.getInt(slotPosition(slot)));
+            newIndex.putLong(slotPosition(slot) + 4, out.position());
+            out.put(frame);
+        }
+
+        newData.force();
+
+        FileChannel oldDataChannel = dataChannel, oldIndexChannel = indexChannel;
+
+        lock.writeLock().lock();
+        try {
+            dataChannel = newDataChannel;
+            indexChannel = newIndexChannel;
+            data = newData;
+            index = newIndex;
+            generation++;
+            end = out.position();
+
+            writeIndexHeader();
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+
+        oldDataChannel.close();
+        oldIndexChannel.close();
+        index.force();
+
+        Files.move(tmpData, dataFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.move(tmpIndex, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        Out.d("AccountStore", "Compacted " + oldEnd + " to " + end + " bytes in "
+                + (System.nanoTime() - start) / 1000000 + " ms");
+    }
+
+    private void writeIndexHeader() {
+        index.putInt(0, INDEX_MAGIC);
+        index.putInt(4, capacity);
+        index.putInt(8, count);
+        index.putLong(16, generation);
+        index.putLong(24, end);
+        index.putLong(32, liveBytes);
+    }
+
+    private static long offsetAt(ByteBuffer index, int slot) {
+        return index.getLong(slotPosition(slot) + 4);
+    }
+
+    private static int slotPosition(int slot) {
+        return INDEX_HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    /**
+     * Stored on disk, so must not depend on the JVM
+     */
+    private static int hash(String username) {
+        int h = username.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static Path tmpPath(Path file) {
+        return file.resolveSibling(file.getFileName() + ".tmp");
+    }
+}
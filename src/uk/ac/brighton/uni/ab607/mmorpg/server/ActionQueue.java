@@ -0,0 +1,106 @@
+package uk.ac.brighton.uni.ab607.mmorpg.server;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import uk.ac.brighton.uni.ab607.mmorpg.common.request.ActionRequest;
+import uk.ac.brighton.uni.ab607.mmorpg.common.request.ActionRequest.Action;
+
+/**
+ * Action requests waiting for a map's next tick
+ *
+ * Any thread may offer, only the map's lane drains. Requests come out
+ * in the order they arrived, except that
+ * only the latest MOVE of each player in a tick is kept (in its place)
+ * and each player gets at most {@link #MAX_ACTIONS_PER_TICK} requests per tick
+ */
+/*package-private*/ class ActionQueue {
+
+    /*package-private*/ static final int MAX_ACTIONS_PER_TICK = 8;
+
+    private final ConcurrentLinkedQueue<ActionRequest> queue = new ConcurrentLinkedQueue<ActionRequest>();
+
+    /**
+     * Drain buffers, only touched by the draining thread
+     */
+    private ArrayList<ActionRequest> pending = new ArrayList<ActionRequest>();
+    private HashSet<String> moved = new HashSet<String>();
+    private HashMap<String, Integer> counts = new HashMap<String, Integer>();
+
+    /**
+     * Only touched by the draining thread
+     */
+    private long coalesced = 0, dropped = 0;
+
+    /**
+     * Can be called from any thread
+     *
+     * @param requests
+     */
+    /*package-private*/ void offer(ActionRequest... requests) {
+        for (ActionRequest req : requests)
+            queue.offer(req);
+    }
+
+    /**
+     * Moves all queued requests to batch
+     *
+     * @param batch
+     *              requests to apply this tick, in order
+     */
+    /*package-private*/ void drainTo(List<ActionRequest> batch) {
+        pending.clear();
+
+        ActionRequest req;
+        while ((req = queue.poll()) != null)
+            pending.add(req);
+
+        // latest MOVE wins, so walk backwards
+        moved.clear();
+        for (int i = pending.size() - 1; i >= 0; i--) {
+            req = pending.get(i);
+            if (req.action == Action.MOVE && !moved.add(req.playerName)) {
+                pending.set(i, null);
+                coalesced++;
+            }
+        }
+
+        counts.clear();
+        for (int i = 0; i < pending.size(); i++) {
+            req = pending.get(i);
+            if (req == null)
+                continue;
+
+            int count = counts.merge(req.playerName, 1, Integer::sum);
+            if (count > MAX_ACTIONS_PER_TICK) {
+                dropped++;
+                continue;
+            }
+
+            batch.add(req);
+        }
+
+        pending.clear();
+    }
+
+    /**
+     *
+     * @return
+     *          number of MOVE requests replaced by a later one
+     */
+    /*package-private*/ long getCoalesced() {
+        return coalesced;
+    }
+
+    /**
+     *
+     * @return
+     *          number of requests dropped by rate limit
+     */
+    /*package-private*/ long getDropped() {
+        return dropped;
+    }
+}
@@ -1,14 +1,29 @@
 package uk.ac.brighton.uni.ab607.mmorpg.server;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+import com.almasb.common.encryption.Account;
 import com.almasb.common.util.Out;
 import com.almasb.java.io.ResourceManager;
 
 /**
  * Handles all DB operations
  *
+ * Accounts are kept in an {@link AccountStore} and only loaded
+ * when looked up, so opening the DB does not depend on number of accounts.
+ * Loaded accounts are held by an {@link AccountCache}, pinned while their
+ * players are online. Saving an account captures it as a record on the calling
+ * thread, a background writer then appends queued records to the store
+ *
  * @author Almas Baimagambetov (ab607@uni.brighton.ac.uk)
  * @version 1.0
  *
@@ -17,44 +32,275 @@ public class DBAccess {
 
     private static final String RES_FOLDER = "res/";
     private static final String DB_FOLDER = "db/";
-    private static final String DB_FILE = DB_FOLDER + "accounts.db";
+    private static final String DATA_FILE = DB_FOLDER + "accounts.dat";
+    private static final String INDEX_FILE = DB_FOLDER + "accounts.idx";
+
+    /**
+     * Snapshot and journal used before the store,
+     * imported into the store and deleted when found
+     */
+    private static final String SNAPSHOT_FILE = DB_FOLDER + "accounts.db";
+    private static final String JOURNAL_FILE = DB_FOLDER + "accounts.journal";
+
+    /**
+     * Max number of accounts of offline players kept in memory
+     */
+    private static final int COLD_ACCOUNTS = 1000;
 
-    private static TreeMap<String, GameAccount> accounts;
+    private static AccountStore store;
+    private static AccountCache cache;
+    private static SaveWriter writer;
+
+    /**
+     * Saves of accounts that were not in memory, each one is a bug
+     */
+    private static final AtomicLong missedSaves = new AtomicLong();
 
     static {
-        accounts = loadDB();
+        store = new AccountStore(ResourceManager.getPathTo(RES_FOLDER + DATA_FILE),
+                ResourceManager.getPathTo(RES_FOLDER + INDEX_FILE));
+
+        try {
+            long start = System.nanoTime();
+            store.open();
+            importDB();
+
+            Out.i("Opened DB with " + store.size() + " accounts in "
+                    + (System.nanoTime() - start) / 1000000 + " ms");
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Failed to open DB", e);
+        }
+
+        cache = new AccountCache(COLD_ACCOUNTS, DBAccess::load);
+        writer = new SaveWriter(DBAccess::write);
+    }
+
+    private static GameAccount load(String username) throws IOException {
+        byte[] record = store.read(username);
+        return record == null ? null : AccountCodec.decode(record);
     }
 
-    public static void saveDB() {
+    /**
+     * Runs on the writer thread
+     */
+    private static void write(List<AccountRecord> batch) throws IOException {
+        store.write(batch);
+
+        for (AccountRecord record : batch)
+            cache.onSaveWritten(record.username);
+    }
+
+    /**
+     * Moves accounts from snapshot and journal into the store.
+     * If interrupted, import is repeated on next start
+     *
+     * @throws IOException
+     */
+    private static void importDB() throws IOException {
+        Path snapshotFile = ResourceManager.getPathTo(RES_FOLDER + SNAPSHOT_FILE);
+        Path journalFile = ResourceManager.getPathTo(RES_FOLDER + JOURNAL_FILE);
+
+        if (!Files.exists(snapshotFile) && !Files.exists(journalFile))
+            return;
+
+        Out.i("Importing DB into account store");
+
+        TreeMap<String, GameAccount> imported = Files.exists(snapshotFile)
+                ? AccountCodec.readSnapshot(snapshotFile) : new TreeMap<String, GameAccount>();
+
+        if (Files.exists(journalFile))
+            readJournal(journalFile, imported);
+
+        ArrayList<AccountRecord> records = new ArrayList<AccountRecord>();
+        for (GameAccount account : imported.values())
+            records.add(AccountRecord.capture(account));
+
+        store.write(records);
+
+        Files.delete(snapshotFile);
+        Files.deleteIfExists(journalFile);
+    }
+
+    /**
+     * Applies complete journal records [length (4)][crc32 (4)][account record]
+     * to accounts, later records of an account replace earlier ones
+     *
+     * @param file
+     * @param accounts
+     * @throws IOException
+     */
+    private static void readJournal(Path file, Map<String, GameAccount> accounts) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+
+        while (buffer.remaining() >= 8) {
+            int length = buffer.getInt();
+            int crc = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining())
+                break;
+
+            byte[] data = new byte[length];
+            buffer.get(data);
+            if (crc != AccountRecord.checksum(data))
+                break;
+
+            GameAccount account = AccountCodec.decode(data);
+            accounts.put(account.getUserName(), account);
+        }
+    }
+
+    /**
+     *
+     * @param username
+     * @return
+     *          true if account exists
+     */
+    public static boolean exists(String username) {
         try {
-            ResourceManager.writeJavaObject(RES_FOLDER + DB_FILE, accounts);
+            return cache.peek(username) != null || store.contains(username);
         }
         catch (IOException e) {
-            Out.i("Failed to save DB");
-            Out.e(e);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     *
+     * @param username
+     * @return
+     *          account, loaded from store if needed, or null if there is no such account
+     */
+    public static GameAccount getAccount(String username) {
+        try {
+            return cache.get(username);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
 
-    @SuppressWarnings("unchecked")
-    private static TreeMap<String, GameAccount> loadDB() {
-        TreeMap<String, GameAccount> map = null;
+    /**
+     * Keeps account in memory while its player is online
+     *
+     * @param username
+     * @return
+     *          account or null if there is no such account
+     */
+    public static GameAccount pinAccount(String username) {
+        try {
+            return cache.pin(username);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Allows account to be evicted once it is saved,
+     * called after the player's last save
+     *
+     * @param username
+     */
+    public static void unpinAccount(String username) {
+        cache.unpin(username);
+    }
+
+    /**
+     * Account credentials without loading the player
+     *
+     * @param username
+     * @return
+     *          username, encrypted password and key, or null if there is no such account
+     */
+    public static Account getCredentials(String username) {
+        GameAccount account = cache.peek(username);
+        if (account != null)
+            return account;
 
         try {
-            map = (TreeMap<String, GameAccount>) ResourceManager.loadJavaObject(RES_FOLDER + DB_FILE);
+            byte[] record = store.read(username);
+            return record == null ? null : AccountCodec.decodeCredentials(record);
         }
-        catch (IOException | ClassNotFoundException e) {
-            Out.e(e);
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
+    }
 
-        if (map == null) {
-            map = new TreeMap<String, GameAccount>();
-            Out.i("Using new DB");
+    /**
+     * Adds new account and queues it for writing
+     *
+     * @param account
+     */
+    public static void addAccount(GameAccount account) {
+        cache.add(account);
+        saveAccount(account.getUserName());
+    }
+
+    /**
+     * Captures account as it is now and queues it for writing,
+     * unless it is the same as the account's last queued capture.
+     * Must be called on the thread that owns the account's player,
+     * i.e. the player's map lane if the player is online
+     *
+     * @param username
+     * @return
+     *          false if save queue is full, account must be saved again later,
+     *          or if account is not in memory, which is logged
+     */
+    public static boolean saveAccount(String username) {
+        GameAccount account = cache.peek(username);
+        if (account == null) {
+            missedSaves.incrementAndGet();
+            Out.e("saveAccount", "Account not in memory, save dropped: " + username, null, null);
+            return false;
+        }
+
+        AccountRecord record = AccountRecord.capture(account);
+        if (!cache.onSaveQueued(record) || writer.offer(record))
+            return true;
+
+        cache.onSaveRejected(username);
+        return false;
+    }
+
+    /**
+     * Saves accounts of offline players whose last save was rejected,
+     * they can't be evicted until saved
+     */
+    public static void retryRejectedSaves() {
+        cache.saveUnsaved(writer::offer);
+    }
+
+    /**
+     * Writes all queued saves on the calling thread, called on server
+     * shutdown once nothing else saves accounts. Later saves are rejected
+     */
+    /*package-private*/ static void close() {
+        retryRejectedSaves();
+
+        try {
+            writer.close();
+        }
+        catch (IOException e) {
+            Out.i("Failed to write queued account records");
+            Out.e(e);
         }
+    }
+
+    /**
+     *
+     * @return
+     *          number of saves dropped because account was not in memory
+     */
+    /*package-private*/ static long getMissedSaves() {
+        return missedSaves.get();
+    }
 
-        return map;
+    /*package-private*/ static AccountCache getCache() {
+        return cache;
     }
 
-    public static TreeMap<String, GameAccount> getAccounts() {
-        return accounts;
+    /*package-private*/ static SaveWriter getWriter() {
+        return writer;
     }
 }
@@ -1,5 +1,9 @@
 package uk.ac.brighton.uni.ab607.mmorpg.server;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 import com.almasb.common.encryption.Account;
 import com.almasb.common.encryption.Encryptor;
 import com.almasb.common.encryption.PasswordManager;
@@ -48,12 +52,38 @@ public class GameAccount extends Account {
         mapName = "map1.txt";
     }
 
+    /**
+     * Account loaded from DB
+     */
+    private GameAccount(String username, String password, String key, String mapName, Player player) {
+        super(username, password, key);
+        this.mapName = mapName;
+        this.player = player;
+    }
+
     public static boolean addAccount(String username, String password, String email) {
-        if (DBAccess.getAccounts().containsKey(username)) {
+        if (DBAccess.exists(username)) {
             Out.e("GameAccount::addAccount", "Can't create account - username exists", null, null);
             return false;
         }
 
+        GameAccount account = create(username, password);
+        if (account == null)
+            return false;
+
+        DBAccess.addAccount(account);
+        return true;
+    }
+
+    /**
+     * Creates a new account without adding it to DB
+     *
+     * @param username
+     * @param password
+     * @return
+     *          new account or null if password can't be encrypted
+     */
+    public static GameAccount create(String username, String password) {
         String passkey = Encryptor.generateKey(password.length());
         String encryptedPass = "";
         try {
@@ -62,11 +92,37 @@ public class GameAccount extends Account {
         catch (IllegalArgumentException e) {
             Out.i("Can't create account");
             Out.e(e);
-            return false;
+            return null;
         }
 
-        DBAccess.getAccounts().put(username, new GameAccount(username, encryptedPass, passkey));
-        return true;
+        return new GameAccount(username, encryptedPass, passkey);
+    }
+
+    public Player getPlayer() {
+        return player;
+    }
+
+    /**
+     * Format is described by {@link AccountCodec}
+     *
+     * @param out
+     * @throws IOException
+     */
+    /*package-private*/ void writeState(DataOutput out) throws IOException {
+        out.writeUTF(getUserName());
+        out.writeUTF(getEncryptedPassword());
+        out.writeUTF(getKey());
+        out.writeUTF(mapName);
+        player.writeState(out);
+    }
+
+    /*package-private*/ static GameAccount readState(DataInput in, int version) throws IOException {
+        String username = in.readUTF();
+        String password = in.readUTF();
+        String key = in.readUTF();
+        String mapName = in.readUTF();
+
+        return new GameAccount(username, password, key, mapName, Player.readState(username, in, version));
     }
 
     /**
@@ -76,15 +132,15 @@ public class GameAccount extends Account {
      *          false otherwise
      */
     public static boolean exists(String username) {
-        return DBAccess.getAccounts().containsKey(username);
+        return DBAccess.exists(username);
     }
 
     private static GameAccount getAccountByUserName(String username) {
-        return DBAccess.getAccounts().get(username);
+        return DBAccess.getAccount(username);
     }
 
     public static boolean validateLogin(final String username, final String pass) {
-        Account acc = getAccountByUserName(username);
+        Account acc = DBAccess.getCredentials(username);
         if (acc == null)
             return false;
         return PasswordManager.isValid(acc, pass);
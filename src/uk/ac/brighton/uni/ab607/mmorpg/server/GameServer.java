@@ -3,24 +3,27 @@ package uk.ac.brighton.uni.ab607.mmorpg.server;
 import java.io.IOException;
 import java.net.SocketException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.almasb.common.graphics.Color;
 import com.almasb.common.net.ClientPacketParser;
 import com.almasb.common.net.DataPacket;
 import com.almasb.common.net.UDPServer;
-import com.almasb.common.search.AStarLogic;
-import com.almasb.common.search.AStarNode;
 import com.almasb.common.util.Out;
 
 import uk.ac.brighton.uni.ab607.mmorpg.common.*;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.EnemyPool;
 import uk.ac.brighton.uni.ab607.mmorpg.common.object.GameMap;
 import uk.ac.brighton.uni.ab607.mmorpg.common.object.ID;
 import uk.ac.brighton.uni.ab607.mmorpg.common.object.ObjectManager;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.Pathfinder;
 import uk.ac.brighton.uni.ab607.mmorpg.common.request.ActionRequest;
 import uk.ac.brighton.uni.ab607.mmorpg.common.request.AnimationMessage;
 import uk.ac.brighton.uni.ab607.mmorpg.common.request.ImageAnimationMessage;
@@ -32,13 +35,30 @@ import uk.ac.brighton.uni.ab607.mmorpg.common.request.TextAnimationMessage;
 public class GameServer {
     private UDPServer server = null;
 
-    private int playerRuntimeID = 1000;
+    /**
+     * Starts above template IDs, clients tell players from enemies by it
+     */
+    private int playerRuntimeID = ObjectManager.MAX_TEMPLATES;
 
-    private ArrayList<Player> players = new ArrayList<Player>();
+    /**
+     * Online players by name and lanes of maps they are on
+     * Accessed from network thread and map lanes
+     */
+    private ConcurrentHashMap<String, Player> players = new ConcurrentHashMap<String, Player>();
+    private ConcurrentHashMap<String, MapScheduler.Lane> playerLanes = new ConcurrentHashMap<String, MapScheduler.Lane>();
+
+    /**
+     * Set while a world save is posted to lanes, further
+     * world saves until every lane has saved are ignored
+     */
+    private final AtomicBoolean saveStatePending = new AtomicBoolean(false);
 
     private ServerActionHandler actionHandler;
 
     private ArrayList<GameMap> maps = new ArrayList<GameMap>();
+    private HashMap<String, GameMap> mapsByName = new HashMap<String, GameMap>();
+    private MapScheduler scheduler;
+    private ScheduledThreadPoolExecutor saveTimer = new ScheduledThreadPoolExecutor(1);
 
     public GameServer() throws SocketException {
         actionHandler = new ServerActionHandler(this);
@@ -49,12 +69,34 @@ public class GameServer {
         // init server connection
         server = new UDPServer(55555, new ClientQueryParser());
 
-        // start main server loop
-        //new Thread(new ServerLoop()).start();
-        Executors.newSingleThreadScheduledExecutor().scheduleAtFixedRate(this::serverLoop, 0, 20, TimeUnit.MILLISECONDS);
+        // start main server loop, each map ticks in its own lane
+        scheduler = new MapScheduler(maps, server, this::processActions);
+        scheduler.start();
 
         // call save state to db every 5 mins
-        new ScheduledThreadPoolExecutor(1).scheduleAtFixedRate(this::saveState, 5, 5, TimeUnit.MINUTES);
+        saveTimer.scheduleAtFixedRate(this::saveState, 5, 5, TimeUnit.MINUTES);
+
+        // save writer thread is a daemon, queued saves are written here on exit
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "GameServer shutdown"));
+    }
+
+    /**
+     * Entry point of the headless server jar, same as ClientMain -server
+     * but without client classes on the classpath
+     *
+     * @param args
+     */
+    public static void main(String[] args) {
+        // load game data
+        ObjectManager.load();
+
+        try {
+            new GameServer();
+        }
+        catch (Exception e) {
+            Out.e(e);
+            Out.println("Application will now close");
+        }
     }
 
     private interface QueryAction {
@@ -82,9 +124,9 @@ public class GameServer {
                 }
             }
 
-            // handle action requests from clients
+            // queue action requests from clients, they are applied on next tick of their map
             if (packet.multipleObjectData instanceof ActionRequest[]) {
-                actionHandler.process((ActionRequest[]) packet.multipleObjectData);
+                queueActions((ActionRequest[]) packet.multipleObjectData);
             }
         }
 
@@ -108,7 +150,7 @@ public class GameServer {
         private void actionLogin(DataPacket packet, QueryRequest req) throws IOException {
             String name = req.value1;
             // get data from game account
-            if (GameAccount.exists(name)) {
+            if (DBAccess.pinAccount(name) != null) {
                 Player p = GameAccount.getPlayer(name);
                 p.ip = packet.getIP();
                 p.port = packet.getPort();
@@ -128,6 +170,7 @@ public class GameServer {
                 String nam = "Debug";
 
                 GameAccount.addAccount(nam, "pass", "test@mail.com");
+                DBAccess.pinAccount(nam);
                 Player p = GameAccount.getPlayer(nam);
                 p.ip = packet.getIP();
                 p.port = packet.getPort();
@@ -172,28 +215,51 @@ public class GameServer {
          *                  name of the player to disconnect
          */
         private void closePlayerConnection(String playerName) {
-            Player p = null;
-            for (GameMap m : maps) {
-                p = m.getPlayerByName(playerName);
-                if (p != null) {
-                    players.remove(p);
-                    m.removePlayer(p);
-                    GameAccount.setPlayer(p, p.name);
-                    GameAccount.setMapName(m.name, p.name);
-                    DBAccess.saveDB();
-                    break;
-                }
-            }
+            Player p = players.remove(playerName);
+            MapScheduler.Lane lane = playerLanes.remove(playerName);
+            if (p == null || lane == null)
+                return;
+
+            lane.post(() -> {
+                lane.map.removePlayer(p);
+                GameAccount.setPlayer(p, p.name);
+                GameAccount.setMapName(lane.map.name, p.name);
+                DBAccess.saveAccount(p.name);
+                DBAccess.unpinAccount(p.name);
+            });
         }
     }
 
-    private void serverLoop() {
-        try {
-            for (GameMap map : maps)
-                map.update(server);
+    /**
+     * Queues requests on the lanes of maps where requesting players are
+     *
+     * @param requests
+     */
+    private void queueActions(ActionRequest... requests) {
+        for (ActionRequest req : requests) {
+            MapScheduler.Lane lane = playerLanes.get(req.playerName);
+            if (lane != null)
+                lane.actions.offer(req);
         }
-        catch (Exception e) {
-            e.printStackTrace();
+    }
+
+    /**
+     * Called on a lane at the start of its tick
+     */
+    private void processActions(MapScheduler.Lane lane, List<ActionRequest> batch) {
+        for (ActionRequest req : batch) {
+            // player logged off after request was queued
+            if (playerLanes.get(req.playerName) != lane) {
+                queueActions(req);
+                continue;
+            }
+
+            try {
+                actionHandler.process(req);
+            }
+            catch (Exception e) {
+                Out.e("processActions", "Failed to process " + req.action, this, e);
+            }
         }
     }
 
@@ -205,14 +271,7 @@ public class GameServer {
      *          player if name exists on the server (is online), if not then null
      */
     /*package-private*/ Player getPlayerByName(String name) {
-        Player p = null;
-        for (GameMap m : maps) {
-            p = m.getPlayerByName(name);
-            if (p != null)
-                return p;
-        }
-
-        return null;
+        return players.get(name);
     }
 
     /**
@@ -232,11 +291,7 @@ public class GameServer {
     }
 
     /*package-private*/ GameMap getMapByName(String name) {
-        for (GameMap m : maps)
-            if (m.name.equals(name))
-                return m;
-
-        return null;
+        return mapsByName.get(name);
     }
 
     /*package-private*/ void moveObject(GameCharacter ch, String mapName, int x, int y) {
@@ -247,40 +302,18 @@ public class GameServer {
         if (x < 0 || x >= m.width || y < 0 || y >= m.height)
             return;
 
-        AStarNode[][] grid = m.getGrid();
-
-        AStarNode targetNode = grid[x][y];
-        AStarNode startN = grid[ch.getX()/40][ch.getY() / 40];
-
-        for (int i = 0; i < m.width; i++)
-            for (int j = 0; j < m.height; j++)
-                grid[i][j].setHCost(Math.abs(x - i) + Math.abs(y - j));
+        Pathfinder.Path path = m.getPath(ch, x, y);
 
+        if (!path.isEmpty()) {
+            int nextX = path.getNextX() * 40, nextY = path.getNextY() * 40;
 
-        ArrayList<AStarNode> busyNodes = new ArrayList<AStarNode>();
-        // find "busy" nodes
-        //for (Enemy e : enemies) {
-        //busyNodes.add(new AStarNode(e.getX()/40, e.getY()/40, 0, 1));
-        //}
-
-        AStarNode[] busy = new AStarNode[busyNodes.size()];
-        for (int i = 0; i < busyNodes.size(); i++)
-            busy[i] = busyNodes.get(i);
-
-        List<AStarNode> closed = new AStarLogic().getPath(grid, startN, targetNode, busy);
-
-        //Out.d("moveObject", closed.size() + "");
-
-        if (closed.size() > 0) {
-            AStarNode n = closed.get(0);
-
-            if (ch.getX() > n.getX() * 40)
+            if (ch.getX() > nextX)
                 ch.xSpeed = -5;
-            if (ch.getX() < n.getX() * 40)
+            if (ch.getX() < nextX)
                 ch.xSpeed = 5;
-            if (ch.getY() > n.getY() * 40)
+            if (ch.getY() > nextY)
                 ch.ySpeed = -5;
-            if (ch.getY() < n.getY() * 40)
+            if (ch.getY() < nextY)
                 ch.ySpeed = 5;
 
             ch.move();
@@ -293,13 +326,15 @@ public class GameServer {
     private void loginPlayer(String mapName, Player p) {
         p.setRuntimeID(playerRuntimeID++);
         GameMap m = getMapByName(mapName);
-        m.addPlayer(p);
+        MapScheduler.Lane lane = scheduler.getLane(mapName);
+        lane.post(() -> m.addPlayer(p));
 
-        players.add(p);
+        players.put(p.name, p);
+        playerLanes.put(p.name, lane);
 
         try {
             String data = "";
-            for (Player player : players) {
+            for (Player player : players.values()) {
                 data += player.getRuntimeID() + "," + player.name + ";";
             }
 
@@ -325,17 +360,109 @@ public class GameServer {
 
     private void initGameMaps() {
         maps.add(ObjectManager.getMapByName("map1.txt"));
+
+        for (GameMap m : maps)
+            mapsByName.put(m.name, m);
     }
 
+    /**
+     * Players are captured on their map lanes before next tick,
+     * so a capture never sees a player halfway through an update.
+     * Captured records are written to DB in the background
+     */
     public void saveState() {
-        for (GameMap m : maps) {
-            for (Player p : m.getPlayers()) {
-                GameAccount.setPlayer(p, p.name);
-                GameAccount.setMapName(m.name, p.name);
-            }
+        if (!saveStatePending.compareAndSet(false, true)) {
+            Out.d("saveState", "world save already pending");
+            return;
+        }
+
+        Collection<MapScheduler.Lane> lanes = scheduler.getLanes();
+        AtomicInteger remaining = new AtomicInteger(lanes.size());
+        if (lanes.isEmpty())
+            saveStatePending.set(false);
+
+        for (MapScheduler.Lane lane : lanes) {
+            lane.post(() -> {
+                try {
+                    savePlayers(lane.map);
+                }
+                finally {
+                    if (remaining.decrementAndGet() == 0)
+                        saveStatePending.set(false);
+                }
+
+                EnemyPool pool = lane.map.getEnemyPool();
+                Out.d("saveState", lane.map.name + " enemies created: " + pool.getCreated()
+                        + ", reused: " + pool.getReused() + ", reuse rate: "
+                        + String.format("%.2f", pool.getReuseRate()) + ", pooled: " + pool.size());
+                Out.d("saveState", lane.map.name + " ticks: " + lane.getTicks() + ", overruns: "
+                        + lane.getOverruns() + ", skipped: " + lane.getSkipped());
+                Out.d("saveState", lane.map.name + " moves coalesced: " + lane.actions.getCoalesced()
+                        + ", actions dropped: " + lane.actions.getDropped());
+            });
+        }
+
+        DBAccess.retryRejectedSaves();
+
+        SaveWriter writer = DBAccess.getWriter();
+        Out.d("saveState", "records queued: " + writer.getQueued() + ", written: " + writer.getWritten()
+                + ", rejected: " + writer.getRejected() + ", max queue depth: " + writer.getMaxDepth()
+                + ", last write: " + writer.getLastBatchMillis() + " ms");
+
+        AccountCache cache = DBAccess.getCache();
+        Out.d("saveState", "accounts pinned: " + cache.getPinned() + ", cold: " + cache.getCold()
+                + ", hits: " + cache.getHits() + ", misses: " + cache.getMisses()
+                + ", evictions: " + cache.getEvictions() + ", missed saves: " + DBAccess.getMissedSaves()
+                + ", unchanged: " + cache.getUnchanged());
+    }
+
+    /**
+     * Saves a single player, must be called on the player's lane
+     *
+     * @param p
+     */
+    /*package-private*/ void savePlayer(Player p) {
+        MapScheduler.Lane lane = playerLanes.get(p.name);
+        if (lane != null)
+            savePlayer(p, lane.map);
+    }
+
+    /**
+     * Must be called on the map's lane
+     *
+     * @param map
+     */
+    private void savePlayers(GameMap map) {
+        for (Player p : map.getPlayers())
+            savePlayer(p, map);
+    }
+
+    private void savePlayer(Player p, GameMap map) {
+        GameAccount.setPlayer(p, p.name);
+        GameAccount.setMapName(map.name, p.name);
+        DBAccess.saveAccount(p.name);
+    }
+
+    /**
+     * Stops map lanes, saves players still online and
+     * writes all queued saves before the JVM exits
+     */
+    private void shutdown() {
+        saveTimer.shutdown();
+
+        try {
+            scheduler.shutdown();
+
+            // lanes have stopped, maps are only accessed from this thread now
+            for (GameMap m : maps)
+                savePlayers(m);
+        }
+        catch (InterruptedException e) {
+            Out.e(e);
         }
 
-        DBAccess.saveDB();
+        DBAccess.close();
+        Out.i("Server stopped");
     }
 
     /**
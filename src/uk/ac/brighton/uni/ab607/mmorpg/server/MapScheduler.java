@@ -0,0 +1,209 @@
+package uk.ac.brighton.uni.ab607.mmorpg.server;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.GameMap;
+import uk.ac.brighton.uni.ab607.mmorpg.common.request.ActionRequest;
+
+import com.almasb.common.net.UDPServer;
+import com.almasb.common.util.Out;
+
+/**
+ * Ticks every game map in its own lane on a bounded pool of workers,
+ * so that a busy map does not delay others
+ *
+ * A lane never runs on two threads at once. Anything that touches a map
+ * from outside must be posted to the map's lane, it will then run
+ * on the lane's thread before the next update. Client action requests
+ * go to the lane's {@link ActionQueue} and are applied as one batch
+ * at the start of each tick
+ */
+/*package-private*/ class MapScheduler {
+
+    /*package-private*/ static final int TICK_MS = 20;
+
+    /**
+     * Applies a tick's batch of action requests on the lane
+     */
+    /*package-private*/ interface ActionProcessor {
+        public void process(Lane lane, List<ActionRequest> batch);
+    }
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+    private final ExecutorService workers;
+
+    private final HashMap<String, Lane> lanes = new HashMap<String, Lane>();
+
+    /*package-private*/ MapScheduler(List<GameMap> maps, UDPServer server, ActionProcessor processor) {
+        for (GameMap map : maps)
+            lanes.put(map.name, new Lane(map, server, processor));
+
+        workers = Executors.newFixedThreadPool(Math.max(1,
+                Math.min(maps.size(), Runtime.getRuntime().availableProcessors())));
+    }
+
+    /*package-private*/ void start() {
+        timer.scheduleAtFixedRate(this::tick, 0, TICK_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops ticking and waits for running ticks to finish.
+     * Tasks still posted to lanes are then run on the calling thread,
+     * which owns the maps from then on
+     *
+     * @throws InterruptedException
+     */
+    /*package-private*/ void shutdown() throws InterruptedException {
+        timer.shutdown();
+        timer.awaitTermination(1, TimeUnit.MINUTES);
+        workers.shutdown();
+        workers.awaitTermination(1, TimeUnit.MINUTES);
+
+        for (Lane lane : lanes.values())
+            lane.runTasks();
+    }
+
+    private void tick() {
+        for (Lane lane : lanes.values())
+            lane.schedule(workers);
+    }
+
+    /**
+     *
+     * @param mapName
+     * @return
+     *          lane of the map or null if no such map
+     */
+    /*package-private*/ Lane getLane(String mapName) {
+        return lanes.get(mapName);
+    }
+
+    /*package-private*/ Collection<Lane> getLanes() {
+        return Collections.unmodifiableCollection(lanes.values());
+    }
+
+    /**
+     * A single map with its mailbox and action queue
+     */
+    /*package-private*/ static class Lane {
+        /*package-private*/ final GameMap map;
+        /*package-private*/ final ActionQueue actions = new ActionQueue();
+
+        private final UDPServer server;
+        private final ActionProcessor processor;
+        private final ArrayList<ActionRequest> batch = new ArrayList<ActionRequest>();
+
+        private final ConcurrentLinkedQueue<Runnable> mailbox = new ConcurrentLinkedQueue<Runnable>();
+        private final AtomicBoolean busy = new AtomicBoolean(false);
+
+        private final AtomicLong ticks = new AtomicLong(), overruns = new AtomicLong(), skipped = new AtomicLong();
+
+        private Lane(GameMap map, UDPServer server, ActionProcessor processor) {
+            this.map = map;
+            this.server = server;
+            this.processor = processor;
+        }
+
+        /**
+         * Runs task on this lane before next update,
+         * can be called from any thread
+         *
+         * @param task
+         */
+        /*package-private*/ void post(Runnable task) {
+            mailbox.add(task);
+        }
+
+        /**
+         * If previous tick is still running, this tick is skipped
+         */
+        private void schedule(Executor executor) {
+            if (!busy.compareAndSet(false, true)) {
+                skipped.incrementAndGet();
+                return;
+            }
+
+            executor.execute(this::run);
+        }
+
+        private void runTasks() {
+            Runnable task;
+            while ((task = mailbox.poll()) != null) {
+                try {
+                    task.run();
+                }
+                catch (Exception e) {
+                    Out.e("run", "Task failed on map lane " + map.name, this, e);
+                }
+            }
+        }
+
+        private void run() {
+            long start = System.nanoTime();
+
+            try {
+                runTasks();
+
+                actions.drainTo(batch);
+                if (!batch.isEmpty()) {
+                    try {
+                        processor.process(this, batch);
+                    }
+                    finally {
+                        batch.clear();
+                    }
+                }
+
+                map.update(server);
+            }
+            catch (Exception e) {
+                Out.e("run", "Update failed on map lane " + map.name, this, e);
+            }
+            finally {
+                ticks.incrementAndGet();
+
+                long took = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                if (took > TICK_MS) {
+                    overruns.incrementAndGet();
+                    Out.d("tick overrun", map.name + " took " + took + " ms");
+                }
+
+                busy.set(false);
+            }
+        }
+
+        public long getTicks() {
+            return ticks.get();
+        }
+
+        /**
+         *
+         * @return
+         *          number of ticks that took longer than {@link MapScheduler#TICK_MS}
+         */
+        public long getOverruns() {
+            return overruns.get();
+        }
+
+        /**
+         *
+         * @return
+         *          number of ticks not run because previous tick was still running
+         */
+        public long getSkipped() {
+            return skipped.get();
+        }
+    }
+}
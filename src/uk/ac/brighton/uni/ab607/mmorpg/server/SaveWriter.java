@@ -0,0 +1,204 @@
+package uk.ac.brighton.uni.ab607.mmorpg.server;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.almasb.common.util.Out;
+
+/**
+ * Writes account records on its own thread, so that
+ * saving never runs on a map lane or the receive thread
+ *
+ * The queue is bounded. When it is full a record is rejected
+ * rather than blocking the caller, the account is then saved
+ * with its next capture
+ *
+ * On shutdown {@link #close()} writes whatever is still queued
+ */
+/*package-private*/ class SaveWriter {
+
+    /*package-private*/ static final int QUEUE_CAPACITY = 1024;
+
+    private static final long POLL_MS = 100;
+
+    /**
+     * Writes a batch of records, called on the writer thread,
+     * or on the closing thread once the writer thread has stopped
+     */
+    /*package-private*/ interface Sink {
+        public void write(List<AccountRecord> batch) throws IOException;
+    }
+
+    private final ArrayBlockingQueue<AccountRecord> queue = new ArrayBlockingQueue<AccountRecord>(QUEUE_CAPACITY);
+    private final Sink sink;
+    private final Thread thread;
+
+    /**
+     * Records taken from queue but not yet written,
+     * kept across failed writes
+     */
+    private final ArrayList<AccountRecord> batch = new ArrayList<AccountRecord>();
+    private volatile boolean closed = false;
+
+    private final AtomicLong queued = new AtomicLong(), written = new AtomicLong(),
+            rejected = new AtomicLong(), batches = new AtomicLong();
+
+    private volatile int maxDepth = 0;
+    private volatile long lastBatchNanos = 0;
+
+    /*package-private*/ SaveWriter(Sink sink) {
+        this.sink = sink;
+
+        thread = new Thread(this::run, "SaveWriter");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Can be called from any thread, never blocks
+     *
+     * @param record
+     * @return
+     *          false if queue is full or writer is closed and record was rejected
+     */
+    /*package-private*/ boolean offer(AccountRecord record) {
+        if (closed) {
+            rejected.incrementAndGet();
+            return false;
+        }
+
+        if (!queue.offer(record)) {
+            if (rejected.incrementAndGet() % 100 == 1)
+                Out.d("SaveWriter", "Queue full, rejected " + rejected.get() + " records so far");
+            return false;
+        }
+
+        queued.incrementAndGet();
+
+        int depth = queue.size();
+        if (depth > maxDepth)
+            maxDepth = depth;
+
+        return true;
+    }
+
+    private void run() {
+        // not interrupted on close, an interrupt would close the store's file channels
+        while (!closed) {
+            try {
+                if (batch.isEmpty()) {
+                    AccountRecord record = queue.poll(POLL_MS, TimeUnit.MILLISECONDS);
+                    if (record == null)
+                        continue;
+
+                    batch.add(record);
+                }
+
+                writeBatch();
+            }
+            catch (InterruptedException e) {
+                return;
+            }
+            catch (Exception e) {
+                // keep the batch and retry with the next one
+                Out.i("Failed to write " + batch.size() + " account records");
+                Out.e(e);
+
+                try {
+                    TimeUnit.SECONDS.sleep(1);
+                }
+                catch (InterruptedException ie) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void writeBatch() throws IOException {
+        queue.drainTo(batch);
+
+        long start = System.nanoTime();
+        sink.write(batch);
+        lastBatchNanos = System.nanoTime() - start;
+
+        written.addAndGet(batch.size());
+        batches.incrementAndGet();
+        batch.clear();
+    }
+
+    /**
+     * Stops accepting records, waits for the writer thread to finish
+     * its current write and then writes all remaining records on the
+     * calling thread. Records offered after this are rejected,
+     * so it should be called once nothing else saves accounts
+     *
+     * @throws IOException
+     *          if remaining records could not be written
+     */
+    /*package-private*/ void close() throws IOException {
+        if (closed)
+            return;
+
+        closed = true;
+
+        try {
+            thread.join();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for writer thread", e);
+        }
+
+        queue.drainTo(batch);
+        if (!batch.isEmpty())
+            writeBatch();
+    }
+
+    /*package-private*/ long getQueued() {
+        return queued.get();
+    }
+
+    /*package-private*/ long getWritten() {
+        return written.get();
+    }
+
+    /**
+     *
+     * @return
+     *          number of records not queued because queue was full
+     */
+    /*package-private*/ long getRejected() {
+        return rejected.get();
+    }
+
+    /**
+     *
+     * @return
+     *          number of writes to disk, each with one or more records
+     */
+    /*package-private*/ long getBatches() {
+        return batches.get();
+    }
+
+    /**
+     *
+     * @return
+     *          most records waiting at once
+     */
+    /*package-private*/ int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     *
+     * @return
+     *          time taken by last write in milliseconds
+     */
+    /*package-private*/ double getLastBatchMillis() {
+        return lastBatchNanos / 1000000.0;
+    }
+}
@@ -58,15 +58,13 @@ public class ServerActionHandler {
         actions.put(Action.SAVE, this::serverActionSave);
     }
 
-    public void process(ActionRequest[] requests) {
-        for (ActionRequest req : requests) {
-            try {
-                Player p = server.getPlayerByName(req.playerName);
-                actions.getOrDefault(req.action, this::serverActionNone).execute(p, req);
-            }
-            catch (BadActionRequestException e) {
-                Out.e("process(ActionRequest[])", "Couldn't fulfill ActionRequest", this, e);
-            }
+    public void process(ActionRequest req) {
+        try {
+            Player p = server.getPlayerByName(req.playerName);
+            actions.getOrDefault(req.action, this::serverActionNone).execute(p, req);
+        }
+        catch (BadActionRequestException e) {
+            Out.e("process(ActionRequest)", "Couldn't fulfill ActionRequest", this, e);
         }
     }
 
@@ -114,7 +112,7 @@ public class ServerActionHandler {
         if (tmpChar instanceof Enemy) { // if tmpChar == null, it isn't instance of Enemy
             Enemy target = (Enemy) tmpChar;
             if (target != null && target.isAlive()
-                    && server.distanceBetween(player, target) <= ((Weapon)player.getEquip(Player.RIGHT_HAND)).range) {
+                    && server.distanceBetween(player, target) <= ((Weapon)player.getEquip(Player.RIGHT_HAND)).getTemplate().range) {
 
                 if (player.canAttack()) {
                     int dmg = player.attack(target);
@@ -170,7 +168,7 @@ public class ServerActionHandler {
 
         Enemy skTarget = server.getMapByName(tokens[0]).getEnemyByXY(Integer.parseInt(tokens[1]), Integer.parseInt(tokens[2]));
         if (skTarget != null
-                && server.distanceBetween(player, skTarget) <= ((Weapon)player.getEquip(Player.RIGHT_HAND)).range) {
+                && server.distanceBetween(player, skTarget) <= ((Weapon)player.getEquip(Player.RIGHT_HAND)).getTemplate().range) {
             SkillUseResult result = player.useSkill(req.value1, skTarget);
             if (!result.success)
                 return;
@@ -213,7 +211,7 @@ public class ServerActionHandler {
     }
 
     public void serverActionSave(Player p, ActionRequest req) {
-        server.saveState();
+        server.savePlayer(p);
     }
 
     public void serverActionNone(Player p, ActionRequest req) {
@@ -4,9 +4,15 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Random;
+import java.util.function.ToDoubleFunction;
 
 import javafx.scene.Parent;
+import javafx.scene.chart.LineChart;
+import javafx.scene.chart.NumberAxis;
+import javafx.scene.chart.XYChart;
 import uk.ac.brighton.uni.ab607.mmorpg.test.GameCharacterProtoBuf.GameCharProtoBuf;
 import uk.ac.brighton.uni.ab607.mmorpg.test.GameMessageProtoBuf.MessageProtoBuf;
 import uk.ac.brighton.uni.ab607.mmorpg.test.asn1.AsnInputStream;
@@ -226,6 +232,56 @@ public abstract class OrionTestBase extends Test {
         return out.toByteArray();
     }
 
+    /**
+     * Plots results as lines, one line per result name,
+     * with {@link Result#size} on x axis and {@link Result#timeTook} on y axis
+     *
+     * @param title
+     * @param xLabel
+     * @param yLabel
+     * @param results
+     * @return
+     *          line chart
+     */
+    protected Parent createLineChart(String title, String xLabel, String yLabel, List<Result> results) {
+        return createLineChart(title, xLabel, yLabel, results, result -> result.size, result -> result.timeTook);
+    }
+
+    /**
+     * Same as above but x and y values are taken from result by xFunc and yFunc
+     *
+     * @param title
+     * @param xLabel
+     * @param yLabel
+     * @param results
+     * @param xFunc
+     * @param yFunc
+     * @return
+     *          line chart
+     */
+    protected Parent createLineChart(String title, String xLabel, String yLabel, List<Result> results,
+            ToDoubleFunction<Result> xFunc, ToDoubleFunction<Result> yFunc) {
+        NumberAxis xAxis = new NumberAxis();
+        NumberAxis yAxis = new NumberAxis();
+        xAxis.setLabel(xLabel);
+        yAxis.setLabel(yLabel);
+
+        LineChart<Number, Number> chart = new LineChart<Number, Number>(xAxis, yAxis);
+        chart.setTitle(title);
+
+        LinkedHashMap<String, XYChart.Series<Number, Number> > lines = new LinkedHashMap<String, XYChart.Series<Number, Number> >();
+        for (Result result : results) {
+            lines.computeIfAbsent(result.name, name -> {
+                XYChart.Series<Number, Number> series = new XYChart.Series<Number, Number>();
+                series.setName(name);
+                return series;
+            }).getData().add(new XYChart.Data<Number, Number>(xFunc.applyAsDouble(result), yFunc.applyAsDouble(result)));
+        }
+
+        chart.getData().addAll(lines.values());
+        return chart;
+    }
+
     public abstract Parent getResultsContent();
     public abstract Parent getTestControls();
 
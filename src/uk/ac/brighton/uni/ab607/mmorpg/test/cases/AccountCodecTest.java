@@ -0,0 +1,121 @@
+package uk.ac.brighton.uni.ab607.mmorpg.test.cases;
+
+import java.io.BufferedInputStream;
+import java.io.ObjectInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.TreeMap;
+
+import javafx.scene.Parent;
+import javafx.scene.layout.Pane;
+import uk.ac.brighton.uni.ab607.mmorpg.common.GameCharacter.Experience;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.ID;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.ObjectManager;
+import uk.ac.brighton.uni.ab607.mmorpg.server.AccountCodec;
+import uk.ac.brighton.uni.ab607.mmorpg.server.GameAccount;
+import uk.ac.brighton.uni.ab607.mmorpg.test.OrionTestBase;
+import uk.ac.brighton.uni.ab607.mmorpg.test.Result;
+
+import com.almasb.java.io.ResourceManager;
+
+/**
+ * Compares saving and loading the account DB with Java serialization,
+ * as done by DBAccess before, against AccountCodec, based on number of accounts.
+ * Result size is the file size in bytes
+ */
+public class AccountCodecTest extends OrionTestBase {
+
+    private static final int[] ACCOUNT_COUNTS = { 100, 500, 1000, 2000 };
+    private static final int RUNS = 3;
+
+    private ArrayList<Result> results = new ArrayList<Result>();
+
+    @Override
+    public Parent getResultsContent() {
+        return createLineChart("Time to save/load account DB", "Number of accounts",
+                "Time (in milliseconds). Lower is better", results,
+                result -> result.count, result -> result.timeTook);
+    }
+
+    @Override
+    public Parent getTestControls() {
+        return new Pane();
+    }
+
+    @Override
+    protected void run() throws Exception {
+        results.clear();
+        ObjectManager.load();
+
+        Path file = Files.createTempFile("accounts", ".db");
+        try {
+            for (int count : ACCOUNT_COUNTS)
+                runWith(count, file);
+        }
+        finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private void runWith(int numAccounts, Path file) throws Exception {
+        TreeMap<String, GameAccount> accounts = new TreeMap<String, GameAccount>();
+        for (int i = 0; i < numAccounts; i++) {
+            GameAccount account = GameAccount.create("Bench" + i, "pass" + i);
+            accounts.put(account.getUserName(), account);
+
+            account.getPlayer().gainXP(new Experience(rand.nextInt(500), rand.nextInt(500), rand.nextInt(500)));
+            account.getPlayer().getInventory().addItem(ObjectManager.getWeaponByID(ID.Weapon.KNIFE));
+        }
+
+        // first round is warm up
+        double javaSave = 0, javaLoad = 0, codecSave = 0, codecLoad = 0;
+        long javaSize = 0, codecSize = 0;
+
+        for (int run = 0; run <= RUNS; run++) {
+            long start = System.nanoTime();
+            ResourceManager.writeJavaObject(file.toString(), accounts);
+            double save = (System.nanoTime() - start) / 1000000.0;
+            javaSize = Files.size(file);
+
+            start = System.nanoTime();
+            try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                in.readObject();
+            }
+            double load = (System.nanoTime() - start) / 1000000.0;
+
+            if (run > 0) {
+                javaSave += save;
+                javaLoad += load;
+            }
+
+            start = System.nanoTime();
+            AccountCodec.writeSnapshot(file, accounts.values());
+            save = (System.nanoTime() - start) / 1000000.0;
+            codecSize = Files.size(file);
+
+            start = System.nanoTime();
+            AccountCodec.readSnapshot(file);
+            load = (System.nanoTime() - start) / 1000000.0;
+
+            if (run > 0) {
+                codecSave += save;
+                codecLoad += load;
+            }
+        }
+
+        addResult("Java serialization save", numAccounts, javaSize, javaSave / RUNS);
+        addResult("Java serialization load", numAccounts, javaSize, javaLoad / RUNS);
+        addResult("AccountCodec save", numAccounts, codecSize, codecSave / RUNS);
+        addResult("AccountCodec load", numAccounts, codecSize, codecLoad / RUNS);
+    }
+
+    private void addResult(String name, int numAccounts, long fileSize, double time) {
+        Result result = new Result();
+        result.name = name;
+        result.count = numAccounts;
+        result.size = (int) fileSize;
+        result.timeTook = time;
+        results.add(result);
+    }
+}
@@ -0,0 +1,109 @@
+package uk.ac.brighton.uni.ab607.mmorpg.test.cases;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+
+import javafx.scene.Parent;
+import javafx.scene.layout.Pane;
+import uk.ac.brighton.uni.ab607.mmorpg.common.Attribute;
+import uk.ac.brighton.uni.ab607.mmorpg.common.Effect;
+import uk.ac.brighton.uni.ab607.mmorpg.common.GameCharacter;
+import uk.ac.brighton.uni.ab607.mmorpg.common.GameMath;
+import uk.ac.brighton.uni.ab607.mmorpg.common.Rune;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.Enemy;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.Essence;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.ID;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.ObjectManager;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.SpatialIndex;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.TimerWheel;
+import uk.ac.brighton.uni.ab607.mmorpg.test.OrionTestBase;
+import uk.ac.brighton.uni.ab607.mmorpg.test.Result;
+
+/**
+ * Measures heap held by enemies living on a map, i.e. put
+ * into its spatial index and timer wheel. In the buffed run
+ * every 10th enemy has an attribute buff
+ * Result size is the number of bytes retained per enemy
+ */
+public class EnemyHeapTest extends OrionTestBase {
+
+    private static final int[] ENEMY_COUNTS = { 10000, 25000, 50000 };
+
+    private static final String[] ENEMY_IDS = { ID.Enemy.MINOR_FIRE_SPIRIT, ID.Enemy.MINOR_EARTH_SPIRIT,
+        ID.Enemy.MINOR_WATER_SPIRIT };
+
+    private MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+    private ArrayList<Result> results = new ArrayList<Result>();
+
+    @Override
+    public Parent getResultsContent() {
+        return createLineChart("Heap held by enemies", "Number of enemies",
+                "Bytes per enemy. Lower is better", results,
+                result -> result.count, result -> result.size);
+    }
+
+    @Override
+    public Parent getTestControls() {
+        return new Pane();
+    }
+
+    @Override
+    protected void init() throws Exception {
+        ObjectManager.load();
+    }
+
+    @Override
+    protected void run() throws Exception {
+        results.clear();
+
+        // first round is warm up
+        runWith(ENEMY_COUNTS[0], false);
+        results.clear();
+
+        for (int count : ENEMY_COUNTS)
+            runWith(count, false);
+        for (int count : ENEMY_COUNTS)
+            runWith(count, true);
+    }
+
+    private void runWith(int numEnemies, boolean buffed) {
+        SpatialIndex<GameCharacter> index = new SpatialIndex<GameCharacter>(2520, 1600, GameCharacter::getX, GameCharacter::getY);
+        TimerWheel wheel = new TimerWheel();
+        Enemy[] enemies = new Enemy[numEnemies];
+
+        long heap = usedHeap();
+        long start = System.nanoTime();
+        for (int i = 0; i < numEnemies; i++) {
+            Enemy e = ObjectManager.getEnemyByID(ENEMY_IDS[i % ENEMY_IDS.length]);
+            e.setX(GameMath.random(2520) - 1);
+            e.setY(GameMath.random(1600) - 1);
+            e.attachTo(index, wheel);
+
+            if (buffed && i % 10 == 0)
+                e.addEffect(new Effect(60, "bench", new Rune[] { new Rune(Attribute.STRENGTH, 5) }, new Essence[0]));
+
+            enemies[i] = e;
+        }
+        double took = (System.nanoTime() - start) / 1000000.0;
+        heap = usedHeap() - heap;
+
+        for (Enemy e : enemies)
+            if (e.getTotalStat(GameCharacter.MAX_HP) <= 0)
+                fail("Enemy has no HP");
+
+        Result result = new Result();
+        result.name = buffed ? "Enemy, 10% buffed" : "Enemy";
+        result.count = numEnemies;
+        result.size = (int) (heap / numEnemies);
+        result.timeTook = took;
+        results.add(result);
+    }
+
+    private long usedHeap() {
+        for (int i = 0; i < 3; i++)
+            System.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
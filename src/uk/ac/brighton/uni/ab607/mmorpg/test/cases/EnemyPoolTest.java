@@ -0,0 +1,128 @@
+package uk.ac.brighton.uni.ab607.mmorpg.test.cases;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+
+import javafx.scene.Parent;
+import javafx.scene.layout.Pane;
+import uk.ac.brighton.uni.ab607.mmorpg.common.Player;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.Enemy;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.EnemyPool;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.GameMap;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.ID;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.ObjectManager;
+import uk.ac.brighton.uni.ab607.mmorpg.test.OrionTestBase;
+import uk.ac.brighton.uni.ab607.mmorpg.test.Result;
+
+import com.almasb.common.net.ClientPacketParser;
+import com.almasb.common.net.DataPacket;
+import com.almasb.common.net.UDPServer;
+import com.sun.management.ThreadMXBean;
+
+/**
+ * Measures memory allocated per enemy respawn under heavy farming,
+ * with a new enemy created for each respawn, as done by GameMap before,
+ * against enemies reused from the map's pool. Result size is the number
+ * of bytes allocated per respawn, count is the number of kills per tick
+ */
+public class EnemyPoolTest extends OrionTestBase {
+
+    private static final int[] KILL_COUNTS = { 1, 3, 5, 10 };
+    private static final int WARMUP_TICKS = 200, TICKS = 1000;
+
+    private static final ArrayList<Player> NO_ATTACKERS = new ArrayList<Player>();
+
+    private ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private ArrayList<Result> results = new ArrayList<Result>();
+
+    @Override
+    public Parent getResultsContent() {
+        return createLineChart("Memory allocated per respawn", "Kills per tick",
+                "Bytes per respawn. Lower is better", results,
+                result -> result.count, result -> result.size);
+    }
+
+    @Override
+    public Parent getTestControls() {
+        return new Pane();
+    }
+
+    @Override
+    protected void init() throws Exception {
+        ObjectManager.load();
+    }
+
+    @Override
+    protected void run() throws Exception {
+        results.clear();
+
+        UDPServer server = new UDPServer(0, new ClientPacketParser() {
+            @Override
+            public void parseClientPacket(DataPacket packet) {}
+        });
+
+        try {
+            for (int count : KILL_COUNTS) {
+                runWith(server, count);
+            }
+        }
+        finally {
+            server.close();
+        }
+    }
+
+    private void runWith(UDPServer server, int kills) {
+        ArrayList<Enemy> enemies = new ArrayList<Enemy>();
+
+        for (int i = 0; i < WARMUP_TICKS; i++)
+            for (int j = 0; j < kills; j++)
+                enemies.add(ObjectManager.getEnemyByID(ID.Enemy.MINOR_FIRE_SPIRIT));
+        enemies.clear();
+
+        long bytes = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < TICKS; i++) {
+            for (int j = 0; j < kills; j++)
+                enemies.add(ObjectManager.getEnemyByID(ID.Enemy.MINOR_FIRE_SPIRIT));
+
+            // dead enemies were dropped before
+            enemies.clear();
+        }
+        addResult("New enemy per respawn", kills, start, allocatedBytes() - bytes);
+
+        // enemies are respawned with new runtime IDs in order, so the oldest live enemy is next to the last one killed
+        GameMap map = ObjectManager.getMapByName("map1.txt");
+        int nextID = 1;
+
+        for (int i = 0; i < WARMUP_TICKS + TICKS; i++) {
+            if (i == WARMUP_TICKS) {
+                bytes = allocatedBytes();
+                start = System.nanoTime();
+            }
+
+            for (int j = 0; j < kills; j++)
+                map.getEnemyByRuntimeID(nextID++).onDeath(null, NO_ATTACKERS);
+
+            map.update(server);
+        }
+        addResult("Pooled enemy", kills, start, allocatedBytes() - bytes);
+
+        EnemyPool pool = map.getEnemyPool();
+        if (pool.getReused() < (long) kills * TICKS)
+            fail("Only " + pool.getReused() + " enemies reused");
+    }
+
+    private long allocatedBytes() {
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private void addResult(String name, int kills, long start, long bytes) {
+        Result result = new Result();
+        result.name = name;
+        result.count = kills;
+        result.size = (int) (bytes / ((long) kills * TICKS));
+        result.timeTook = (System.nanoTime() - start) / 1000000.0 / TICKS;
+        results.add(result);
+    }
+}
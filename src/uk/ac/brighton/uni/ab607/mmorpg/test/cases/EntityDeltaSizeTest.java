@@ -0,0 +1,118 @@
+package uk.ac.brighton.uni.ab607.mmorpg.test.cases;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+import javafx.scene.Parent;
+import javafx.scene.layout.Pane;
+import uk.ac.brighton.uni.ab607.mmorpg.common.GameCharacterClass;
+import uk.ac.brighton.uni.ab607.mmorpg.common.Player;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.SnapshotBaseline;
+import uk.ac.brighton.uni.ab607.mmorpg.common.request.EntityDelta;
+import uk.ac.brighton.uni.ab607.mmorpg.common.request.FrameBuffer;
+import uk.ac.brighton.uni.ab607.mmorpg.test.OrionTestBase;
+import uk.ac.brighton.uni.ab607.mmorpg.test.Result;
+
+/**
+ * Compares bytes sent to one client per tick with full UPDATE_GAME_CHAR
+ * frames against UPDATE_GAME_CHAR_DELTA, based on number of
+ * characters in vision. Each tick a fraction of characters moves by one cell
+ */
+public class EntityDeltaSizeTest extends OrionTestBase {
+
+    private static final int[] CHAR_COUNTS = { 10, 50, 100, 200, 400 };
+    private static final int TICKS = 1000;
+    private static final int KEYFRAME_INTERVAL = 50;
+
+    /**
+     * Chance of a character moving in a given tick
+     */
+    private static final double MOVE_CHANCE = 0.2;
+
+    private ArrayList<Result> results = new ArrayList<Result>();
+
+    @Override
+    public Parent getResultsContent() {
+        return createLineChart("Bytes per tick sent to 1 client", "Number of characters in vision",
+                "Size (in bytes). Lower is better", results,
+                result -> result.count, result -> result.size);
+    }
+
+    @Override
+    public Parent getTestControls() {
+        return new Pane();
+    }
+
+    @Override
+    protected void run() throws Exception {
+        results.clear();
+
+        for (int count : CHAR_COUNTS)
+            runWith(count);
+    }
+
+    private void runWith(int numChars) throws Exception {
+        ArrayList<Player> chars = new ArrayList<Player>();
+        for (int i = 0; i < numChars; i++) {
+            Player p = new Player("Bench" + i, GameCharacterClass.NOVICE, rand.nextInt(63) * 40, rand.nextInt(40) * 40, "", 0);
+            p.setRuntimeID(i + 1);
+            chars.add(p);
+        }
+
+        SnapshotBaseline deltaOnly = new SnapshotBaseline(), withKeyframes = new SnapshotBaseline();
+
+        long fullBytes = 0, deltaBytes = 0, keyframeBytes = 0;
+
+        for (int tick = 0; tick < TICKS; tick++) {
+            for (Player p : chars) {
+                if (rand.nextDouble() < MOVE_CHANCE)
+                    p.setX(Math.max(0, p.getX() + (rand.nextBoolean() ? 40 : -40)));
+            }
+
+            int capacity = 1 + 2 * numChars * EntityDelta.MAX_ENTRY_SIZE;
+
+            ByteBuffer buf = FrameBuffer.get(capacity);
+            buf.put((byte)0);
+            for (Player p : chars)
+                p.writeTo(buf);
+            int fullSize = buf.position();
+            fullBytes += fullSize;
+
+            buf = FrameBuffer.get(capacity);
+            buf.put((byte)0);
+            deltaOnly.begin();
+            for (Player p : chars)
+                deltaOnly.add(p, buf);
+            deltaOnly.end(buf);
+            deltaBytes += buf.position();
+
+            withKeyframes.begin();
+            if (tick % KEYFRAME_INTERVAL == 0) {
+                for (Player p : chars)
+                    withKeyframes.add(p, null);
+                withKeyframes.end(null);
+                keyframeBytes += fullSize;
+            }
+            else {
+                buf = FrameBuffer.get(capacity);
+                buf.put((byte)0);
+                for (Player p : chars)
+                    withKeyframes.add(p, buf);
+                withKeyframes.end(buf);
+                keyframeBytes += buf.position();
+            }
+        }
+
+        addResult("Full frame", numChars, fullBytes);
+        addResult("Delta", numChars, deltaBytes);
+        addResult("Delta + keyframe every " + KEYFRAME_INTERVAL + " ticks", numChars, keyframeBytes);
+    }
+
+    private void addResult(String name, int numChars, long bytes) {
+        Result result = new Result();
+        result.name = name;
+        result.count = numChars;
+        result.size = (int) (bytes / TICKS);
+        results.add(result);
+    }
+}
@@ -0,0 +1,101 @@
+package uk.ac.brighton.uni.ab607.mmorpg.test.cases;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.function.IntFunction;
+
+import javafx.scene.Parent;
+import javafx.scene.layout.Pane;
+import uk.ac.brighton.uni.ab607.mmorpg.client.fx.CharacterView;
+import uk.ac.brighton.uni.ab607.mmorpg.client.fx.PlayerView;
+import uk.ac.brighton.uni.ab607.mmorpg.common.GameCharacterClass;
+import uk.ac.brighton.uni.ab607.mmorpg.common.Player;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.ID;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.ObjectManager;
+import uk.ac.brighton.uni.ab607.mmorpg.test.OrionTestBase;
+import uk.ac.brighton.uni.ab607.mmorpg.test.Result;
+
+import com.sun.management.ThreadMXBean;
+
+/**
+ * Measures memory and time to spawn entities, for the headless
+ * model used by the server against the model with its client view,
+ * which is what every server entity carried before.
+ * Result size is the number of bytes allocated per entity
+ */
+public class EntityHeapTest extends OrionTestBase {
+
+    private static final int[] ENTITY_COUNTS = { 1000, 5000, 10000 };
+
+    private ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private ArrayList<Result> results = new ArrayList<Result>();
+
+    @Override
+    public Parent getResultsContent() {
+        return createLineChart("Time to spawn entities", "Number of entities",
+                "Time (in milliseconds). Lower is better", results,
+                result -> result.count, result -> result.timeTook);
+    }
+
+    @Override
+    public Parent getTestControls() {
+        return new Pane();
+    }
+
+    @Override
+    protected void init() throws Exception {
+        ObjectManager.load();
+    }
+
+    @Override
+    protected void run() throws Exception {
+        results.clear();
+
+        // first round is warm up
+        runWith(ENTITY_COUNTS[0]);
+        results.clear();
+
+        for (int count : ENTITY_COUNTS)
+            runWith(count);
+    }
+
+    private void runWith(int numEntities) {
+        measure("Enemy", numEntities, i -> ObjectManager.getEnemyByID(ID.Enemy.MINOR_FIRE_SPIRIT));
+        measure("Enemy with view", numEntities,
+                i -> new CharacterView(ObjectManager.getEnemyByID(ID.Enemy.MINOR_FIRE_SPIRIT)));
+
+        measure("Player", numEntities, i -> newPlayer(i));
+        measure("Player with view", numEntities, i -> new PlayerView(newPlayer(i)));
+    }
+
+    private Player newPlayer(int i) {
+        return new Player("Bench" + i, GameCharacterClass.NOVICE, 0, 0, "127.0.0.1", 9);
+    }
+
+    private void measure(String name, int numEntities, IntFunction<Object> spawn) {
+        Object[] entities = new Object[numEntities];
+
+        long bytes = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < numEntities; i++)
+            entities[i] = spawn.apply(i);
+        double took = (System.nanoTime() - start) / 1000000.0;
+        bytes = allocatedBytes() - bytes;
+
+        for (Object e : entities)
+            if (e == null)
+                fail(name + " was not created");
+
+        Result result = new Result();
+        result.name = name;
+        result.count = numEntities;
+        result.size = (int) (bytes / numEntities);
+        result.timeTook = took;
+        results.add(result);
+    }
+
+    private long allocatedBytes() {
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
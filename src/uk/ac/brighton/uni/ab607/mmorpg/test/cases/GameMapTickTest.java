@@ -0,0 +1,142 @@
+package uk.ac.brighton.uni.ab607.mmorpg.test.cases;
+
+import java.util.ArrayList;
+
+import javafx.scene.Parent;
+import javafx.scene.layout.Pane;
+import uk.ac.brighton.uni.ab607.mmorpg.common.GameCharacter;
+import uk.ac.brighton.uni.ab607.mmorpg.common.GameCharacterClass;
+import uk.ac.brighton.uni.ab607.mmorpg.common.Player;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.GameMap;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.ObjectManager;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.SpatialIndex;
+import uk.ac.brighton.uni.ab607.mmorpg.test.OrionTestBase;
+import uk.ac.brighton.uni.ab607.mmorpg.test.Result;
+
+import com.almasb.common.graphics.Point2D;
+import com.almasb.common.graphics.Rect2D;
+import com.almasb.common.net.ClientPacketParser;
+import com.almasb.common.net.DataPacket;
+import com.almasb.common.net.UDPServer;
+
+/**
+ * Measures how GameMap tick time grows with number of players
+ * and compares vision queries through spatial index against
+ * filtering every character on the map
+ */
+public class GameMapTickTest extends OrionTestBase {
+
+    private static final int[] PLAYER_COUNTS = { 50, 100, 200, 400 };
+    private static final int WARMUP_TICKS = 10, TICKS = 50;
+
+    /**
+     * Packets are sent to discard port on local machine
+     */
+    private static final String IP = "127.0.0.1";
+    private static final int PORT = 9;
+
+    private ArrayList<Result> results = new ArrayList<Result>();
+
+    @Override
+    public Parent getResultsContent() {
+        return createLineChart("Time per tick based on number of players",
+                "Number of players", "Time (in milliseconds). Lower is better", results);
+    }
+
+    @Override
+    public Parent getTestControls() {
+        return new Pane();
+    }
+
+    @Override
+    protected void init() throws Exception {
+        ObjectManager.load();
+    }
+
+    @Override
+    protected void run() throws Exception {
+        results.clear();
+
+        UDPServer server = new UDPServer(0, new ClientPacketParser() {
+            @Override
+            public void parseClientPacket(DataPacket packet) {}
+        });
+
+        try {
+            for (int count : PLAYER_COUNTS) {
+                runWith(server, count);
+            }
+        }
+        finally {
+            server.close();
+        }
+    }
+
+    private void runWith(UDPServer server, int numPlayers) {
+        GameMap map = ObjectManager.getMapByName("map1.txt");
+
+        ArrayList<Player> players = new ArrayList<Player>();
+        for (int i = 0; i < numPlayers; i++) {
+            Point2D p = map.getRandomFreePos();
+            Player player = new Player("Bench" + i, GameCharacterClass.NOVICE, (int) p.getX(), (int) p.getY(), IP, PORT);
+            players.add(player);
+            map.addPlayer(player);
+        }
+
+        for (int i = 0; i < WARMUP_TICKS; i++)
+            map.update(server);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < TICKS; i++)
+            map.update(server);
+
+        Result result = new Result();
+        result.name = "GameMap.update()";
+        result.size = numPlayers;
+        result.timeTook = (System.nanoTime() - start) / 1000000.0 / TICKS;
+        results.add(result);
+
+        // vision queries only, all players against all players
+        SpatialIndex<GameCharacter> index = new SpatialIndex<GameCharacter>(map.width * 40, map.height * 40,
+                GameCharacter::getX, GameCharacter::getY);
+        players.forEach(index::add);
+
+        ArrayList<GameCharacter> visible = new ArrayList<GameCharacter>();
+        int found = 0;
+
+        start = System.nanoTime();
+        for (int i = 0; i < TICKS; i++) {
+            for (Player player : players) {
+                Rect2D vision = new Rect2D(player.getX() - 640, player.getY() - 360, 1280, 720);
+                found += players.stream().filter(p -> vision.contains(new Point2D(p.getX(), p.getY())))
+                        .toArray(Player[]::new).length;
+            }
+        }
+
+        result = new Result();
+        result.name = "Vision (linear scan)";
+        result.size = numPlayers;
+        result.timeTook = (System.nanoTime() - start) / 1000000.0 / TICKS;
+        results.add(result);
+
+        start = System.nanoTime();
+        for (int i = 0; i < TICKS; i++) {
+            for (Player player : players) {
+                visible.clear();
+                index.query(player.getX() - 640, player.getY() - 360, 1280, 720, visible);
+                found -= visible.size();
+            }
+        }
+
+        result = new Result();
+        result.name = "Vision (spatial index)";
+        result.size = numPlayers;
+        result.timeTook = (System.nanoTime() - start) / 1000000.0 / TICKS;
+        results.add(result);
+
+        if (found != 0)
+            fail("Spatial index and linear scan disagree");
+
+        players.forEach(map::removePlayer);
+    }
+}
@@ -0,0 +1,132 @@
+package uk.ac.brighton.uni.ab607.mmorpg.test.cases;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.function.IntFunction;
+
+import javafx.scene.Parent;
+import javafx.scene.layout.Pane;
+import uk.ac.brighton.uni.ab607.mmorpg.common.GameCharacterClass;
+import uk.ac.brighton.uni.ab607.mmorpg.common.Inventory;
+import uk.ac.brighton.uni.ab607.mmorpg.common.Player;
+import uk.ac.brighton.uni.ab607.mmorpg.common.item.GameItem;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.ID;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.ObjectManager;
+import uk.ac.brighton.uni.ab607.mmorpg.test.OrionTestBase;
+import uk.ac.brighton.uni.ab607.mmorpg.test.Result;
+
+import com.sun.management.ThreadMXBean;
+
+/**
+ * Measures memory of items held in inventories, like loot drops,
+ * and of starting players with their default equipment.
+ * Result size is the number of bytes allocated per item,
+ * for "serialized" results it is bytes per item sent to the client
+ */
+public class ItemHeapTest extends OrionTestBase {
+
+    private static final int[] ITEM_COUNTS = { 3000, 15000, 30000 };
+
+    private ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private ArrayList<Result> results = new ArrayList<Result>();
+
+    @Override
+    public Parent getResultsContent() {
+        return createLineChart("Time to create items", "Number of items",
+                "Time (in milliseconds). Lower is better", results,
+                result -> result.count, result -> result.timeTook);
+    }
+
+    @Override
+    public Parent getTestControls() {
+        return new Pane();
+    }
+
+    @Override
+    protected void init() throws Exception {
+        ObjectManager.load();
+    }
+
+    @Override
+    protected void run() throws Exception {
+        results.clear();
+
+        // first round is warm up
+        runWith(ITEM_COUNTS[0]);
+        results.clear();
+
+        for (int count : ITEM_COUNTS)
+            runWith(count);
+
+        serialized("Weapon serialized", i -> ObjectManager.getWeaponByID(ID.Weapon.GETSUGA_TENSHO));
+        serialized("Armor serialized", i -> ObjectManager.getArmorByID(ID.Armor.THANATOS_BODY_ARMOR));
+    }
+
+    private void runWith(int numItems) {
+        measure("Weapon", numItems, i -> ObjectManager.getWeaponByID(ID.Weapon.GETSUGA_TENSHO));
+        measure("Armor", numItems, i -> ObjectManager.getArmorByID(ID.Armor.THANATOS_BODY_ARMOR));
+
+        // 5 default equip items per player
+        int numPlayers = numItems / 5;
+        Player[] players = new Player[numPlayers];
+
+        long bytes = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < numPlayers; i++)
+            players[i] = new Player("Bench" + i, GameCharacterClass.NOVICE, 0, 0, "127.0.0.1", 9);
+        double took = (System.nanoTime() - start) / 1000000.0;
+        bytes = allocatedBytes() - bytes;
+
+        addResult("Starting player", numPlayers, (int) (bytes / numPlayers), took);
+    }
+
+    private void measure(String name, int numItems, IntFunction<GameItem> create) {
+        Inventory[] inventories = new Inventory[numItems / Inventory.MAX_SIZE];
+        for (int i = 0; i < inventories.length; i++)
+            inventories[i] = new Inventory();
+
+        long bytes = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < numItems; i++) {
+            GameItem item = create.apply(i);
+            if (item == null)
+                fail(name + " was not created");
+
+            inventories[i / Inventory.MAX_SIZE].addItem(item);
+        }
+        double took = (System.nanoTime() - start) / 1000000.0;
+        bytes = allocatedBytes() - bytes;
+
+        addResult(name, numItems, (int) (bytes / numItems), took);
+    }
+
+    private void serialized(String name, IntFunction<GameItem> create) throws IOException {
+        Inventory inventory = new Inventory();
+        while (!inventory.isFull())
+            inventory.addItem(create.apply(inventory.getSize()));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(inventory);
+        }
+
+        addResult(name, Inventory.MAX_SIZE, bytes.size() / Inventory.MAX_SIZE, 0);
+    }
+
+    private void addResult(String name, int count, int size, double took) {
+        Result result = new Result();
+        result.name = name;
+        result.count = count;
+        result.size = size;
+        result.timeTook = took;
+        results.add(result);
+    }
+
+    private long allocatedBytes() {
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -0,0 +1,104 @@
+package uk.ac.brighton.uni.ab607.mmorpg.test.cases;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import javafx.scene.Parent;
+import javafx.scene.layout.Pane;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.AStarPathfinder;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.GameMap;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.ObjectManager;
+import uk.ac.brighton.uni.ab607.mmorpg.test.OrionTestBase;
+import uk.ac.brighton.uni.ab607.mmorpg.test.Result;
+
+import com.almasb.common.search.AStarNode;
+import com.almasb.java.io.ResourceManager;
+import com.sun.management.ThreadMXBean;
+
+/**
+ * Measures time and memory to create instances of a map, with
+ * terrain loaded and built for each instance, as done by GameMap before,
+ * against instances sharing terrain loaded once. Both spawn the map's enemies.
+ * Result size is the number of bytes allocated per instance
+ */
+public class MapInstanceTest extends OrionTestBase {
+
+    private static final int[] INSTANCE_COUNTS = { 10, 50, 100, 200 };
+
+    private ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private ArrayList<Result> results = new ArrayList<Result>();
+
+    @Override
+    public Parent getResultsContent() {
+        return createLineChart("Time to create map instances", "Number of instances",
+                "Time (in milliseconds). Lower is better", results,
+                result -> result.count, result -> result.timeTook);
+    }
+
+    @Override
+    public Parent getTestControls() {
+        return new Pane();
+    }
+
+    @Override
+    protected void init() throws Exception {
+        ObjectManager.load();
+    }
+
+    @Override
+    protected void run() throws Exception {
+        results.clear();
+
+        // first round is warm up
+        runWith(INSTANCE_COUNTS[0]);
+        results.clear();
+
+        for (int count : INSTANCE_COUNTS)
+            runWith(count);
+    }
+
+    private void runWith(int numInstances) {
+        int cells = 0;
+
+        long bytes = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < numInstances; i++) {
+            GameMap map = ObjectManager.getMapByName("map1.txt");
+
+            List<String> data = ResourceManager.loadText(map.name);
+            AStarNode[][] grid = new AStarNode[map.width][map.height];
+            for (int y = 0; y < data.size(); y++)
+                for (int x = 0; x < data.get(y).length(); x++)
+                    grid[x][y] = new AStarNode(x, y, 0, data.get(y).charAt(x) == '1' ? 1 : 0);
+
+            cells += new AStarPathfinder(data).isWalkable(0, 0) ? grid.length : grid[0].length;
+        }
+        addResult("Terrain per instance", numInstances, start, allocatedBytes() - bytes);
+
+        bytes = allocatedBytes();
+        start = System.nanoTime();
+        for (int i = 0; i < numInstances; i++) {
+            GameMap map = ObjectManager.getMapByName("map1.txt");
+            cells -= map.getTerrain().isWalkable(0, 0) ? map.width : map.height;
+        }
+        addResult("Shared terrain", numInstances, start, allocatedBytes() - bytes);
+
+        if (cells != 0)
+            fail("Instances have different terrain");
+    }
+
+    private long allocatedBytes() {
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private void addResult(String name, int numInstances, long start, long bytes) {
+        Result result = new Result();
+        result.name = name;
+        result.count = numInstances;
+        result.size = (int) (bytes / numInstances);
+        result.timeTook = (System.nanoTime() - start) / 1000000.0;
+        results.add(result);
+    }
+}
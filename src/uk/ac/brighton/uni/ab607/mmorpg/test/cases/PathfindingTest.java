@@ -0,0 +1,136 @@
+package uk.ac.brighton.uni.ab607.mmorpg.test.cases;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javafx.scene.Parent;
+import javafx.scene.layout.Pane;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.AStarPathfinder;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.HierarchicalPathfinder;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.Pathfinder;
+import uk.ac.brighton.uni.ab607.mmorpg.test.OrionTestBase;
+import uk.ac.brighton.uni.ab607.mmorpg.test.Result;
+
+import com.almasb.common.search.AStarLogic;
+import com.almasb.common.search.AStarNode;
+import com.almasb.java.io.ResourceManager;
+
+/**
+ * Compares time of a single path search with AStarLogic, as done by
+ * GameServer.moveObject() before, against AStarPathfinder and
+ * HierarchicalPathfinder, on map1.txt and on larger generated maps.
+ * AStarLogic is too slow to include on the largest maps
+ */
+public class PathfindingTest extends OrionTestBase {
+
+    private static final int[] GENERATED_SIZES = { 80, 120, 300, 600 };
+    private static final int MAX_ASTARLOGIC_SIZE = 120;
+    private static final int SEARCHES = 10;
+    private static final int WARMUP_ROUNDS = 20;
+
+    private ArrayList<Result> results = new ArrayList<Result>();
+
+    @Override
+    public Parent getResultsContent() {
+        return createLineChart("Time per path search based on map size", "Number of cells",
+                "Time (in milliseconds). Lower is better", results);
+    }
+
+    @Override
+    public Parent getTestControls() {
+        return new Pane();
+    }
+
+    @Override
+    protected void run() throws Exception {
+        results.clear();
+
+        runWith(ResourceManager.loadText("map1.txt"));
+
+        for (int size : GENERATED_SIZES)
+            runWith(generateMap(size, size));
+    }
+
+    /**
+     * Random obstacles, about 1 in 5 cells is blocked
+     */
+    private List<String> generateMap(int width, int height) {
+        ArrayList<String> data = new ArrayList<String>();
+        for (int y = 0; y < height; y++) {
+            StringBuilder line = new StringBuilder();
+            for (int x = 0; x < width; x++)
+                line.append(rand.nextInt(5) == 0 ? '1' : '0');
+            data.add(line.toString());
+        }
+
+        return data;
+    }
+
+    private void runWith(List<String> data) {
+        int width = data.get(0).length(), height = data.size();
+
+        Pathfinder pathfinder = new AStarPathfinder(data);
+
+        // pick random walkable cells, far enough apart to make searches meaningful
+        int[][] pairs = new int[SEARCHES][];
+        for (int i = 0; i < SEARCHES; i++) {
+            int sx, sy, tx, ty;
+            do {
+                sx = rand.nextInt(width);
+                sy = rand.nextInt(height);
+                tx = rand.nextInt(width);
+                ty = rand.nextInt(height);
+            }
+            while (!pathfinder.isWalkable(sx, sy) || pathfinder.findPath(sx, sy, tx, ty).length() < (width + height) / 4);
+
+            pairs[i] = new int[] { sx, sy, tx, ty };
+        }
+
+        if (width <= MAX_ASTARLOGIC_SIZE && height <= MAX_ASTARLOGIC_SIZE)
+            runAStarLogic(data, pairs);
+
+        runPathfinder("AStarPathfinder", pathfinder, width * height, pairs);
+        runPathfinder("HierarchicalPathfinder", new HierarchicalPathfinder(data), width * height, pairs);
+    }
+
+    private void runAStarLogic(List<String> data, int[][] pairs) {
+        int width = data.get(0).length(), height = data.size();
+
+        AStarNode[][] grid = new AStarNode[width][height];
+        for (int y = 0; y < height; y++)
+            for (int x = 0; x < width; x++)
+                grid[x][y] = new AStarNode(x, y, 0, data.get(y).charAt(x) == '1' ? 1 : 0);
+
+        long start = System.nanoTime();
+        for (int[] pair : pairs) {
+            for (int i = 0; i < width; i++)
+                for (int j = 0; j < height; j++)
+                    grid[i][j].setHCost(Math.abs(pair[2] - i) + Math.abs(pair[3] - j));
+
+            new AStarLogic().getPath(grid, grid[pair[0]][pair[1]], grid[pair[2]][pair[3]]);
+        }
+
+        Result result = new Result();
+        result.name = "AStarLogic";
+        result.size = width * height;
+        result.timeTook = (System.nanoTime() - start) / 1000000.0 / SEARCHES;
+        results.add(result);
+    }
+
+    private void runPathfinder(String name, Pathfinder pathfinder, int size, int[][] pairs) {
+        // warm up, so that searches run compiled
+        for (int i = 0; i < WARMUP_ROUNDS; i++)
+            for (int[] pair : pairs)
+                pathfinder.findPath(pair[0], pair[1], pair[2], pair[3]);
+
+        long start = System.nanoTime();
+        for (int[] pair : pairs)
+            pathfinder.findPath(pair[0], pair[1], pair[2], pair[3]);
+
+        Result result = new Result();
+        result.name = name;
+        result.size = size;
+        result.timeTook = (System.nanoTime() - start) / 1000000.0 / SEARCHES;
+        results.add(result);
+    }
+}
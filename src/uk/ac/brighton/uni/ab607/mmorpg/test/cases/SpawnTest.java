@@ -0,0 +1,107 @@
+package uk.ac.brighton.uni.ab607.mmorpg.test.cases;
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+
+import javafx.scene.Parent;
+import javafx.scene.layout.Pane;
+import uk.ac.brighton.uni.ab607.mmorpg.common.GameCharacterClass;
+import uk.ac.brighton.uni.ab607.mmorpg.common.Player;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.ID;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.ObjectManager;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.Skill;
+import uk.ac.brighton.uni.ab607.mmorpg.test.OrionTestBase;
+import uk.ac.brighton.uni.ab607.mmorpg.test.Result;
+
+/**
+ * Measures time to create game objects from their templates.
+ * Skills are created through reflection, as done by ObjectManager before,
+ * and through factories captured on load. Enemies and players are
+ * created as on respawn and login
+ */
+public class SpawnTest extends OrionTestBase {
+
+    private static final int[] OBJECT_COUNTS = { 10000, 50000, 100000, 200000 };
+
+    private ArrayList<Result> results = new ArrayList<Result>();
+
+    @Override
+    public Parent getResultsContent() {
+        return createLineChart("Time to create game objects", "Number of objects",
+                "Time (in milliseconds). Lower is better", results,
+                result -> result.count, result -> result.timeTook);
+    }
+
+    @Override
+    public Parent getTestControls() {
+        return new Pane();
+    }
+
+    @Override
+    protected void init() throws Exception {
+        ObjectManager.load();
+    }
+
+    @Override
+    protected void run() throws Exception {
+        results.clear();
+
+        ArrayList<String> skillIDs = new ArrayList<String>();
+        for (GameCharacterClass charClass : GameCharacterClass.values())
+            for (String id : charClass.skillIDs)
+                skillIDs.add(id);
+
+        // first round is warm up
+        runWith(OBJECT_COUNTS[0], skillIDs);
+        results.clear();
+
+        for (int count : OBJECT_COUNTS)
+            runWith(count, skillIDs);
+    }
+
+    private void runWith(int numObjects, ArrayList<String> skillIDs) throws Exception {
+        int created = 0;
+
+        ArrayList<Skill> prototypes = new ArrayList<Skill>();
+        for (String id : skillIDs)
+            prototypes.add(ObjectManager.getSkillByID(id));
+
+        long start = System.nanoTime();
+        for (int i = 0; i < numObjects; i++) {
+            Skill skill = prototypes.get(i % prototypes.size());
+            Constructor<? extends Skill> c = skill.getClass().getDeclaredConstructor(
+                    String.class, String.class, String.class, Boolean.class, Float.class);
+            // ObjectManager had access as skills are declared in it
+            c.setAccessible(true);
+            created += c.newInstance(skill.id, skill.name, skill.description, skill.active, 0.0f) != null ? 1 : 0;
+        }
+        addResult("Skill (reflection)", numObjects, start);
+
+        start = System.nanoTime();
+        for (int i = 0; i < numObjects; i++)
+            created += ObjectManager.getSkillByID(skillIDs.get(i % skillIDs.size())) != null ? 1 : 0;
+        addResult("Skill (factory)", numObjects, start);
+
+        start = System.nanoTime();
+        for (int i = 0; i < numObjects; i++)
+            created += ObjectManager.getEnemyByID(ID.Enemy.MINOR_FIRE_SPIRIT) != null ? 1 : 0;
+        addResult("Enemy respawn", numObjects, start);
+
+        // players get skills of their class, as on login
+        start = System.nanoTime();
+        for (int i = 0; i < numObjects; i++)
+            created += new Player("Bench" + i, GameCharacterClass.WIZARD, 0, 0, "127.0.0.1", 9).getSkills().length > 0 ? 1 : 0;
+        addResult("Player login", numObjects, start);
+
+        if (created != numObjects * 4)
+            fail("Failed to create " + (numObjects * 4 - created) + " objects");
+    }
+
+    private void addResult(String name, int numObjects, long start) {
+        Result result = new Result();
+        result.name = name;
+        result.count = numObjects;
+        result.timeTook = (System.nanoTime() - start) / 1000000.0;
+        results.add(result);
+    }
+}
@@ -0,0 +1,123 @@
+package uk.ac.brighton.uni.ab607.mmorpg.test.cases;
+
+import java.util.ArrayList;
+
+import javafx.scene.Parent;
+import javafx.scene.layout.Pane;
+import uk.ac.brighton.uni.ab607.mmorpg.common.GameCharacter;
+import uk.ac.brighton.uni.ab607.mmorpg.common.GameCharacterClass;
+import uk.ac.brighton.uni.ab607.mmorpg.common.Player;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.ObjectManager;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.Skill;
+import uk.ac.brighton.uni.ab607.mmorpg.test.OrionTestBase;
+import uk.ac.brighton.uni.ab607.mmorpg.test.Result;
+
+/**
+ * Measures character update cost with stats recalculated every tick,
+ * as done by GameCharacter.update() before, against dirty stats
+ * recalculated only when read. Characters have their passive skills levelled
+ */
+public class StatEngineTest extends OrionTestBase {
+
+    private static final int[] CHARACTER_COUNTS = { 100, 500, 1000, 2000 };
+    private static final int WARMUP_TICKS = 50, TICKS = 500;
+
+    private static final GameCharacterClass[] CLASSES = {
+        GameCharacterClass.WARRIOR, GameCharacterClass.GLADIATOR, GameCharacterClass.SCOUT,
+        GameCharacterClass.RANGER, GameCharacterClass.WIZARD, GameCharacterClass.ENCHANTER
+    };
+
+    private ArrayList<Result> results = new ArrayList<Result>();
+
+    @Override
+    public Parent getResultsContent() {
+        return createLineChart("Update time per character based on number of characters",
+                "Number of characters", "Time (in microseconds). Lower is better", results);
+    }
+
+    @Override
+    public Parent getTestControls() {
+        return new Pane();
+    }
+
+    @Override
+    protected void init() throws Exception {
+        ObjectManager.load();
+    }
+
+    @Override
+    protected void run() throws Exception {
+        results.clear();
+
+        for (int count : CHARACTER_COUNTS)
+            runWith(count);
+    }
+
+    private void runWith(int numCharacters) {
+        ArrayList<Player> players = new ArrayList<Player>();
+        for (int i = 0; i < numCharacters; i++) {
+            Player player = new Player("Bench" + i, CLASSES[i % CLASSES.length], 0, 0, "127.0.0.1", 9);
+            for (Skill skill : player.getSkills())
+                while (skill.levelUp());
+            player.onSkillsChanged();
+            player.setHP(rand.nextInt((int) player.getTotalStat(GameCharacter.MAX_HP)) + 1);
+            players.add(player);
+        }
+
+        addResult("Recalculate every tick", numCharacters, tick(players, true));
+        addResult("Dirty stats", numCharacters, tick(players, false));
+
+        // both must end up with the same stats
+        for (Player player : players) {
+            float[] stats = new float[16];
+            for (int i = 0; i < stats.length; i++)
+                stats[i] = player.getTotalStat(i);
+
+            player.calculateStats();
+            for (int i = 0; i < stats.length; i++)
+                if (stats[i] != player.getTotalStat(i))
+                    fail("Stat " + i + " of " + player + " is stale");
+        }
+    }
+
+    /**
+     *
+     * @param players
+     * @param recalculate
+     *                      recalculate all stats after each update
+     * @return
+     *          time per character per tick
+     */
+    private double tick(ArrayList<Player> players, boolean recalculate) {
+        float sum = 0;
+        long start = 0;
+
+        for (int i = 0; i < WARMUP_TICKS + TICKS; i++) {
+            if (i == WARMUP_TICKS)
+                start = System.nanoTime();
+
+            for (Player player : players) {
+                player.update();
+                if (recalculate)
+                    player.calculateStats();
+
+                // stats read by a tick of combat
+                sum += player.getTotalStat(GameCharacter.ATK) + player.getTotalStat(GameCharacter.DEF);
+            }
+        }
+
+        double time = (System.nanoTime() - start) / 1000.0 / TICKS / players.size();
+        if (sum < 0)
+            fail("Negative stats");
+
+        return time;
+    }
+
+    private void addResult(String name, int numCharacters, double time) {
+        Result result = new Result();
+        result.name = name;
+        result.size = numCharacters;
+        result.timeTook = time;
+        results.add(result);
+    }
+}
@@ -0,0 +1,146 @@
+package uk.ac.brighton.uni.ab607.mmorpg.test.cases;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+
+import javafx.scene.Parent;
+import javafx.scene.layout.Pane;
+import uk.ac.brighton.uni.ab607.mmorpg.common.GameCharacter;
+import uk.ac.brighton.uni.ab607.mmorpg.common.GameCharacterClass;
+import uk.ac.brighton.uni.ab607.mmorpg.common.Player;
+import uk.ac.brighton.uni.ab607.mmorpg.common.StatusEffect;
+import uk.ac.brighton.uni.ab607.mmorpg.common.StatusEffect.Status;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.ObjectManager;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.SpatialIndex;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.TimerWheel;
+import uk.ac.brighton.uni.ab607.mmorpg.test.OrionTestBase;
+import uk.ac.brighton.uni.ab607.mmorpg.test.Result;
+
+/**
+ * Compares status effects kept in a list per character, scanned by
+ * hasStatusEffect() and counted down every tick as done before, against
+ * status bits with expiry timers, based on number of status effects applied
+ * to each character. Result size is the number of status effects per character
+ */
+public class StatusEffectTest extends OrionTestBase {
+
+    private static final int[] STATUS_COUNTS = { 1, 5, 10, 20, 40 };
+    private static final int CHARACTERS = 1000;
+    private static final int TICKS = 1000;
+
+    private static final Status[] STATUSES = Status.values();
+
+    private ArrayList<Result> results = new ArrayList<Result>();
+
+    @Override
+    public Parent getResultsContent() {
+        return createLineChart("Time per tick based on status effects per character",
+                "Status effects per character", "Time (in milliseconds). Lower is better", results);
+    }
+
+    @Override
+    public Parent getTestControls() {
+        return new Pane();
+    }
+
+    @Override
+    protected void init() throws Exception {
+        ObjectManager.load();
+    }
+
+    @Override
+    protected void run() throws Exception {
+        results.clear();
+
+        // first round is warm up
+        runWith(STATUS_COUNTS[STATUS_COUNTS.length - 1]);
+        results.clear();
+
+        for (int count : STATUS_COUNTS)
+            runWith(count);
+    }
+
+    private void runWith(int numStatuses) {
+        ArrayList<ArrayList<StatusEffect>> lists = new ArrayList<ArrayList<StatusEffect>>();
+        ArrayList<Player> players = new ArrayList<Player>();
+
+        TimerWheel wheel = new TimerWheel();
+        SpatialIndex<GameCharacter> index = new SpatialIndex<GameCharacter>(4000, 4000,
+                GameCharacter::getX, GameCharacter::getY);
+
+        for (int i = 0; i < CHARACTERS; i++) {
+            Player player = new Player("Bench" + i, GameCharacterClass.NOVICE, 0, 0, "127.0.0.1", 9);
+            player.attachTo(index, wheel);
+            players.add(player);
+
+            ArrayList<StatusEffect> list = new ArrayList<StatusEffect>();
+            for (int j = 0; j < numStatuses; j++) {
+                // long enough to outlast the test, so both keep the same number of statuses
+                StatusEffect e = new StatusEffect(STATUSES[1 + rand.nextInt(STATUSES.length - 1)], 60 + rand.nextFloat());
+                list.add(e);
+                player.addStatusEffect(e);
+            }
+            lists.add(list);
+        }
+
+        int found = 0;
+
+        // attacker and target are checked for each attack
+        long start = System.nanoTime();
+        for (int tick = 0; tick < TICKS; tick++) {
+            for (ArrayList<StatusEffect> list : lists) {
+                if (contains(list, Status.STUNNED) || contains(list, Status.POISONED))
+                    found++;
+            }
+        }
+        addResult("hasStatusEffect() (list)", numStatuses, start);
+
+        start = System.nanoTime();
+        for (int tick = 0; tick < TICKS; tick++) {
+            for (Player player : players) {
+                if (player.hasStatusEffect(Status.STUNNED) || player.hasStatusEffect(Status.POISONED))
+                    found--;
+            }
+        }
+        addResult("hasStatusEffect() (bits)", numStatuses, start);
+
+        if (found != 0)
+            fail("List and bits disagree");
+
+        start = System.nanoTime();
+        for (int tick = 0; tick < TICKS; tick++) {
+            for (ArrayList<StatusEffect> list : lists) {
+                for (Iterator<StatusEffect> it = list.iterator(); it.hasNext(); ) {
+                    StatusEffect e = it.next();
+                    e.reduceDuration(TimerWheel.TICK_SECONDS);
+                    if (e.getDuration() <= 0)
+                        it.remove();
+                }
+            }
+        }
+        addResult("Expiry (list)", numStatuses, start);
+
+        start = System.nanoTime();
+        for (int tick = 0; tick < TICKS; tick++)
+            wheel.advance();
+        addResult("Expiry (timer wheel)", numStatuses, start);
+
+        players.forEach(GameCharacter::detach);
+    }
+
+    private boolean contains(ArrayList<StatusEffect> list, Status status) {
+        for (int i = 0; i < list.size(); i++)
+            if (list.get(i).getStatus() == status)
+                return true;
+
+        return false;
+    }
+
+    private void addResult(String name, int numStatuses, long start) {
+        Result result = new Result();
+        result.name = name;
+        result.size = numStatuses;
+        result.timeTook = (System.nanoTime() - start) / 1000000.0 / TICKS;
+        results.add(result);
+    }
+}
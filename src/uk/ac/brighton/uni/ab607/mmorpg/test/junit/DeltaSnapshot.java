@@ -0,0 +1,90 @@
+package uk.ac.brighton.uni.ab607.mmorpg.test.junit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Random;
+
+import org.junit.Test;
+
+import uk.ac.brighton.uni.ab607.mmorpg.common.GameCharacterClass;
+import uk.ac.brighton.uni.ab607.mmorpg.common.Player;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.SnapshotBaseline;
+import uk.ac.brighton.uni.ab607.mmorpg.common.request.EntityDelta;
+
+/**
+ * Checks that a client applying delta frames ends up with
+ * the same characters as it would get from full frames
+ */
+public class DeltaSnapshot {
+
+    @Test
+    public void test() {
+        Random random = new Random(0);
+
+        ArrayList<Player> all = new ArrayList<Player>();
+        for (int i = 0; i < 30; i++) {
+            Player p = new Player("Test" + i, GameCharacterClass.NOVICE, random.nextInt(2520), random.nextInt(1600), "", 0);
+            p.setRuntimeID(i + 1);
+            all.add(p);
+        }
+
+        SnapshotBaseline baseline = new SnapshotBaseline();
+
+        // ids -> [xy, spriteID, placeDir]
+        HashMap<Integer, int[]> client = new HashMap<Integer, int[]>();
+
+        for (int frame = 0; frame < 200; frame++) {
+            ArrayList<Player> visible = new ArrayList<Player>();
+            for (Player p : all) {
+                if (random.nextInt(4) == 0)
+                    p.setX(random.nextInt(2520));
+                if (random.nextInt(10) == 0)
+                    p.setPlaceDir((byte) random.nextInt(16));
+                if (random.nextInt(5) != 0)
+                    visible.add(p);
+            }
+
+            ByteBuffer out = ByteBuffer.allocate(1 + 2 * all.size() * EntityDelta.MAX_ENTRY_SIZE);
+            out.put((byte)0);
+
+            baseline.begin();
+            visible.forEach(p -> baseline.add(p, out));
+            baseline.end(out);
+
+            EntityDelta.read(Arrays.copyOf(out.array(), out.position()), (flags, ids, xy, placeDir, spriteID) -> {
+                if ((flags & EntityDelta.LEAVE) != 0) {
+                    assertNotNull(client.remove(ids));
+                    return;
+                }
+
+                int[] state = client.get(ids);
+                if ((flags & EntityDelta.ENTER) != 0) {
+                    assertEquals(null, state);
+                    state = new int[3];
+                    client.put(ids, state);
+                }
+
+                assertNotNull(state);
+
+                if ((flags & EntityDelta.XY) != 0)
+                    state[0] = xy;
+                if ((flags & EntityDelta.SPRITE) != 0)
+                    state[1] = spriteID;
+                if ((flags & EntityDelta.PLACE_DIR) != 0)
+                    state[2] = placeDir;
+            });
+
+            assertEquals(visible.size(), client.size());
+            for (Player p : visible) {
+                assertArrayEquals(new int[] { p.getPackedXY(), p.getSpriteID(), p.getPackedPlaceDir() },
+                        client.get(p.getPackedIDs()));
+            }
+        }
+    }
+}
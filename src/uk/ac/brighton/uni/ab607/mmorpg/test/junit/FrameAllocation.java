@@ -0,0 +1,161 @@
+package uk.ac.brighton.uni.ab607.mmorpg.test.junit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import uk.ac.brighton.uni.ab607.mmorpg.common.GameCharacterClass;
+import uk.ac.brighton.uni.ab607.mmorpg.common.Player;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.GameMap;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.ObjectManager;
+
+import com.almasb.common.graphics.Point2D;
+import com.almasb.common.net.ClientPacketParser;
+import com.almasb.common.net.DataPacket;
+import com.almasb.common.net.UDPServer;
+
+/**
+ * Checks that once frame buffers have grown, GameMap.update() with players
+ * attached allocates exactly the copy of each frame handed to UDPServer
+ * and the DataPacket the player itself is sent in every tick, nothing else
+ *
+ * The server counts frames and packets instead of sending them.
+ * Sizes of byte arrays and of a DataPacket are measured, not assumed
+ */
+public class FrameAllocation {
+
+    private static final int PLAYERS = 50;
+    private static final int TICKS = 2000;
+
+    /**
+     * Total, not per player or tick, for one-off allocation by JIT compiler
+     */
+    private static final int TOLERANCE = 4096;
+
+    private static final int CALIBRATION_ROUNDS = 10000;
+
+    /**
+     * Keeps calibration allocations from being optimized away
+     */
+    private static Object sink;
+
+    /**
+     * Allocated size of byte[] of length 0-7, longer ones are padded the same
+     */
+    private final long[] arraySizes = new long[8];
+
+    private long frames = 0, copies = 0, packets = 0;
+
+    @Test
+    public void test() throws IOException {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+
+        ObjectManager.load();
+
+        UDPServer server = new UDPServer(0, new ClientPacketParser() {
+            @Override
+            public void parseClientPacket(DataPacket packet) {}
+        }) {
+            @Override
+            public void sendRawBytes(byte[] data, String ip, int port) {
+                frames++;
+                copies += arraySize(data.length);
+            }
+
+            @Override
+            public void send(DataPacket packet, String ip, int port) {
+                packets++;
+            }
+        };
+
+        try {
+            GameMap map = ObjectManager.getMapByName("map1.txt");
+
+            ArrayList<Player> players = new ArrayList<Player>();
+            for (int i = 0; i < PLAYERS; i++) {
+                Point2D p = map.getRandomFreePos();
+                Player player = new Player("Test" + i, GameCharacterClass.NOVICE, (int) p.getX(), (int) p.getY(), "127.0.0.1", 55556);
+                player.setRuntimeID(ObjectManager.MAX_TEMPLATES + i);
+                players.add(player);
+                map.addPlayer(player);
+            }
+
+            // warm up, lets buffers grow and JIT compile
+            for (int i = 0; i < TICKS; i++)
+                tick(server, map, players, i);
+
+            long threadID = Thread.currentThread().getId();
+
+            for (int length = 0; length < arraySizes.length; length++) {
+                final int len = length;
+                arraySizes[length] = measure(threadBean, threadID, () -> sink = new byte[len]);
+            }
+
+            Player player = players.get(0);
+            long packetSize = measure(threadBean, threadID, () -> sink = new DataPacket(player));
+
+            frames = 0;
+            copies = 0;
+            packets = 0;
+
+            long before = threadBean.getThreadAllocatedBytes(threadID);
+
+            for (int i = 0; i < TICKS; i++)
+                tick(server, map, players, i);
+
+            long allocated = threadBean.getThreadAllocatedBytes(threadID) - before;
+            long expected = copies + packets * packetSize;
+
+            assertTrue("Frames missing: " + frames, frames >= PLAYERS * TICKS);
+            assertEquals(PLAYERS * TICKS, packets);
+            assertTrue("Allocated " + allocated + " bytes, expected " + expected + " bytes: frame copies "
+                    + copies + ", " + packets + " packets of " + packetSize,
+                    Math.abs(allocated - expected) <= TOLERANCE);
+        }
+        finally {
+            server.close();
+        }
+    }
+
+    private long arraySize(int length) {
+        return arraySizes[length % arraySizes.length] + length - length % arraySizes.length;
+    }
+
+    /**
+     *
+     * @return
+     *          bytes allocated by one run of allocation
+     */
+    private static long measure(com.sun.management.ThreadMXBean threadBean, long threadID, Runnable allocation) {
+        for (int i = 0; i < CALIBRATION_ROUNDS; i++)
+            allocation.run();
+
+        long before = threadBean.getThreadAllocatedBytes(threadID);
+        for (int i = 0; i < CALIBRATION_ROUNDS; i++)
+            allocation.run();
+
+        return Math.round((threadBean.getThreadAllocatedBytes(threadID) - before) / (double) CALIBRATION_ROUNDS);
+    }
+
+    private void tick(UDPServer server, GameMap map, ArrayList<Player> players, int frame) {
+        // some players move so that deltas are not empty
+        for (int i = 0; i < players.size(); i++) {
+            Player p = players.get(i);
+            if ((frame + i) % 5 == 0)
+                p.setX(p.getX() + ((frame / 50) % 2 == 0 ? 40 : -40));
+        }
+
+        map.update(server);
+    }
+}
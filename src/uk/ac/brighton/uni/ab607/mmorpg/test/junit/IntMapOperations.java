@@ -0,0 +1,42 @@
+package uk.ac.brighton.uni.ab607.mmorpg.test.junit;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import org.junit.Test;
+
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.IntMap;
+
+/**
+ * Checks IntMap against HashMap under random puts and removes
+ */
+public class IntMapOperations {
+
+    @Test
+    public void test() {
+        Random random = new Random(0);
+
+        IntMap<String> map = new IntMap<String>();
+        HashMap<Integer, String> expected = new HashMap<Integer, String>();
+
+        for (int i = 0; i < 100000; i++) {
+            // small key range so that keys collide and get removed often
+            int key = random.nextInt(2000) - 1000;
+
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            }
+            else {
+                String value = "v" + i;
+                assertEquals(expected.put(key, value), map.put(key, value));
+            }
+
+            assertEquals(expected.size(), map.size());
+        }
+
+        for (int key = -1000; key < 1000; key++)
+            assertEquals(expected.get(key), map.get(key));
+    }
+}
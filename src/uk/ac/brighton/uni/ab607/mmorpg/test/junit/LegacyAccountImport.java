@@ -0,0 +1,113 @@
+package uk.ac.brighton.uni.ab607.mmorpg.test.junit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Test;
+
+import uk.ac.brighton.uni.ab607.mmorpg.common.Player;
+import uk.ac.brighton.uni.ab607.mmorpg.common.item.GameItem;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.ID;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.ObjectManager;
+import uk.ac.brighton.uni.ab607.mmorpg.server.AccountCodec;
+import uk.ac.brighton.uni.ab607.mmorpg.server.GameAccount;
+
+/**
+ * Checks that an accounts.db written by Java serialization before
+ * item templates still imports, i.e. goes through the same steps
+ * as DBAccess does with a legacy DB
+ */
+public class LegacyAccountImport {
+
+    /**
+     * Gzipped accounts.db with one new account "legacy" that has
+     * knife and hat equipped, written by the code before item templates
+     */
+    private static final String LEGACY_DB =
+            "H4sIAAAAAAACA61YXWhbZRh+mzb9S7d182fKcBykc7vYTtK17q/r2rRJ17i0nU1nV3sxv5x8SU5z/vad77SJQscuvBC9EEFh" +
+            "w+nQi4GODRQvhIF45YXVi6FMUGQXMiYoKMIQL8T3+06SploxzTyQ5Hx/78/zvu/znpOrP0PQZbB1gSwS1eO6oc4wSieI0/Xp" +
+            "vWP7di3caYamJHRqtukQRrjNODycFJvDYnN4tDo/UHScpRYAaOLQatAc0Uood79XUImmppmey3PbUj1LV0n6QOSgapo2c3Kq" +
+            "S9kiZepxYtKoptmexUPFY83vb70DAQgkoc0kziSucdjmazWIlQunONOt3EASWh2DlCjaFE56hTDRwhVFYVQUlorCvqIwemDi" +
+            "/El5YKDIoAdnVGKYxE2r/qJKLY2VHK7jbdmYe5/3/rB09+XXA9CchOYCLZ2FZQgmod0hrrtks0xl7KEjFhoqx0UHMRjTk5FC" +
+            "BG/mrCnLccRCM4d2dKhX5UWO4Oz7L3DKZvk2k3Mrm168MfBnADpGYAvhiEHa4/SkrVvcTUD7gp1O0kVqJCCIh2gpAS0OhmsE" +
+            "Qm5BN4zKvg6XEy43zkOQnvV0tHVwvl74dE7NcFycckjaoAkcYhg6dGuRWpgEJQ776xWVqJxBAQHd8YFj0F8nKCJjRvOYexqn" +
+            "7MbNS/TE46e6A/DosxAkhr5IE9BGeGFG1wroc5q4VPo8AsEsw5MJCOQdHGD+aHQMOhjNUau8mWHcddwSw02ug8i6DkO/xbip" +
+            "iJ/SPHRW4Xc5BOZH5iGUjlanhCvd89CaTiHUcsMYYqShsaMGpg2HgXoxWuOkPIxghTLU1Zgu87Scfh0ZnVFNTHA40pDwnpjO" +
+            "UHYbzWZRENr4UE2VRxkjpaTuchmqSs63VPMdfZU5hscO1J1KdnoBNYVT4uAA5qLISwndViwnMcCSkuMHUamoqGhjjsWLDmU6" +
+            "ljZFimoC/5K/nVBzhfyf5rsAgdMeE1G9+tv231vbZ24HAIoOrnU0VS5P2PWImKqel0fGQm+ef+nx210jlSPdleXhy9DQtczg" +
+            "cCMVIZOlImQbWsNgs+R4QaBq3PLM2kXBV5NTzyRG43jj0w0qPtSIYpFItaIFUjs5tMSmZieR8x5YbTTVrCqev/nYhc/IJWw1" +
+            "SFqu/jyV2IFsJ2icpE7EV+ZWXRb5uaX6ufXRdz+1vXF97ptKTEBGb4eITnQPQPQQNA23ZrPDhy9cHJrDT02khvr6+oaSK1/K" +
+            "T19f/zC8e0t8hl5Z+UKckfm5q8ZW9HCoIdRWs/SJU0f/uPL0vQ+x5SAagrkS0IzkLqDBqvBdqL2a1gwQp8G6cRJ0rv6NzlfG" +
+            "uq51D378QgUu8XjQtzHcowxnQ8W7v/a8NvuO9CNIxFQCWk15g+TBSw529aENsoWU3CO/Z1CA6ONHGvf1l2+/v7Wna/HHALQn" +
+            "IMRoVrdouYe2Yxeg7gQp4kMG8XjeZmWm68rQLPEMPi3WOah18504IBnWoCY2Pg6x+2i6PXFfihTouiJvOBzcIJhx/yDKCBrC" +
+            "aw5j92OS+JLoCYESPsneG+jpMkSiLoSorq8uvn19eU8xAEEsANc9Lb/n1u1/6zUlmbyC4jdx6JliGd0irKTkCd+rEINRkikp" +
+            "tscVO6tkiZuXrbPlyUgEn9iaxwmvlBOHYFQ8I2JZqXWXlQz1la/Hdnxw1e6q0g4y6kjjuVqJ+Drc2jYZPzUzHU06qCF2Hxqq" +
+            "AVxHB7aH6Ylo8h+EV9OnBhsgidVSXq9njMeTE1JjuLyIoQw/5blcsWxmEkPRDJvnqbtXydjWbq7IR3bFthRilRSsU2q51I9q" +
+            "L6I06m+uRFbIHZCt4KgYi5sh2WpG/t1JsYAtsmVkKja3xrDN+IISxRcZkqOKaGCKm7cFPQjd+zGHUmL4P2gOpsan4im3/pIq" +
+            "gz1LiWNbPZfjke2vZvKSkjsdj9EYMdFk5GeGjwW0SsvRDTJJWbz/4xOzMLi3bH0rh51RxMV0DKoULD1LlSWd5xXHtpmSNkhG" +
+            "RKk/EjmIDp4Qy40hFRRHluvvwGuxWTV+vfSPRY8fj09LrafLy20c+maQT3a7itS0V8nZinjiULCGWAnfwXwvS7aHXhJGkXys" +
+            "jOu7ijQTHBfDxpMiIJPiOZQ3ER2NY05E6vS7+ualfQLn3nrv2s2AeMcPCkooU7ZT1RmQOgNrHA9y6MdwcjSfsIyyRBjTbYYw" +
+            "yDdi3+kM1VCHgu9JRCsoGZlmvucHOHQmGBZpSuxuzP0tte6HpibjZ8bPpGanpmPVomzx2SIl+AXh12zLxSdN3coJwneROwzF" +
+            "pBwpRPyT4CqGbhVoRuE2WpmnTNGRQxQHrce3epxVssg3OGNSN6/6Vd3HoQMf33TLJLrRuBdBMT9ZRFov/gVFvJkmixEAAA==";
+
+    @Test
+    public void test() throws IOException {
+        ObjectManager.load();
+
+        Path file = Files.createTempFile("accounts", ".db");
+        try {
+            Files.write(file, unzip(Base64.getDecoder().decode(LEGACY_DB)));
+
+            assertTrue(AccountCodec.isLegacySnapshot(file));
+            TreeMap<String, GameAccount> accounts = AccountCodec.readSnapshot(file);
+            assertEquals(1, accounts.size());
+
+            GameAccount account = accounts.get("legacy");
+            assertNotNull(account);
+            checkItems(account.getPlayer());
+
+            GameAccount decoded = AccountCodec.decode(AccountCodec.encode(account));
+            assertEquals("legacy", decoded.getUserName());
+            checkItems(decoded.getPlayer());
+        }
+        finally {
+            Files.delete(file);
+        }
+    }
+
+    private void checkItems(Player player) {
+        assertEquals(ID.Weapon.KNIFE, player.getEquip(Player.RIGHT_HAND).getTemplate().id);
+        assertEquals(ID.Armor.HAT, player.getEquip(Player.HELM).getTemplate().id);
+
+        boolean sword = false, chainmail = false;
+        for (GameItem item : player.getInventory().getItems()) {
+            assertEquals(item.getTemplate().getTemplateID(), item.getTemplateID());
+            sword |= ID.Weapon.IRON_SWORD.equals(item.getTemplate().id);
+            chainmail |= ID.Armor.CHAINMAL.equals(item.getTemplate().id);
+        }
+
+        assertTrue(sword);
+        assertTrue(chainmail);
+    }
+
+    private byte[] unzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            byte[] buffer = new byte[4096];
+            int len;
+            while ((len = in.read(buffer)) != -1)
+                out.write(buffer, 0, len);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,58 @@
+package uk.ac.brighton.uni.ab607.mmorpg.test.junit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import uk.ac.brighton.uni.ab607.mmorpg.common.Attribute;
+import uk.ac.brighton.uni.ab607.mmorpg.common.Effect;
+import uk.ac.brighton.uni.ab607.mmorpg.common.GameCharacter;
+import uk.ac.brighton.uni.ab607.mmorpg.common.Rune;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.Enemy;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.Essence;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.ID;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.ObjectManager;
+
+/**
+ * Checks that enemies of one type sharing base stats don't see
+ * each other's buffs and get their own stats back when buffs end
+ */
+public class SharedEnemyStats {
+
+    @Test
+    public void test() {
+        ObjectManager.load();
+
+        Enemy buffed = ObjectManager.getEnemyByID(ID.Enemy.MINOR_FIRE_SPIRIT);
+        Enemy other = ObjectManager.getEnemyByID(ID.Enemy.MINOR_FIRE_SPIRIT);
+
+        float[] base = totalStats(other);
+        int str = other.getTotalAttribute(GameCharacter.STR);
+
+        Effect effect = new Effect(60, "test", new Rune[] { new Rune(Attribute.STRENGTH, 10) }, new Essence[0]);
+        buffed.addEffect(effect);
+
+        assertEquals(str + 10, buffed.getTotalAttribute(GameCharacter.STR));
+        assertEquals(str, other.getTotalAttribute(GameCharacter.STR));
+        assertEquals(base[GameCharacter.ATK], other.getTotalStat(GameCharacter.ATK), 0);
+        assertTrue(base[GameCharacter.ATK] < buffed.getTotalStat(GameCharacter.ATK));
+
+        // a new enemy of the same type isn't affected either
+        float[] fresh = totalStats(ObjectManager.getEnemyByID(ID.Enemy.MINOR_FIRE_SPIRIT));
+        for (int i = 0; i < base.length; i++)
+            assertEquals(base[i], fresh[i], 0);
+
+        effect.onEnd(buffed);
+        float[] after = totalStats(buffed);
+        for (int i = 0; i < base.length; i++)
+            assertEquals(base[i], after[i], 0);
+    }
+
+    private float[] totalStats(GameCharacter ch) {
+        float[] stats = new float[GameCharacter.Stat.values().length];
+        for (int i = 0; i < stats.length; i++)
+            stats[i] = ch.getTotalStat(i);
+        return stats;
+    }
+}
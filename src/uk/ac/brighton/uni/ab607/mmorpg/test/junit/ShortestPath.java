@@ -0,0 +1,116 @@
+package uk.ac.brighton.uni.ab607.mmorpg.test.junit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.AStarPathfinder;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.HierarchicalPathfinder;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.Pathfinder;
+
+/**
+ * Checks that AStarPathfinder finds walkable paths of the same
+ * length as breadth first search, and that HierarchicalPathfinder
+ * finds walkable paths whenever one exists
+ */
+public class ShortestPath {
+
+    private static final int WIDTH = 40, HEIGHT = 30;
+
+    @Test
+    public void test() {
+        check(true);
+    }
+
+    @Test
+    public void testHierarchical() {
+        check(false);
+    }
+
+    /**
+     *
+     * @param shortest
+     *                  true to check AStarPathfinder, false to check HierarchicalPathfinder
+     */
+    private void check(boolean shortest) {
+        Random random = new Random(0);
+
+        for (int n = 0; n < 20; n++) {
+            ArrayList<String> data = new ArrayList<String>();
+            for (int y = 0; y < HEIGHT; y++) {
+                StringBuilder line = new StringBuilder();
+                for (int x = 0; x < WIDTH; x++)
+                    line.append(random.nextInt(10) < 3 ? '1' : '0');
+                data.add(line.toString());
+            }
+
+            Pathfinder pathfinder = shortest ? new AStarPathfinder(data) : new HierarchicalPathfinder(data);
+
+            for (int i = 0; i < 50; i++) {
+                int sx = random.nextInt(WIDTH), sy = random.nextInt(HEIGHT);
+                int tx = random.nextInt(WIDTH), ty = random.nextInt(HEIGHT);
+                if (!pathfinder.isWalkable(sx, sy))
+                    continue;
+
+                Pathfinder.Path path = pathfinder.findPath(sx, sy, tx, ty);
+                int expected = bfs(pathfinder, sx, sy, tx, ty);
+
+                if (expected == -1) {
+                    assertTrue(path.isEmpty());
+                    continue;
+                }
+
+                // path to own cell is the cell itself
+                if (shortest)
+                    assertEquals(Math.max(expected, 1), path.length());
+                else
+                    assertTrue(path.length() >= Math.max(expected, 1));
+
+                int x = sx, y = sy;
+                while (!path.isEmpty()) {
+                    int step = Math.abs(path.getNextX() - x) + Math.abs(path.getNextY() - y);
+                    assertEquals(expected == 0 ? 0 : 1, step);
+                    x = path.getNextX();
+                    y = path.getNextY();
+                    assertTrue(pathfinder.isWalkable(x, y));
+                    path.advance();
+                }
+
+                assertEquals(tx, x);
+                assertEquals(ty, y);
+            }
+        }
+    }
+
+    private static int bfs(Pathfinder pathfinder, int sx, int sy, int tx, int ty) {
+        if (!pathfinder.isWalkable(tx, ty))
+            return -1;
+
+        int[] dist = new int[WIDTH * HEIGHT];
+        Arrays.fill(dist, -1);
+        dist[sy * WIDTH + sx] = 0;
+
+        ArrayDeque<Integer> queue = new ArrayDeque<Integer>();
+        queue.add(sy * WIDTH + sx);
+
+        int[][] dirs = { { -1, 0 }, { 1, 0 }, { 0, -1 }, { 0, 1 } };
+        while (!queue.isEmpty()) {
+            int cell = queue.poll();
+            for (int[] d : dirs) {
+                int nx = cell % WIDTH + d[0], ny = cell / WIDTH + d[1];
+                if (pathfinder.isWalkable(nx, ny) && dist[ny * WIDTH + nx] == -1) {
+                    dist[ny * WIDTH + nx] = dist[cell] + 1;
+                    queue.add(ny * WIDTH + nx);
+                }
+            }
+        }
+
+        return dist[ty * WIDTH + tx];
+    }
+}
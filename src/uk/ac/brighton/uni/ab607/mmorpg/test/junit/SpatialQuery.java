@@ -0,0 +1,68 @@
+package uk.ac.brighton.uni.ab607.mmorpg.test.junit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.Test;
+
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.SpatialIndex;
+
+/**
+ * Checks that spatial index queries return exactly
+ * the same objects as filtering all objects by rectangle
+ */
+public class SpatialQuery {
+
+    private static class Pos {
+        int x, y;
+        Pos(int x, int y) {
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    @Test
+    public void test() {
+        Random random = new Random(0);
+
+        SpatialIndex<Pos> index = new SpatialIndex<Pos>(2520, 1600, p -> p.x, p -> p.y);
+        ArrayList<Pos> all = new ArrayList<Pos>();
+        for (int i = 0; i < 1000; i++) {
+            Pos p = new Pos(random.nextInt(2520), random.nextInt(1600));
+            all.add(p);
+            index.add(p);
+        }
+
+        // move some around, including crossing bucket borders
+        for (int i = 0; i < 500; i++) {
+            Pos p = all.get(random.nextInt(all.size()));
+            int oldX = p.x, oldY = p.y;
+            p.x = random.nextInt(2520);
+            p.y = random.nextInt(1600);
+            index.update(p, oldX, oldY);
+        }
+
+        assertEquals(all.size(), index.size());
+
+        ArrayList<Pos> result = new ArrayList<Pos>();
+        for (int i = 0; i < 200; i++) {
+            int x = random.nextInt(2520) - 640, y = random.nextInt(1600) - 360;
+
+            result.clear();
+            index.query(x, y, 1280, 720, result);
+
+            int expected = 0;
+            for (Pos p : all) {
+                if (p.x >= x && p.x <= x + 1280 && p.y >= y && p.y <= y + 720) {
+                    expected++;
+                    assertTrue(result.contains(p));
+                }
+            }
+
+            assertEquals(expected, result.size());
+        }
+    }
+}
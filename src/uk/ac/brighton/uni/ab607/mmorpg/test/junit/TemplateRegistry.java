@@ -0,0 +1,62 @@
+package uk.ac.brighton.uni.ab607.mmorpg.test.junit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+
+import org.junit.Test;
+
+import uk.ac.brighton.uni.ab607.mmorpg.common.item.GameItem;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.Enemy;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.ID;
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.ObjectManager;
+
+/**
+ * Checks that template IDs are dense and unique and that objects
+ * created by int and by String ID are the same template
+ */
+public class TemplateRegistry {
+
+    @Test
+    public void test() {
+        ObjectManager.load();
+
+        String[] ids = { ID.Armor.HAT, ID.Armor.THANATOS_BODY_ARMOR, ID.Weapon.HANDS, ID.Weapon.FROSTMOURN,
+                ID.Skill.Gladiator.BASH, ID.Enemy.MINOR_FIRE_SPIRIT, ID.Enemy.MINOR_WATER_SPIRIT };
+
+        HashSet<Integer> seen = new HashSet<Integer>();
+        for (String id : ids) {
+            int templateID = ObjectManager.getTemplateID(id);
+            assertTrue(id, templateID >= 0 && templateID < ObjectManager.MAX_TEMPLATES);
+            assertTrue(id, seen.add(templateID));
+        }
+
+        // loading again keeps the same IDs
+        int hat = ObjectManager.getTemplateID(ID.Armor.HAT);
+        ObjectManager.load();
+        assertEquals(hat, ObjectManager.getTemplateID(ID.Armor.HAT));
+
+        assertEquals(-1, ObjectManager.getTemplateID("9999"));
+        assertNull(ObjectManager.getItemByID("9999"));
+
+        for (String id : new String[] { ID.Armor.CHAINMAL, ID.Weapon.KNIFE }) {
+            GameItem item = ObjectManager.getItemByID(ObjectManager.getTemplateID(id));
+            assertEquals(id, item.getTemplate().id);
+            assertEquals(ObjectManager.getTemplateID(id), item.getTemplateID());
+            assertEquals(item.getClass(), ObjectManager.getItemByID(id).getClass());
+        }
+
+        // enemies are sent with their template ID
+        Enemy enemy = ObjectManager.getEnemyByID(ID.Enemy.MINOR_EARTH_SPIRIT);
+        enemy.setRuntimeID(42);
+        int idValue = enemy.getPackedIDs() >>> 16;
+        assertEquals(enemy.getTemplateID(), idValue);
+        assertEquals(enemy.name, ObjectManager.getEnemyName(idValue));
+        assertEquals(42, enemy.getPackedIDs() & 0xFFFF);
+
+        assertNull(ObjectManager.getEnemyName(ObjectManager.getTemplateID(ID.Weapon.KNIFE)));
+        assertNull(ObjectManager.getEnemyByID(ObjectManager.getTemplateID(ID.Weapon.KNIFE)));
+    }
+}
@@ -0,0 +1,80 @@
+package uk.ac.brighton.uni.ab607.mmorpg.test.junit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.Test;
+
+import uk.ac.brighton.uni.ab607.mmorpg.common.object.TimerWheel;
+
+/**
+ * Checks that TimerWheel fires timers exactly on their tick,
+ * including delays that cascade through every level, and that
+ * cancelled timers keep their ticks left
+ */
+public class TimerScheduling {
+
+    private static class TestTimer extends TimerWheel.Timer {
+        private final TimerWheel wheel;
+        private long expected;
+        private long firedAt = -1;
+
+        TestTimer(TimerWheel wheel, int ticks) {
+            super(ticks);
+            this.wheel = wheel;
+            expected = wheel.getTick() + ticks;
+        }
+
+        @Override
+        protected void onFire() {
+            firedAt = wheel.getTick();
+        }
+    }
+
+    @Test
+    public void test() {
+        Random random = new Random(0);
+        TimerWheel wheel = new TimerWheel();
+        ArrayList<TestTimer> timers = new ArrayList<TestTimer>();
+        ArrayList<TestTimer> cancelled = new ArrayList<TestTimer>();
+
+        for (int i = 0; i < 300000; i++) {
+            if (random.nextInt(10) == 0) {
+                // mostly short delays like effects and cooldowns, some far beyond level 0
+                int ticks = random.nextInt(4) == 0 ? 1 + random.nextInt(300000) : 1 + random.nextInt(500);
+                TestTimer timer = new TestTimer(wheel, ticks);
+                wheel.schedule(timer);
+                timers.add(timer);
+            }
+
+            if (random.nextInt(50) == 0 && !timers.isEmpty()) {
+                TestTimer timer = timers.get(random.nextInt(timers.size()));
+                if (timer.isScheduled()) {
+                    long left = timer.expected - wheel.getTick();
+                    wheel.cancel(timer);
+                    assertEquals(left, timer.getTicksLeft());
+                    cancelled.add(timer);
+                }
+            }
+
+            wheel.advance();
+        }
+
+        // far timers still pending
+        for (int i = 0; i < 300000; i++)
+            wheel.advance();
+
+        assertEquals(0, wheel.size());
+        for (TestTimer timer : timers) {
+            if (cancelled.contains(timer))
+                assertEquals(-1, timer.firedAt);
+            else
+                assertEquals(timer.expected, timer.firedAt);
+
+            assertFalse(timer.isScheduled());
+        }
+    }
+}
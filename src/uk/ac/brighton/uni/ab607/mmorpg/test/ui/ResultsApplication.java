@@ -1,12 +1,24 @@
 package uk.ac.brighton.uni.ab607.mmorpg.test.ui;
 
 import uk.ac.brighton.uni.ab607.mmorpg.test.OrionTestBase;
+import uk.ac.brighton.uni.ab607.mmorpg.test.cases.AccountCodecTest;
 import uk.ac.brighton.uni.ab607.mmorpg.test.cases.BitPatternTest;
+import uk.ac.brighton.uni.ab607.mmorpg.test.cases.EnemyHeapTest;
+import uk.ac.brighton.uni.ab607.mmorpg.test.cases.EnemyPoolTest;
+import uk.ac.brighton.uni.ab607.mmorpg.test.cases.EntityHeapTest;
+import uk.ac.brighton.uni.ab607.mmorpg.test.cases.EntityDeltaSizeTest;
+import uk.ac.brighton.uni.ab607.mmorpg.test.cases.GameMapTickTest;
+import uk.ac.brighton.uni.ab607.mmorpg.test.cases.ItemHeapTest;
+import uk.ac.brighton.uni.ab607.mmorpg.test.cases.MapInstanceTest;
+import uk.ac.brighton.uni.ab607.mmorpg.test.cases.PathfindingTest;
 import uk.ac.brighton.uni.ab607.mmorpg.test.cases.ProtocolCompressionSpeedTest;
 import uk.ac.brighton.uni.ab607.mmorpg.test.cases.ProtocolCompressionTest;
 import uk.ac.brighton.uni.ab607.mmorpg.test.cases.ProtocolSizeDependencyTest;
 import uk.ac.brighton.uni.ab607.mmorpg.test.cases.ProtocolSizeTest;
 import uk.ac.brighton.uni.ab607.mmorpg.test.cases.ProtocolSpeedTest;
+import uk.ac.brighton.uni.ab607.mmorpg.test.cases.SpawnTest;
+import uk.ac.brighton.uni.ab607.mmorpg.test.cases.StatEngineTest;
+import uk.ac.brighton.uni.ab607.mmorpg.test.cases.StatusEffectTest;
 import javafx.application.Application;
 import javafx.concurrent.Task;
 import javafx.event.ActionEvent;
@@ -103,7 +115,19 @@ public class ResultsApplication extends Application {
                 new BitPatternTest(),
                 new ProtocolSpeedTest(),
                 new ProtocolCompressionTest(),
-                new ProtocolCompressionSpeedTest());
+                new ProtocolCompressionSpeedTest(),
+                new GameMapTickTest(),
+                new EntityDeltaSizeTest(),
+                new PathfindingTest(),
+                new AccountCodecTest(),
+                new StatEngineTest(),
+                new StatusEffectTest(),
+                new SpawnTest(),
+                new EnemyPoolTest(),
+                new MapInstanceTest(),
+                new EntityHeapTest(),
+                new ItemHeapTest(),
+                new EnemyHeapTest());
         cbTests.getSelectionModel().selectFirst();
 
         primaryStage.setScene(new Scene(root));